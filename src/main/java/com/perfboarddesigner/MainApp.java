@@ -1,14 +1,35 @@
 package com.perfboarddesigner;
 
+import com.perfboarddesigner.io.AutosaveJournal;
+import com.perfboarddesigner.io.BinaryProjectFormat;
+import com.perfboarddesigner.io.BoardImageExporter;
+import com.perfboarddesigner.io.ChunkedProjectStore;
+import com.perfboarddesigner.io.JsonProjectFormat;
+import com.perfboarddesigner.io.Project;
 import com.perfboarddesigner.model.*;
+import com.perfboarddesigner.render.DiskImageCache;
+import com.perfboarddesigner.render.RenderCache;
+import com.perfboarddesigner.util.SVGLoader;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.collections.FXCollections; // Added import
 import javafx.geometry.Insets;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.input.MouseButton;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.application.HostServices;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
 
 public class MainApp extends Application {
     private Board board;
@@ -18,6 +39,20 @@ public class MainApp extends Application {
     private Button extendButton;
     private double startX, startY;
     private VBox componentPanel; // Declare as class field
+    private static final long TYPING_DEBOUNCE_MS = 150; // Quiet time before a typed size is rendered
+    private boolean updatingScaleField; // Set while the scale field follows a wheel zoom
+    private static final int PALETTE_CACHE_SIZE = 64;
+    // Palette previews are bitmaps kept on disk, so a warm start renders none of them
+    private final RenderCache paletteCache = new RenderCache(PALETTE_CACHE_SIZE, DiskImageCache.getDefault());
+    private Consumer<Project> boardControlsUpdater; // Shows a loaded project's board settings in the toolbar
+    private AutosaveJournal autosave;
+    private ChunkedProjectStore projectStore; // Knows which parts of the open project changed since it was saved
+
+    @Override
+    public void init() {
+        // Runs before start(): the component drawings are parsed while the window is being built
+        SVGLoader.preloadAll();
+    }
 
     @Override
     public void start(Stage primaryStage) {
@@ -90,6 +125,12 @@ public class MainApp extends Application {
         Button deleteComponentBtn = new Button("Delete Selected");
         deleteComponentBtn.setOnAction(e -> componentManager.removeSelectedComponent());
         
+        Button rotateComponentBtn = new Button("Rotate Selected");
+        rotateComponentBtn.setOnAction(e -> componentManager.rotateSelection());
+        
+        Button replicateBtn = new Button("Step & Repeat...");
+        replicateBtn.setOnAction(e -> showReplicateDialog());
+        
         Button clearComponentsBtn = new Button("Clear All Components");
         clearComponentsBtn.setOnAction(e -> componentManager.clearAllComponents());
         addJumperButton.setOnAction(e -> {
@@ -116,7 +157,7 @@ public class MainApp extends Application {
                 addJumperButton, extendButton, clearWiresButton);
                 
         HBox componentControlsPanel = new HBox(10,
-                gridSnapCheck, deleteComponentBtn, clearComponentsBtn);
+                gridSnapCheck, rotateComponentBtn, replicateBtn, deleteComponentBtn, clearComponentsBtn);
         
         VBox selectionPanel = new VBox(5, boardControlsPanel, wireControlsPanel, componentControlsPanel);
         selectionPanel.setPadding(new Insets(10));
@@ -127,10 +168,18 @@ public class MainApp extends Application {
         board = new Board(typeCombo.getValue(), sideCombo.getValue(), Double.parseDouble(widthField.getText()), 
                 Double.parseDouble(heightField.getText()), Double.parseDouble(spacingField.getText()));
         componentManager = new ComponentManager(board);
+        projectStore = new ChunkedProjectStore(board, componentManager);
         
-        ScrollPane boardScroll = new ScrollPane(board.getBoardPane());
-        boardScroll.setFitToWidth(true);
-        boardScroll.setFitToHeight(true);
+        // The board pane is its own viewport: Ctrl+wheel zooms, wheel and middle-drag pan
+        Pane boardView = board.getBoardPane();
+        board.addZoomListener(zoom -> {
+            if (zoom == parseOrNaN(scaleField.getText())) {
+                return; // The change came from the field itself
+            }
+            updatingScaleField = true;
+            scaleField.setText(String.format(Locale.ROOT, "%.2f", zoom));
+            updatingScaleField = false;
+        });
 
         // Listeners for updates
         typeCombo.valueProperty().addListener((obs, old, newVal) -> {
@@ -151,24 +200,36 @@ public class MainApp extends Application {
             widthField.setDisable(!newVal.isCustom());
             heightField.setDisable(!newVal.isCustom());
         });
-        widthField.textProperty().addListener((obs, old, newVal) -> updateBoardDimensions(widthField, heightField, spacingField, scaleField));
-        heightField.textProperty().addListener((obs, old, newVal) -> updateBoardDimensions(widthField, heightField, spacingField, scaleField));
-        spacingField.textProperty().addListener((obs, old, newVal) -> updateBoardDimensions(widthField, heightField, spacingField, scaleField));
-        scaleField.textProperty().addListener((obs, old, newVal) -> updateBoardDimensions(widthField, heightField, spacingField, scaleField));
+        // Typing only records the new values; the board rebuilds once the burst is over
+        widthField.textProperty().addListener((obs, old, newVal) -> onBoardFieldEdited(widthField, heightField, spacingField, scaleField));
+        heightField.textProperty().addListener((obs, old, newVal) -> onBoardFieldEdited(widthField, heightField, spacingField, scaleField));
+        spacingField.textProperty().addListener((obs, old, newVal) -> onBoardFieldEdited(widthField, heightField, spacingField, scaleField));
+        scaleField.textProperty().addListener((obs, old, newVal) -> onBoardFieldEdited(widthField, heightField, spacingField, scaleField));
+        boardControlsUpdater = project -> {
+            typeCombo.setValue(project.getBoardType());
+            sideCombo.setValue(project.getBoardSide());
+            sizeCombo.setValue(BoardSize.CUSTOM);
+            widthField.setText(String.valueOf(project.getWidthMm()));
+            heightField.setText(String.valueOf(project.getHeightMm()));
+            spacingField.setText(String.valueOf(project.getHoleSpacingMm()));
+        };
 
         // Mouse event handling for interactive wire placement
         board.getBoardPane().setOnMousePressed(e -> {
-            startX = e.getX() / Constants.MM_TO_PIXEL;
-            startY = e.getY() / Constants.MM_TO_PIXEL;
+            if (e.getButton() != MouseButton.PRIMARY) return;
+            startX = board.toModelX(e.getX()) / Constants.MM_TO_PIXEL;
+            startY = board.toModelY(e.getY()) / Constants.MM_TO_PIXEL;
             board.startJumper(startX, startY);
         });
 
         board.getBoardPane().setOnMouseDragged(e -> {
-            board.updateTempJumper(e.getX() / Constants.MM_TO_PIXEL, e.getY() / Constants.MM_TO_PIXEL);
+            if (!e.isPrimaryButtonDown()) return;
+            board.updateTempJumper(board.toModelX(e.getX()) / Constants.MM_TO_PIXEL, board.toModelY(e.getY()) / Constants.MM_TO_PIXEL);
         });
 
         board.getBoardPane().setOnMouseReleased(e -> {
-            board.finishJumper(e.getX() / Constants.MM_TO_PIXEL, e.getY() / Constants.MM_TO_PIXEL);
+            if (e.getButton() != MouseButton.PRIMARY) return;
+            board.finishJumper(board.toModelX(e.getX()) / Constants.MM_TO_PIXEL, board.toModelY(e.getY()) / Constants.MM_TO_PIXEL);
         });
 
         // Create two-column layout
@@ -184,29 +245,102 @@ public class MainApp extends Application {
         VBox leftColumn = new VBox(5);
         leftColumn.setPrefWidth(280);
         leftColumn.setMaxWidth(280);
-        leftColumn.getChildren().add(componentScroll);
+        // Edits to the selected part go through one shared inspector instead of per-part controls
+        PropertyInspector inspector = new PropertyInspector(componentManager);
+        inspector.setStyle("-fx-background-color: #f8f9fa; -fx-border-color: #dee2e6; -fx-border-width: 1;");
+        leftColumn.getChildren().addAll(componentScroll, inspector);
+        VBox.setVgrow(componentScroll, Priority.ALWAYS);
         
         // Right column: Controls and board
         VBox rightColumn = new VBox(10);
-        rightColumn.getChildren().addAll(selectionPanel, boardScroll);
+        rightColumn.getChildren().addAll(selectionPanel, boardView);
+        VBox.setVgrow(boardView, Priority.ALWAYS);
         
         HBox root = new HBox(15);
         root.getChildren().addAll(leftColumn, rightColumn);
+        HBox.setHgrow(rightColumn, Priority.ALWAYS);
 
         // Create menu bar
         MenuBar menuBar = createMenuBar(primaryStage);
         
         VBox mainLayout = new VBox(menuBar, root);
+        VBox.setVgrow(root, Priority.ALWAYS);
         mainLayout.setPadding(new Insets(10));
 
         Scene scene = new Scene(mainLayout, 1200, 750);
         primaryStage.setScene(scene);
         primaryStage.show();
+
+        // Bring back the design of a session that crashed, then keep journaling this one
+        autosave = new AutosaveJournal(AutosaveJournal.defaultDirectory());
+        Project recovered = autosave.recover();
+        if (recovered != null) {
+            showProject(recovered, "Recovered Design");
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Recovered Design");
+            alert.setHeaderText(null);
+            alert.setContentText("LevHacı did not close properly last time. The unsaved design has been restored.");
+            alert.show();
+        }
+        autosave.start(board, componentManager);
+    }
+
+    @Override
+    public void stop() {
+        if (autosave != null) {
+            componentManager.flushChanges();
+            autosave.close();
+        }
     }
     
     private MenuBar createMenuBar(Stage primaryStage) {
         MenuBar menuBar = new MenuBar();
         
+        // File menu
+        Menu fileMenu = new Menu("File");
+        
+        MenuItem openItem = new MenuItem("Open Project...");
+        openItem.setAccelerator(new KeyCodeCombination(KeyCode.O, KeyCombination.SHORTCUT_DOWN));
+        openItem.setOnAction(e -> openProject(primaryStage));
+        
+        MenuItem saveItem = new MenuItem("Save Project");
+        saveItem.setAccelerator(new KeyCodeCombination(KeyCode.S, KeyCombination.SHORTCUT_DOWN));
+        saveItem.setOnAction(e -> saveProject(primaryStage));
+        
+        MenuItem saveAsItem = new MenuItem("Save Project As...");
+        saveAsItem.setAccelerator(new KeyCodeCombination(KeyCode.S, KeyCombination.SHORTCUT_DOWN, KeyCombination.SHIFT_DOWN));
+        saveAsItem.setOnAction(e -> saveProjectAs(primaryStage));
+        
+        MenuItem exportItem = new MenuItem("Export Image...");
+        exportItem.setOnAction(e -> exportImage(primaryStage));
+        
+        fileMenu.getItems().addAll(openItem, saveItem, saveAsItem, new SeparatorMenuItem(), exportItem);
+        menuBar.getMenus().add(fileMenu);
+        
+        // Edit menu
+        Menu editMenu = new Menu("Edit");
+        
+        MenuItem undoItem = new MenuItem("Undo");
+        undoItem.setAccelerator(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN));
+        undoItem.setOnAction(e -> {
+            EditHistory history = componentManager.getHistory();
+            if (history.canUndo() && !history.undo()) {
+                showAlert("Undo", "The last change no longer fits on the board and was not undone.");
+            }
+        });
+        
+        MenuItem redoItem = new MenuItem("Redo");
+        redoItem.setAccelerator(new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN));
+        redoItem.setOnAction(e -> {
+            EditHistory history = componentManager.getHistory();
+            if (history.canRedo() && !history.redo()) {
+                showAlert("Redo", "The next change no longer fits on the board and was not redone.");
+            }
+        });
+        
+        editMenu.getItems().addAll(undoItem, redoItem);
+        menuBar.getMenus().add(editMenu);
+        
         // Help menu
         Menu helpMenu = new Menu("Help");
         
@@ -253,6 +387,159 @@ public class MainApp extends Application {
         alert.showAndWait();
     }
     
+    private void showReplicateDialog() {
+        if (componentManager.getSelection().isEmpty()) {
+            showAlert("Step & Repeat", "Select the components to replicate first.");
+            return;
+        }
+        Spinner<Integer> columnsSpinner = new Spinner<>(1, 64, 2);
+        Spinner<Integer> rowsSpinner = new Spinner<>(1, 64, 1);
+        Spinner<Integer> pitchColsSpinner = new Spinner<>(0, 500, 10);
+        Spinner<Integer> pitchRowsSpinner = new Spinner<>(0, 500, 10);
+        for (Spinner<Integer> spinner : List.of(columnsSpinner, rowsSpinner, pitchColsSpinner, pitchRowsSpinner)) {
+            spinner.setEditable(true);
+            spinner.setPrefWidth(80);
+        }
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(5);
+        grid.addRow(0, new Label("Columns:"), columnsSpinner, new Label("Pitch (holes):"), pitchColsSpinner);
+        grid.addRow(1, new Label("Rows:"), rowsSpinner, new Label("Pitch (holes):"), pitchRowsSpinner);
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Step & Repeat");
+        dialog.setHeaderText("Replicate the selection as an array");
+        dialog.getDialogPane().setContent(grid);
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        dialog.showAndWait().filter(ButtonType.OK::equals).ifPresent(button -> {
+            int requested = columnsSpinner.getValue() * rowsSpinner.getValue() - 1;
+            int placed = componentManager.replicateSelection(columnsSpinner.getValue(), rowsSpinner.getValue(),
+                    pitchColsSpinner.getValue(), pitchRowsSpinner.getValue());
+            if (placed < requested) {
+                showAlert("Step & Repeat", (requested - placed) + " of " + requested + " copies did not fit on free holes.");
+            }
+        });
+    }
+
+    private static FileChooser projectChooser(String title) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        // Chunked files come first: saving them again only writes what changed
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("LevHacı projects (*." + ChunkedProjectStore.EXTENSION + ")", "*." + ChunkedProjectStore.EXTENSION),
+                new FileChooser.ExtensionFilter("Compact LevHacı projects (*." + BinaryProjectFormat.EXTENSION + ")", "*." + BinaryProjectFormat.EXTENSION),
+                new FileChooser.ExtensionFilter("JSON projects (*." + JsonProjectFormat.EXTENSION + ")", "*." + JsonProjectFormat.EXTENSION));
+        return chooser;
+    }
+
+    private static String extensionOf(File file) {
+        String name = file.getName();
+        return name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private void openProject(Stage owner) {
+        File file = projectChooser("Open Project").showOpenDialog(owner);
+        if (file == null) {
+            return;
+        }
+        String extension = extensionOf(file);
+        try {
+            if (extension.equals(ChunkedProjectStore.EXTENSION)) {
+                Project project = ChunkedProjectStore.read(file.toPath());
+                int skipped = showProject(project, "Open Project");
+                projectStore.opened(file.toPath(), project, componentManager, skipped == 0);
+            } else {
+                showProject(extension.equals(JsonProjectFormat.EXTENSION)
+                        ? JsonProjectFormat.read(file.toPath()) : BinaryProjectFormat.read(file.toPath()), "Open Project");
+                projectStore.detach();
+            }
+        } catch (IOException ex) {
+            showAlert("Open Project", "Could not open " + file.getName() + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * @return the number of parts and jumpers that did not fit the board
+     */
+    private int showProject(Project project, String title) {
+        // The toolbar resizes the board first, so its listeners have nothing left to do
+        boardControlsUpdater.accept(project);
+        int skipped = project.applyTo(board, componentManager);
+        if (skipped > 0) {
+            showAlert(title, skipped + " parts or jumpers did not fit on the board and were left out.");
+        }
+        return skipped;
+    }
+
+    // Saves to the open chunked file when there is one, writing only the changes
+    private void saveProject(Stage owner) {
+        if (projectStore.getFile() == null) {
+            saveProjectAs(owner);
+            return;
+        }
+        try {
+            projectStore.save(projectStore.getFile());
+        } catch (IOException ex) {
+            showAlert("Save Project", "Could not save " + projectStore.getFile().getFileName() + ": " + ex.getMessage());
+        }
+    }
+
+    private void saveProjectAs(Stage owner) {
+        FileChooser chooser = projectChooser("Save Project");
+        File file = chooser.showSaveDialog(owner);
+        if (file == null) {
+            return;
+        }
+        if (!file.getName().contains(".")) {
+            String pattern = chooser.getSelectedExtensionFilter() != null
+                    ? chooser.getSelectedExtensionFilter().getExtensions().get(0) : "*." + ChunkedProjectStore.EXTENSION;
+            file = new File(file.getParentFile(), file.getName() + pattern.substring(1));
+        }
+        try {
+            String extension = extensionOf(file);
+            if (extension.equals(JsonProjectFormat.EXTENSION)) {
+                JsonProjectFormat.write(Project.capture(board, componentManager), file.toPath());
+            } else if (extension.equals(BinaryProjectFormat.EXTENSION)) {
+                BinaryProjectFormat.write(Project.capture(board, componentManager), file.toPath());
+            } else {
+                projectStore.save(file.toPath());
+            }
+        } catch (IOException ex) {
+            showAlert("Save Project", "Could not save " + file.getName() + ": " + ex.getMessage());
+        }
+    }
+
+    private void exportImage(Stage owner) {
+        ChoiceDialog<Integer> dpiDialog = new ChoiceDialog<>(600, 150, 300, 600, 1200);
+        dpiDialog.setTitle("Export Image");
+        dpiDialog.setHeaderText("Resolution of the image, in dots per inch");
+        Integer dpi = dpiDialog.showAndWait().orElse(null);
+        if (dpi == null) {
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Image");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(
+                "PNG images (*." + BoardImageExporter.EXTENSION + ")", "*." + BoardImageExporter.EXTENSION));
+        File chosen = chooser.showSaveDialog(owner);
+        if (chosen == null) {
+            return;
+        }
+        File file = chosen.getName().contains(".") ? chosen
+                : new File(chosen.getParentFile(), chosen.getName() + "." + BoardImageExporter.EXTENSION);
+        // Tiles are drawn on this thread between other events; encoding happens on the exporter's own threads
+        BoardImageExporter exporter = new BoardImageExporter(board, componentManager);
+        Thread thread = new Thread(() -> {
+            try {
+                exporter.export(file.toPath(), dpi);
+            } catch (IOException | RuntimeException ex) {
+                Platform.runLater(() -> showAlert("Export Image", "Could not export " + file.getName() + ": " + ex.getMessage()));
+            }
+        }, "image-export");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle(title);
@@ -261,6 +548,22 @@ public class MainApp extends Application {
         alert.showAndWait();
     }
 
+    private void onBoardFieldEdited(TextField widthField, TextField heightField, TextField spacingField, TextField scaleField) {
+        if (updatingScaleField) {
+            return; // Echo of a wheel zoom, the board is already there
+        }
+        board.getRenderScheduler().deferFor(TYPING_DEBOUNCE_MS);
+        updateBoardDimensions(widthField, heightField, spacingField, scaleField);
+    }
+
+    private static double parseOrNaN(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+
     private void updateBoardDimensions(TextField widthField, TextField heightField, TextField spacingField, TextField scaleField) {
         try {
             double width = Double.parseDouble(widthField.getText());
@@ -323,6 +626,21 @@ public class MainApp extends Application {
         );
     }
     
+    private Node preview(Component component) {
+        String visualKey = component.getVisualKey();
+        if (visualKey != null) {
+            return paletteCache.getOrCreate(visualKey, component::render).newInstance();
+        }
+        if (!(component instanceof SVGComponent)) {
+            return component.render();
+        }
+        // Its drawing is still loading: show the fallback until it is in
+        StackPane holder = new StackPane(component.render());
+        SVGLoader.whenLoaded(((SVGComponent) component).getSvgFileName(),
+            () -> holder.getChildren().setAll(preview(component)));
+        return holder;
+    }
+
     private Label createSectionHeader(String text) {
         Label header = new Label(text);
         header.setStyle("-fx-font-weight: bold; -fx-font-size: 11px; -fx-text-fill: #34495e; -fx-padding: 3 0 2 0;");
@@ -372,7 +690,7 @@ public class MainApp extends Application {
         resistor.setScaleFactor(0.7); // Smaller preview
         
         section.getChildren().addAll(
-            resistor.render(), 
+            preview(resistor), 
             new Label("Value:"), valueField,
             new Label("Grid Units (2-5):"), gridUnitsCombo,
             new Label("Orientation:"), orientationCombo,
@@ -392,7 +710,7 @@ public class MainApp extends Application {
             newResistor.setGridUnits(gridUnitsCombo.getValue());
             newResistor.setOrientation(orientationCombo.getValue());
             newResistor.setScaleFactor(0.7); // Keep preview small
-            section.getChildren().set(0, newResistor.render());
+            section.getChildren().set(0, preview(newResistor));
         };
         
         valueField.textProperty().addListener((obs, oldVal, newVal) -> updatePreview.run());
@@ -411,7 +729,7 @@ public class MainApp extends Application {
             SVGComponent newCap = new SVGComponent("Capacitor", 0, 0, "ThroughHole", 2, "capacitor.svg", "100µF", 35, 16);
             componentManager.addComponent(newCap, 80, 50);
         });
-        section.getChildren().addAll(capacitor.render(), addCapBtn);
+        section.getChildren().addAll(preview(capacitor), addCapBtn);
         return section;
     }
     
@@ -424,7 +742,7 @@ public class MainApp extends Application {
             SVGComponent newTrans = new SVGComponent("Transistor", 0, 0, "ThroughHole", 3, "transistor.svg", "2N2222", 22, 20);
             componentManager.addComponent(newTrans, 180, 50);
         });
-        section.getChildren().addAll(transistor.render(), addTransBtn);
+        section.getChildren().addAll(preview(transistor), addTransBtn);
         return section;
     }
     
@@ -450,8 +768,8 @@ public class MainApp extends Application {
         });
         
         section.getChildren().addAll(
-            new Label("Push Button:"), pushButton.render(), addPushBtn,
-            new Label("Toggle Switch:"), toggleSwitch.render(), addToggleBtn
+            new Label("Push Button:"), preview(pushButton), addPushBtn,
+            new Label("Toggle Switch:"), preview(toggleSwitch), addToggleBtn
         );
         return section;
     }
@@ -465,7 +783,7 @@ public class MainApp extends Application {
             SVGComponent newPot = new SVGComponent("Potentiometer", 0, 0, "ThroughHole", 3, "potentiometer.svg", "10kΩ", 25, 25);
             componentManager.addComponent(newPot, 270, 50);
         });
-        section.getChildren().addAll(pot.render(), addPotBtn);
+        section.getChildren().addAll(preview(pot), addPotBtn);
         return section;
     }
     
@@ -478,7 +796,7 @@ public class MainApp extends Application {
             SVGComponent newDiode = new SVGComponent("Diode", 0, 0, "ThroughHole", 2, "diode.svg", "1N4007", 40, 14);
             componentManager.addComponent(newDiode, 120, 50);
         });
-        section.getChildren().addAll(diode.render(), addDiodeBtn);
+        section.getChildren().addAll(preview(diode), addDiodeBtn);
         return section;
     }
     
@@ -491,7 +809,7 @@ public class MainApp extends Application {
             SVGComponent newLED = new SVGComponent("LED", 0, 0, "ThroughHole", 2, "led.svg", "Red", 25, 20);
             componentManager.addComponent(newLED, 150, 50);
         });
-        section.getChildren().addAll(led.render(), addLEDBtn);
+        section.getChildren().addAll(preview(led), addLEDBtn);
         return section;
     }
     
@@ -548,14 +866,14 @@ public class MainApp extends Application {
         Runnable updatePreview = () -> {
             DIPChip newChip = new DIPChip("DIP IC", 0, 0, "ThroughHole", dipPackageCombo.getValue(), chipOrientationCombo.getValue());
             newChip.setScaleFactor(0.6); // Keep preview small
-            section.getChildren().set(0, newChip.render());
+            section.getChildren().set(0, preview(newChip));
         };
         
         dipPackageCombo.valueProperty().addListener((obs, oldVal, newVal) -> updatePreview.run());
         chipOrientationCombo.valueProperty().addListener((obs, oldVal, newVal) -> updatePreview.run());
         
         section.getChildren().addAll(
-            dipChip.render(),
+            preview(dipChip),
             new Label("Package:"), dipPackageCombo,
             new Label("Orientation:"), chipOrientationCombo,
             addChipBtn
@@ -0,0 +1,233 @@
+package com.perfboarddesigner;
+
+import com.perfboarddesigner.model.*;
+import com.perfboarddesigner.model.ComponentManager.PlacedComponent;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.Slider;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.VBox;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The one set of editing controls, bound to the primary selection. Parts on
+ * the board only draw themselves; their properties are edited here, and the
+ * panel is rebuilt only when the selection changes.
+ */
+public class PropertyInspector extends VBox {
+    private final ComponentManager componentManager;
+    private final Label statusLabel = new Label();
+    private PlacedComponent current;
+
+    public PropertyInspector(ComponentManager componentManager) {
+        super(5);
+        this.componentManager = componentManager;
+        setPadding(new Insets(10));
+        componentManager.addSelectionListener(this::show);
+        show(null);
+    }
+
+    /**
+     * Rebuild the controls for the given component, or an empty panel for null.
+     */
+    public void show(PlacedComponent placedComponent) {
+        current = placedComponent;
+        getChildren().setAll(new Label("Properties:"));
+        statusLabel.setText("");
+        if (placedComponent == null) {
+            getChildren().add(new Label("No component selected"));
+            return;
+        }
+        Component component = placedComponent.getComponent();
+        getChildren().add(new Label(component.getName()));
+        if (component instanceof Resistor) {
+            addResistorFields((Resistor) component);
+        } else if (component instanceof Capacitor) {
+            addCapacitorFields((Capacitor) component);
+        } else if (component instanceof Diode) {
+            addDiodeFields((Diode) component);
+        } else if (component instanceof LED) {
+            addLEDFields((LED) component);
+        } else if (component instanceof Transistor) {
+            addTransistorFields((Transistor) component);
+        } else if (component instanceof Switch) {
+            addSwitchFields((Switch) component);
+        } else if (component instanceof Potentiometer) {
+            addPotentiometerFields((Potentiometer) component);
+        } else if (component instanceof SVGComponent) {
+            addSVGFields((SVGComponent) component);
+        } else if (component instanceof DIPChip) {
+            addChipFields((DIPChip) component);
+        }
+        getChildren().add(statusLabel);
+    }
+
+    private void addResistorFields(Resistor resistor) {
+        addText("Value (Ohm):", () -> resistor.getValue().replace(" Ohm", ""), value -> resistor.setValue(value + " Ohm"));
+    }
+
+    private void addCapacitorFields(Capacitor capacitor) {
+        addChoice("Type:", List.of("Electrolytic", "Ceramic", "Film"), String::toString,
+            capacitor::getCapacitorType, capacitor::setCapacitorType);
+        addText("Value:", capacitor::getValue, capacitor::setValue);
+    }
+
+    private void addDiodeFields(Diode diode) {
+        addChoice("Type:", List.of("Standard", "Zener", "Schottky", "Bridge"), String::toString,
+            diode::getDiodeType, diode::setDiodeType);
+        addText("Model:", diode::getModel, diode::setModel);
+        getChildren().add(new Label("Vf: " + diode.getForwardVoltage() + "V"));
+    }
+
+    private void addLEDFields(LED led) {
+        addChoice("Color:", List.of("Red", "Green", "Blue", "Yellow", "White", "RGB"), String::toString,
+            led::getLedColor, led::setLedColor);
+        addChoice("Package:", List.of("5mm", "3mm", "SMD", "High-Power"), String::toString,
+            led::getPackageType, led::setPackageType);
+        addSlider("Brightness (%):", 0, 100, () -> (double) led.getBrightness(),
+            value -> led.setBrightness((int) Math.round(value)));
+        getChildren().add(new Label("Vf: " + led.getForwardVoltage() + "V"));
+    }
+
+    private void addTransistorFields(Transistor transistor) {
+        addChoice("Type:", List.of("NPN", "PNP", "NMOS", "PMOS"), String::toString,
+            transistor::getTransistorType, transistor::setTransistorType);
+        addChoice("Package:", List.of("TO-92", "TO-220", "SOT-23"), String::toString,
+            transistor::getPackageType, transistor::setPackageType);
+        addText("Model:", transistor::getModel, transistor::setModel);
+    }
+
+    private void addSwitchFields(Switch toggle) {
+        addChoice("Type:", List.of("PushButton", "Toggle", "Slide", "Rotary"), String::toString,
+            toggle::getSwitchType, toggle::setSwitchType);
+        addCheck("Momentary", toggle::isMomentary, toggle::setMomentary);
+        addCheck("State (On/Pressed)", toggle::getState, toggle::setState);
+    }
+
+    private void addPotentiometerFields(Potentiometer pot) {
+        getChildren().add(new Label(pot.getPotType() + " taper"));
+        addText("Value:", pot::getValue, pot::setValue);
+        Label resistanceLabel = new Label();
+        Runnable updateResistance = () -> resistanceLabel.setText("Current Resistance: " + pot.getCurrentResistanceString());
+        addSlider("Wiper Position:", 0, 1, pot::getWiperPosition, value -> {
+            pot.setWiperPosition(value);
+            updateResistance.run();
+        });
+        updateResistance.run();
+        getChildren().add(resistanceLabel);
+    }
+
+    private void addSVGFields(SVGComponent component) {
+        addText("Value:", component::getDisplayValue, component::setDisplayValue);
+        if (component.getPins() == 2) {
+            addChoice("Grid Units:", List.of(2, 3, 4, 5), String::valueOf, component::getGridUnits, component::setGridUnits);
+        }
+        addChoice("Orientation:", List.of(ComponentOrientation.values()), ComponentOrientation::getDisplayName,
+            component::getOrientation, component::setOrientation);
+    }
+
+    private void addChipFields(DIPChip chip) {
+        getChildren().add(new Label("Package: " + chip.getDipPackage().getFullDisplayName()));
+        addChoice("Orientation:", List.of(ComponentOrientation.values()), ComponentOrientation::getDisplayName,
+            chip::getOrientation, chip::setOrientation);
+    }
+
+    // Text is committed on Enter or when the field loses focus, not per keystroke
+    private void addText(String label, Supplier<String> getter, Consumer<String> setter) {
+        PlacedComponent target = current;
+        TextField field = new TextField(getter.get());
+        field.setOnAction(e -> edit(target, getter, setter, field.getText()));
+        // Focus is also lost when another part is selected; the edit still goes to this one
+        field.focusedProperty().addListener((obs, old, focused) -> {
+            if (!focused) {
+                edit(target, getter, setter, field.getText());
+            }
+        });
+        getChildren().addAll(new Label(label), field);
+    }
+
+    private <T> void addChoice(String label, List<T> choices, Function<T, String> display,
+                               Supplier<T> getter, Consumer<T> setter) {
+        PlacedComponent target = current;
+        ComboBox<T> combo = new ComboBox<>(FXCollections.observableArrayList(choices));
+        combo.setCellFactory(lv -> new DisplayCell<>(display));
+        combo.setButtonCell(new DisplayCell<>(display));
+        combo.setValue(getter.get());
+        combo.setOnAction(e -> edit(target, getter, setter, combo.getValue()));
+        getChildren().addAll(new Label(label), combo);
+    }
+
+    private void addCheck(String label, Supplier<Boolean> getter, Consumer<Boolean> setter) {
+        PlacedComponent target = current;
+        CheckBox check = new CheckBox(label);
+        check.setSelected(getter.get());
+        check.setOnAction(e -> edit(target, getter, setter, check.isSelected()));
+        getChildren().add(check);
+    }
+
+    // The part is only re-rendered once the thumb is released
+    private void addSlider(String label, double min, double max, Supplier<Double> getter, Consumer<Double> setter) {
+        PlacedComponent target = current;
+        Slider slider = new Slider(min, max, getter.get());
+        slider.valueProperty().addListener((obs, old, value) -> {
+            if (!slider.isValueChanging()) {
+                edit(target, getter, setter, value.doubleValue());
+            }
+        });
+        slider.valueChangingProperty().addListener((obs, old, changing) -> {
+            if (!changing) {
+                edit(target, getter, setter, slider.getValue());
+            }
+        });
+        getChildren().addAll(new Label(label), slider);
+    }
+
+    /**
+     * Apply one property change to a part. A change whose new footprint does
+     * not fit on the board is rolled back.
+     */
+    private <T> void edit(PlacedComponent target, Supplier<T> getter, Consumer<T> setter, T value) {
+        T old = getter.get();
+        if (value == null || Objects.equals(old, value)) {
+            return;
+        }
+        setter.accept(value);
+        if (Objects.equals(getter.get(), old)) {
+            // The part could not read the value and kept the old one
+            if (target == current) {
+                show(current);
+                statusLabel.setText("Not a valid value");
+            }
+            return;
+        }
+        if (!componentManager.refreshComponent(target)) {
+            setter.accept(old);
+            if (target == current) {
+                show(current);
+                statusLabel.setText("Not enough free holes for that change");
+            }
+        }
+    }
+
+    private static class DisplayCell<T> extends ListCell<T> {
+        private final Function<T, String> display;
+
+        DisplayCell(Function<T, String> display) {
+            this.display = display;
+        }
+
+        @Override
+        protected void updateItem(T item, boolean empty) {
+            super.updateItem(item, empty);
+            setText(empty || item == null ? null : display.apply(item));
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.perfboarddesigner.io;
+
+import com.perfboarddesigner.model.Board;
+import com.perfboarddesigner.model.Component;
+import com.perfboarddesigner.model.ComponentManager;
+import com.perfboarddesigner.model.ComponentManager.PlacedComponent;
+import com.perfboarddesigner.model.Jumper;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the design safe from crashes without ever saving on the FX thread.
+ * Every change to the parts, jumpers and board settings becomes a small
+ * record that is queued for a background writer, which appends records to
+ * a journal in batches and syncs it to disk at most once a second. Once the
+ * journal has outgrown the last snapshot, the writer writes a new snapshot
+ * from its own copy of the design and starts the journal over.
+ *
+ * After a crash, {@link #recover()} rebuilds the design from the snapshot
+ * and the journal written after it. A torn or damaged tail is cut off at
+ * the last intact record. A clean {@link #close()} removes both files.
+ */
+public final class AutosaveJournal {
+    private static final int MAGIC = 0x4C484A4E; // "LHJN"
+    private static final int VERSION = 1;
+    private static final long SYNC_INTERVAL_MS = 1000;
+    private static final long COMPACT_MIN_BYTES = 1L << 20;
+    private static final int MAX_BATCH = 4096;       // Records per write
+    private static final long CLOSE_TIMEOUT_MS = 5000;
+    // Queue markers, compared by identity
+    private static final byte[] COMPACT = new byte[0];
+    private static final byte[] CLOSE = new byte[0];
+
+    private final Path directory;
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final FileChannel lockChannel; // null if autosave is disabled
+    private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+    // FX thread: ids of the Components placed parts use, which are described in the journal
+    private final Map<Component, Integer> componentIds = new IdentityHashMap<>();
+    private final Map<Integer, Definition> definitions = new HashMap<>();
+    private final Map<Integer, Integer> partComponentIds = new HashMap<>(); // Handle -> component id
+    private int nextComponentId = 1;
+    private Thread writer;
+
+    // Writer thread
+    private final JournalState state = new JournalState();
+    private long generation;
+    private FileChannel journalChannel;
+    private DataOutputStream journalOut;
+    private long journalBytes;
+    private long snapshotBytes;
+
+    /**
+     * Autosave into the directory. If another instance is already using it,
+     * or it cannot be created, this one runs without autosave.
+     */
+    public AutosaveJournal(Path directory) {
+        this.directory = directory;
+        this.snapshotFile = directory.resolve("snapshot.lhj");
+        this.journalFile = directory.resolve("journal.lhj");
+        FileChannel channel = null;
+        try {
+            Files.createDirectories(directory);
+            channel = FileChannel.open(directory.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                channel.close();
+                channel = null;
+                System.err.println("Autosave disabled: another LevHacı is using " + directory);
+            }
+        } catch (IOException | OverlappingFileLockException | SecurityException e) {
+            System.err.println("Autosave disabled: " + e.getMessage());
+            channel = null;
+        }
+        this.lockChannel = channel;
+    }
+
+    public static Path defaultDirectory() {
+        String home = System.getProperty("user.home");
+        String os = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        String localAppData = System.getenv("LOCALAPPDATA");
+        String xdgData = System.getenv("XDG_DATA_HOME");
+        if (os.contains("win") && localAppData != null) {
+            return Paths.get(localAppData, "LevHaci", "autosave");
+        }
+        if (os.contains("mac")) {
+            return Paths.get(home, "Library", "Application Support", "LevHaci", "autosave");
+        }
+        if (xdgData != null && !xdgData.isEmpty()) {
+            return Paths.get(xdgData, "levhaci", "autosave");
+        }
+        return Paths.get(home, ".local", "share", "levhaci", "autosave");
+    }
+
+    /**
+     * The design left behind by a session that did not close cleanly, or
+     * null if there is none. Call before {@link #start}.
+     */
+    public Project recover() {
+        if (lockChannel == null) {
+            return null;
+        }
+        JournalState recovered = new JournalState();
+        long snapshotGeneration = replay(snapshotFile, recovered, -1);
+        if (snapshotGeneration < 0) {
+            return null;
+        }
+        generation = snapshotGeneration;
+        // A journal from an older generation is already part of the snapshot
+        replay(journalFile, recovered, snapshotGeneration);
+        if (recovered.isEmpty()) {
+            return null;
+        }
+        try {
+            return recovered.toProject();
+        } catch (IllegalArgumentException e) {
+            System.err.println("Could not recover the autosaved design: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Apply the intact records of a file to the state.
+     *
+     * @return the file's generation, or -1 if it is missing or not a journal
+     */
+    private static long replay(Path file, JournalState target, long expectedGeneration) {
+        if (!Files.isRegularFile(file)) {
+            return -1;
+        }
+        long fileGeneration = -1;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 16 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return -1;
+            }
+            fileGeneration = buffer.getLong();
+            if (expectedGeneration >= 0 && fileGeneration != expectedGeneration) {
+                return fileGeneration;
+            }
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= 8) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break; // Torn write
+                }
+                ByteBuffer record = buffer.slice();
+                record.limit(length);
+                crc.reset();
+                crc.update(record.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                target.apply(record);
+                buffer.position(buffer.position() + length);
+            }
+            return fileGeneration;
+        } catch (IOException | RuntimeException e) {
+            // Whatever was read before the damage is kept
+            return fileGeneration;
+        }
+    }
+
+    /**
+     * Start recording the design on the board. The current design becomes
+     * the first snapshot, replacing whatever was recovered.
+     */
+    public void start(Board board, ComponentManager componentManager) {
+        if (lockChannel == null || writer != null) {
+            return;
+        }
+        // Changes already made are part of the baseline below
+        componentManager.flushChanges();
+        queue.add(JournalState.board(board.getType(), board.getSide(),
+            board.getWidthMm(), board.getHeightMm(), board.getHoleSpacingMm()));
+        onPartsChanged(componentManager.getPlacedComponents());
+        for (Jumper jumper : board.getJumpers()) {
+            onJumperChanged(jumper, true);
+        }
+        queue.add(COMPACT);
+
+        componentManager.addChangeListener(this::onPartsChanged);
+        componentManager.addComponentEditListener(this::onComponentEdited);
+        board.addJumperListener(this::onJumperChanged);
+        board.addSettingsListener(() -> queue.add(JournalState.board(board.getType(), board.getSide(),
+            board.getWidthMm(), board.getHeightMm(), board.getHoleSpacingMm())));
+
+        writer = new Thread(this::run, "autosave-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // A Component described in the journal, and how many placed parts use it
+    private static final class Definition {
+        private final Component component;
+        private int parts;
+
+        Definition(Component component) {
+            this.component = component;
+        }
+    }
+
+    // Encoding a record is all the FX thread does; the queue never blocks
+    private void onPartsChanged(List<PlacedComponent> parts) {
+        for (PlacedComponent part : parts) {
+            int handle = part.getHandle();
+            if (!part.isPlaced()) {
+                queue.add(JournalState.remove(handle));
+                release(partComponentIds.remove(handle));
+                continue;
+            }
+            Integer id = componentIds.get(part.getComponent());
+            if (id == null) {
+                // New, or forgotten while no part used it
+                id = nextComponentId++;
+                componentIds.put(part.getComponent(), id);
+                definitions.put(id, new Definition(part.getComponent()));
+                queue.add(define(id, part.getComponent()));
+            }
+            queue.add(JournalState.put(handle, id, part.getCol(), part.getRow(),
+                (int) Math.round(part.getRotation() / 90)));
+            Integer previous = partComponentIds.put(handle, id);
+            if (!id.equals(previous)) {
+                definitions.get(id).parts++;
+                release(previous);
+            }
+        }
+    }
+
+    // Forget a component, here and in the journal, once the last part using it is gone
+    private void release(Integer id) {
+        if (id == null) {
+            return;
+        }
+        Definition definition = definitions.get(id);
+        if (--definition.parts == 0) {
+            definitions.remove(id);
+            componentIds.remove(definition.component);
+            queue.add(JournalState.forget(id));
+        }
+    }
+
+    private void onComponentEdited(Component component) {
+        Integer id = componentIds.get(component);
+        if (id != null) {
+            queue.add(define(id, component));
+        }
+    }
+
+    private void onJumperChanged(Jumper jumper, boolean added) {
+        queue.add(JournalState.jumper(added, jumper.getStartCol(), jumper.getStartRow(), jumper.getEndCol(), jumper.getEndRow()));
+    }
+
+    private static byte[] define(int id, Component component) {
+        return JournalState.define(id, ComponentCodec.typeOf(component), ComponentCodec.properties(component));
+    }
+
+    /**
+     * Write what is queued and remove the autosave, since the session ended
+     * normally. Waits a few seconds at most.
+     */
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        queue.add(CLOSE);
+        try {
+            writer.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<byte[]> batch = new ArrayList<>();
+        long lastSync = System.currentTimeMillis();
+        boolean unsynced = false;
+        try {
+            while (true) {
+                long wait = unsynced ? Math.max(0, lastSync + SYNC_INTERVAL_MS - System.currentTimeMillis()) : Long.MAX_VALUE;
+                byte[] first = queue.poll(wait, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    for (byte[] record : batch) {
+                        if (record == CLOSE) {
+                            finish();
+                            return;
+                        }
+                        if (record == COMPACT) {
+                            compact();
+                            continue;
+                        }
+                        state.apply(ByteBuffer.wrap(record));
+                        if (journalOut != null) {
+                            append(record);
+                            unsynced = true;
+                        }
+                    }
+                    batch.clear();
+                    if (journalOut != null) {
+                        journalOut.flush();
+                    }
+                }
+                if (unsynced && System.currentTimeMillis() >= lastSync + SYNC_INTERVAL_MS) {
+                    journalChannel.force(false);
+                    lastSync = System.currentTimeMillis();
+                    unsynced = false;
+                    if (journalBytes > Math.max(COMPACT_MIN_BYTES, snapshotBytes)) {
+                        compact();
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Autosave stopped: " + e.getMessage());
+            closeJournal();
+        } catch (InterruptedException e) {
+            closeJournal();
+        }
+    }
+
+    private void append(byte[] record) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        journalOut.writeInt(record.length);
+        journalOut.writeInt((int) crc.getValue());
+        journalOut.write(record);
+        journalBytes += 8 + record.length;
+    }
+
+    /**
+     * Write the writer's copy of the design as the next snapshot and start
+     * an empty journal for it. The snapshot is in place before the old
+     * journal is dropped, so a crash in between loses nothing.
+     */
+    private void compact() throws IOException {
+        closeJournal();
+        generation++;
+        Path temp = Files.createTempFile(directory, "snapshot", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                writeHeader(out);
+                CRC32 crc = new CRC32();
+                state.writeTo(record -> {
+                    crc.reset();
+                    crc.update(record);
+                    out.writeInt(record.length);
+                    out.writeInt((int) crc.getValue());
+                    out.write(record);
+                });
+                out.flush();
+                channel.force(true);
+                snapshotBytes = channel.size();
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        journalChannel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        journalOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(journalChannel), 1 << 16));
+        writeHeader(journalOut);
+        journalOut.flush();
+        journalChannel.force(true);
+        journalBytes = 16;
+    }
+
+    private void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(generation);
+    }
+
+    // Normal shutdown: nothing is left to recover
+    private void finish() {
+        closeJournal();
+        try {
+            Files.deleteIfExists(journalFile);
+            Files.deleteIfExists(snapshotFile);
+            lockChannel.close();
+        } catch (IOException e) {
+            System.err.println("Could not remove the autosave: " + e.getMessage());
+        }
+    }
+
+    private void closeJournal() {
+        try {
+            if (journalOut != null) {
+                journalOut.close();
+            }
+        } catch (IOException e) {
+            // The records written so far stay readable
+        }
+        journalOut = null;
+        journalChannel = null;
+    }
+
+    public boolean isEnabled() { return lockChannel != null; }
+}
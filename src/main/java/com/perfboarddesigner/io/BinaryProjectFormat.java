@@ -0,0 +1,272 @@
+package com.perfboarddesigner.io;
+
+import com.perfboarddesigner.model.BoardSide;
+import com.perfboarddesigner.model.BoardType;
+import com.perfboarddesigner.model.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary project files (.lhp). Every string - component types,
+ * property names and values - is stored once in a string table and
+ * referred to by index; positions are grid ints. Files are read through a
+ * memory map, so opening one costs little more than placing its parts.
+ *
+ * Layout, big-endian:
+ * <pre>
+ *   header   magic "LHPB", u16 major version, u16 minor version, i32 section count
+ *   section  i32 tag, i32 payload length, payload
+ * </pre>
+ * Sections are STRS (string table), BORD (board settings), COMP (distinct
+ * components), PLAC (component index, col, row, quarter turns per part)
+ * and JUMP (two holes per jumper). Readers skip sections they do not know,
+ * so a newer minor version still opens; a newer major version is refused.
+ */
+public final class BinaryProjectFormat {
+    public static final String EXTENSION = "lhp";
+    public static final int MAJOR_VERSION = 1;
+    public static final int MINOR_VERSION = 0;
+
+    private static final int MAGIC = 0x4C485042; // "LHPB"
+    private static final int STRS = 0x53545253;
+    private static final int BORD = 0x424F5244;
+    private static final int COMP = 0x434F4D50;
+    private static final int PLAC = 0x504C4143;
+    private static final int JUMP = 0x4A554D50;
+
+    private BinaryProjectFormat() {
+    }
+
+    /**
+     * Write the project to a file. The file is replaced only once the new
+     * one is complete.
+     */
+    public static void write(Project project, Path file) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(
+                    Channels.newOutputStream(FileChannel.open(temp, StandardOpenOption.WRITE)), 1 << 16)) {
+                write(project, out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static void write(Project project, OutputStream out) throws IOException {
+        StringTable strings = new StringTable();
+
+        ByteArrayOutputStream boardBytes = new ByteArrayOutputStream();
+        DataOutputStream board = new DataOutputStream(boardBytes);
+        board.writeInt(strings.indexOf(project.getBoardType().name()));
+        board.writeInt(strings.indexOf(project.getBoardSide().name()));
+        board.writeDouble(project.getWidthMm());
+        board.writeDouble(project.getHeightMm());
+        board.writeDouble(project.getHoleSpacingMm());
+
+        ByteArrayOutputStream componentBytes = new ByteArrayOutputStream();
+        DataOutputStream components = new DataOutputStream(componentBytes);
+        components.writeInt(project.getComponentCount());
+        for (int i = 0; i < project.getComponentCount(); i++) {
+            Component component = project.getComponent(i);
+            Map<String, String> properties = ComponentCodec.properties(component);
+            components.writeInt(strings.indexOf(ComponentCodec.typeOf(component)));
+            components.writeInt(properties.size());
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                components.writeInt(strings.indexOf(property.getKey()));
+                components.writeInt(strings.indexOf(property.getValue()));
+            }
+        }
+
+        // Every field is a small write of its own, so they are gathered before reaching the stream
+        DataOutputStream data = new DataOutputStream(out instanceof BufferedOutputStream ? out : new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(MAGIC);
+        data.writeShort(MAJOR_VERSION);
+        data.writeShort(MINOR_VERSION);
+        data.writeInt(5);
+        writeSection(data, STRS, strings.toBytes());
+        writeSection(data, BORD, boardBytes.toByteArray());
+        writeSection(data, COMP, componentBytes.toByteArray());
+
+        // Placements and jumpers are fixed-size records, written without a staging copy
+        data.writeInt(PLAC);
+        data.writeInt(Integer.BYTES + project.getPlacementCount() * 4 * Integer.BYTES);
+        data.writeInt(project.getPlacementCount());
+        for (int i = 0; i < project.getPlacementCount(); i++) {
+            data.writeInt(project.getPlacementComponent(i));
+            data.writeInt(project.getPlacementCol(i));
+            data.writeInt(project.getPlacementRow(i));
+            data.writeInt(project.getPlacementTurns(i));
+        }
+        data.writeInt(JUMP);
+        data.writeInt(Integer.BYTES + project.getJumperCount() * 4 * Integer.BYTES);
+        data.writeInt(project.getJumperCount());
+        for (int i = 0; i < project.getJumperCount(); i++) {
+            data.writeInt(project.getJumperStartCol(i));
+            data.writeInt(project.getJumperStartRow(i));
+            data.writeInt(project.getJumperEndCol(i));
+            data.writeInt(project.getJumperEndRow(i));
+        }
+        data.flush();
+    }
+
+    private static void writeSection(DataOutputStream data, int tag, byte[] payload) throws IOException {
+        data.writeInt(tag);
+        data.writeInt(payload.length);
+        data.write(payload);
+    }
+
+    /**
+     * Read a project file through a memory map.
+     *
+     * @throws IOException if the file is not a project, is damaged or needs a newer version
+     */
+    public static Project read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        }
+    }
+
+    public static Project read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a LevHacı project file");
+            }
+            int major = buffer.getShort() & 0xFFFF;
+            buffer.getShort(); // Minor versions only add sections
+            if (major > MAJOR_VERSION) {
+                throw new IOException("Project file needs a newer version of LevHacı (format " + major + ")");
+            }
+            int sectionCount = buffer.getInt();
+            Map<Integer, ByteBuffer> sections = new HashMap<>();
+            for (int i = 0; i < sectionCount; i++) {
+                int tag = buffer.getInt();
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new IOException("Damaged project file: section overruns the file");
+                }
+                ByteBuffer payload = buffer.slice();
+                payload.limit(length);
+                sections.put(tag, payload);
+                buffer.position(buffer.position() + length);
+            }
+            String[] strings = readStrings(require(sections, STRS));
+            Project project = readBoard(require(sections, BORD), strings);
+            readComponents(require(sections, COMP), strings, project);
+            ByteBuffer placements = require(sections, PLAC);
+            int placementCount = placements.getInt();
+            for (int i = 0; i < placementCount; i++) {
+                project.addPlacement(placements.getInt(), placements.getInt(), placements.getInt(), placements.getInt());
+            }
+            ByteBuffer jumpers = sections.get(JUMP);
+            int jumperCount = jumpers != null ? jumpers.getInt() : 0;
+            for (int i = 0; i < jumperCount; i++) {
+                project.addJumper(jumpers.getInt(), jumpers.getInt(), jumpers.getInt(), jumpers.getInt());
+            }
+            return project;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Damaged project file: " + e.getMessage(), e);
+        }
+    }
+
+    private static ByteBuffer require(Map<Integer, ByteBuffer> sections, int tag) throws IOException {
+        ByteBuffer section = sections.get(tag);
+        if (section == null) {
+            throw new IOException("Damaged project file: missing section "
+                + new String(ByteBuffer.allocate(4).putInt(tag).array(), StandardCharsets.US_ASCII));
+        }
+        return section;
+    }
+
+    private static String[] readStrings(ByteBuffer section) throws IOException {
+        String[] strings = new String[readLength(section, Integer.BYTES)];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[readLength(section, 1)];
+            section.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    /**
+     * A count or length from the file, checked against what is left of its
+     * section before anything is allocated for it.
+     *
+     * @param bytesEach the least number of bytes each counted item takes up
+     */
+    private static int readLength(ByteBuffer section, int bytesEach) throws IOException {
+        int length = section.getInt();
+        if (length < 0 || (long) length * bytesEach > section.remaining()) {
+            throw new IOException("Damaged project file: length " + length + " exceeds its section");
+        }
+        return length;
+    }
+
+    private static Project readBoard(ByteBuffer section, String[] strings) {
+        BoardType type = BoardType.valueOf(strings[section.getInt()]);
+        BoardSide side = BoardSide.valueOf(strings[section.getInt()]);
+        return new Project(type, side, section.getDouble(), section.getDouble(), section.getDouble());
+    }
+
+    private static void readComponents(ByteBuffer section, String[] strings, Project project) {
+        int count = section.getInt();
+        for (int i = 0; i < count; i++) {
+            String type = strings[section.getInt()];
+            int propertyCount = section.getInt();
+            Map<String, String> properties = new LinkedHashMap<>();
+            for (int j = 0; j < propertyCount; j++) {
+                properties.put(strings[section.getInt()], strings[section.getInt()]);
+            }
+            project.addComponent(ComponentCodec.create(type, properties));
+        }
+    }
+
+    // Each distinct string once, in order of first use
+    private static final class StringTable {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        int indexOf(String value) {
+            Integer index = indices.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.add(value);
+                indices.put(value, index);
+            }
+            return index;
+        }
+
+        byte[] toBytes() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(strings.size());
+            for (String value : strings) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(utf8.length);
+                out.write(utf8);
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.perfboarddesigner.io;
+
+import com.perfboarddesigner.Constants;
+import com.perfboarddesigner.model.Board;
+import com.perfboarddesigner.model.ComponentManager;
+import com.perfboarddesigner.render.SpriteAtlas;
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Exports the board as a PNG at print resolution. The image is drawn in
+ * tiles into one small canvas that is never shown: substrate, copper,
+ * component sprites and jumpers are painted for the tile's rectangle alone,
+ * and the tile is read back into a band of rows. Full bands go to a
+ * {@link PngEncoder}, which compresses them on other threads while the next
+ * band is drawn. Bands are capped at a few megabytes of pixels, so memory
+ * use stays the same however high the resolution. The tiles are drawn from
+ * a copy of the design taken when the export starts, so editing the board
+ * meanwhile cannot tear the image.
+ */
+public final class BoardImageExporter {
+    public static final String EXTENSION = "png";
+
+    private static final int TILE_WIDTH = 512;
+    private static final int MAX_BAND_ROWS = 512;
+    private static final long BAND_BYTES = 8L << 20;            // Pixels of one band, before compression
+    private static final long SPRITE_MEMORY_BUDGET = 64L << 20; // bytes
+
+    private final Board board;
+    private final ComponentManager componentManager;
+
+    public BoardImageExporter(Board board, ComponentManager componentManager) {
+        this.board = board;
+        this.componentManager = componentManager;
+    }
+
+    /**
+     * Image pixels per model-space pixel at the given resolution.
+     */
+    public static double scaleFor(double dpi) {
+        return dpi / 25.4 / Constants.MM_TO_PIXEL;
+    }
+
+    public int getImageWidth(double dpi) {
+        return (int) Math.ceil(board.getModelWidth() * scaleFor(dpi));
+    }
+
+    public int getImageHeight(double dpi) {
+        return (int) Math.ceil(board.getModelHeight() * scaleFor(dpi));
+    }
+
+    /**
+     * Write the board to a PNG file. Tiles are drawn on the FX thread, so
+     * this must be called from another thread, which waits for each tile.
+     * Edits made meanwhile are not in the image.
+     */
+    public void export(Path file, double dpi) throws IOException {
+        if (Platform.isFxApplicationThread()) {
+            throw new IllegalStateException("Export runs off the FX thread");
+        }
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+                export(out, dpi);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public void export(OutputStream out, double dpi) throws IOException {
+        double scale = scaleFor(dpi);
+        // The copy is taken in one hop, between two events that may change the board
+        TileRenderer renderer = onFxThread(() -> new TileRenderer(Project.capture(board, componentManager).copy(), scale));
+        int width = renderer.imageWidth;
+        int height = renderer.imageHeight;
+        int bandRows = renderer.bandRows;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        try (PngEncoder png = new PngEncoder(out, width, height, dpi, threads)) {
+            for (int top = 0; top < height; top += bandRows) {
+                int rows = Math.min(bandRows, height - top);
+                int[] band = new int[rows * width];
+                // One tile per hop to the FX thread, so the window stays responsive
+                for (int left = 0; left < width; left += TILE_WIDTH) {
+                    int x = left;
+                    int y = top;
+                    int columns = Math.min(TILE_WIDTH, width - left);
+                    onFxThread(() -> {
+                        renderer.render(x, y, columns, rows, band, width);
+                        return null;
+                    });
+                }
+                png.writeRows(band, rows);
+            }
+            png.finish();
+        }
+    }
+
+    // Owned by the FX thread: a board of its own, the canvas the tiles are painted on and what they are read back through
+    private static final class TileRenderer {
+        private final Board board;
+        private final ComponentManager componentManager;
+        private final double scale;
+        private final int imageWidth, imageHeight, bandRows;
+        private final Canvas canvas;
+        private final WritableImage image;
+        private final SnapshotParameters parameters = new SnapshotParameters();
+        // Sprites at export resolution, kept apart from the atlas the board draws with on screen
+        private final SpriteAtlas atlas = new SpriteAtlas(SPRITE_MEMORY_BUDGET);
+
+        TileRenderer(Project design, double scale) {
+            // Never shown, so it only ever holds this copy
+            this.board = new Board(design.getBoardType(), design.getBoardSide(),
+                design.getWidthMm(), design.getHeightMm(), design.getHoleSpacingMm());
+            this.componentManager = new ComponentManager(board);
+            design.applyTo(board, componentManager);
+            this.scale = scale;
+            this.imageWidth = (int) Math.ceil(board.getModelWidth() * scale);
+            this.imageHeight = (int) Math.ceil(board.getModelHeight() * scale);
+            this.bandRows = (int) Math.max(1, Math.min(MAX_BAND_ROWS, BAND_BYTES / (4L * imageWidth)));
+            int tileWidth = Math.min(TILE_WIDTH, imageWidth);
+            int tileHeight = Math.min(bandRows, imageHeight);
+            this.canvas = new Canvas(tileWidth, tileHeight);
+            this.image = new WritableImage(tileWidth, tileHeight);
+            parameters.setFill(Color.WHITE);
+        }
+
+        // Draw the tile at (x, y) in image pixels and copy it into the band at column x
+        void render(double x, double y, int width, int height, int[] band, int stride) {
+            GraphicsContext gc = canvas.getGraphicsContext2D();
+            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            gc.save();
+            gc.translate(-x, -y);
+            board.paintBoard(gc, scale, x, y, width, height);
+            componentManager.paintComponents(gc, atlas, scale, x, y, width, height);
+            board.paintJumpers(gc, scale, x, y, width, height);
+            gc.restore();
+            parameters.setViewport(new Rectangle2D(0, 0, width, height));
+            canvas.snapshot(parameters, image);
+            image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(),
+                band, (int) x, stride);
+        }
+    }
+
+    private static <T> T onFxThread(Callable<T> action) throws IOException {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(action.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Could not draw the board: " + e.getCause(), e.getCause());
+        }
+    }
+}
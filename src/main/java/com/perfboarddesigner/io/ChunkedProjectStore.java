@@ -0,0 +1,550 @@
+package com.perfboarddesigner.io;
+
+import com.perfboarddesigner.model.Board;
+import com.perfboarddesigner.model.BoardSide;
+import com.perfboarddesigner.model.BoardType;
+import com.perfboarddesigner.model.Component;
+import com.perfboarddesigner.model.ComponentManager;
+import com.perfboarddesigner.model.ComponentManager.PlacedComponent;
+import com.perfboarddesigner.model.Jumper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Chunked project files (.lhc) that are saved incrementally. Parts and
+ * jumpers are grouped into chunks by board region, component definitions
+ * into blocks of ids, and every chunk is written as a separate blob. Edits
+ * reported by the ComponentManager and the Board mark the chunks they touch
+ * as dirty, and saving appends only those chunks plus a new index, then
+ * points the header at the new index. Save time follows the size of the
+ * change, not of the design.
+ *
+ * Replaced blobs stay in the file as dead space until it outweighs the live
+ * data, at which point the next save rewrites the file from scratch.
+ *
+ * Layout, big-endian:
+ * <pre>
+ *   header  magic "LHPC", u16 major, u16 minor, i64 index offset, i32 index length, i32 index CRC
+ *   blobs   chunk payloads, anywhere after the header
+ *   index   board settings, then kind, key, offset, length and CRC of each chunk
+ * </pre>
+ * The header is the only thing ever overwritten, and only after the blobs
+ * and index it points to are on disk, so an interrupted save leaves the
+ * previous state readable.
+ */
+public final class ChunkedProjectStore {
+    public static final String EXTENSION = "lhc";
+    public static final int MAJOR_VERSION = 1;
+    public static final int MINOR_VERSION = 0;
+
+    private static final int MAGIC = 0x4C485043; // "LHPC"
+    private static final int HEADER_BYTES = 24;
+    private static final byte REGION = 1;          // Parts anchored in a square of holes, and jumpers starting there
+    private static final byte COMPONENTS = 2;      // A block of component definitions
+    private static final int REGION_HOLES = 32;
+    private static final int COMPONENT_BLOCK = 64;
+    private static final long COMPACT_MIN_BYTES = 1L << 20;
+
+    // Where a chunk's current blob is
+    private static final class ChunkRef {
+        final byte kind;
+        final long offset;
+        final int length;
+        final int crc;
+
+        ChunkRef(byte kind, long offset, int length, int crc) {
+            this.kind = kind;
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+        }
+    }
+
+    private final Board board;
+    // Current contents of every chunk, kept up to date from change events
+    private final Map<Long, Set<PlacedComponent>> regionParts = new HashMap<>();
+    private final Map<Long, List<Jumper>> regionJumpers = new HashMap<>();
+    private final Map<PlacedComponent, Long> partRegions = new IdentityHashMap<>();
+    private final Map<Component, Integer> componentIds = new IdentityHashMap<>();
+    private final Map<Integer, Component> componentsById = new HashMap<>();
+    private int nextComponentId;
+    private final Set<Long> dirtyChunks = new HashSet<>();
+    private boolean settingsDirty = true;
+    // The file the chunks were last saved to, and where each chunk is in it
+    private Path file;
+    private final Map<Long, ChunkRef> chunks = new HashMap<>();
+    private long deadBytes;
+
+    /**
+     * Track the design on the board from now on. Nothing is considered
+     * saved until the first {@link #save}.
+     */
+    public ChunkedProjectStore(Board board, ComponentManager componentManager) {
+        this.board = board;
+        componentManager.flushChanges();
+        onPartsChanged(componentManager.getPlacedComponents());
+        for (Jumper jumper : board.getJumpers()) {
+            onJumperChanged(jumper, true);
+        }
+        componentManager.addChangeListener(this::onPartsChanged);
+        componentManager.addComponentEditListener(this::onComponentEdited);
+        board.addJumperListener(this::onJumperChanged);
+        board.addSettingsListener(() -> settingsDirty = true);
+    }
+
+    private void onPartsChanged(List<PlacedComponent> parts) {
+        for (PlacedComponent part : parts) {
+            Long before = partRegions.get(part);
+            Long after = part.isPlaced() ? regionKey(part.getCol(), part.getRow()) : null;
+            if (before != null) {
+                // Moving within a region still changes its contents
+                dirtyChunks.add(before);
+                if (!before.equals(after)) {
+                    regionParts.get(before).remove(part);
+                    partRegions.remove(part);
+                }
+            }
+            if (after != null) {
+                regionParts.computeIfAbsent(after, key -> new LinkedHashSet<>()).add(part);
+                partRegions.put(part, after);
+                dirtyChunks.add(after);
+                idOf(part.getComponent());
+            }
+        }
+    }
+
+    private void onComponentEdited(Component component) {
+        Integer id = componentIds.get(component);
+        if (id != null) {
+            dirtyChunks.add(componentBlockKey(id));
+        }
+    }
+
+    private void onJumperChanged(Jumper jumper, boolean added) {
+        long key = regionKey(jumper.getStartCol(), jumper.getStartRow());
+        List<Jumper> jumpers = regionJumpers.computeIfAbsent(key, k -> new ArrayList<>());
+        if (added) {
+            jumpers.add(jumper);
+        } else {
+            jumpers.remove(jumper);
+        }
+        dirtyChunks.add(key);
+    }
+
+    private int idOf(Component component) {
+        Integer id = componentIds.get(component);
+        if (id == null) {
+            id = nextComponentId++;
+            componentIds.put(component, id);
+            componentsById.put(id, component);
+            dirtyChunks.add(componentBlockKey(id));
+        }
+        return id;
+    }
+
+    private static long regionKey(int col, int row) {
+        int regionCol = Math.floorDiv(col, REGION_HOLES);
+        int regionRow = Math.floorDiv(row, REGION_HOLES);
+        return ((long) REGION << 56) | ((regionCol & 0xFFFFFFL) << 24) | (regionRow & 0xFFFFFFL);
+    }
+
+    private static long componentBlockKey(int id) {
+        return ((long) COMPONENTS << 56) | (id / COMPONENT_BLOCK);
+    }
+
+    private static byte kindOf(long key) {
+        return (byte) (key >>> 56);
+    }
+
+    /**
+     * Whether anything changed since the design was last saved or opened.
+     */
+    public boolean isDirty() {
+        return file == null || settingsDirty || !dirtyChunks.isEmpty();
+    }
+
+    public Path getFile() { return file; }
+
+    /**
+     * Save the design. Saving again to the file last saved or opened writes
+     * only what changed; any other file is written in full.
+     */
+    public void save(Path target) throws IOException {
+        if (file != null && Files.isRegularFile(target) && Files.isSameFile(file, target)
+                && deadBytes <= Math.max(COMPACT_MIN_BYTES, liveBytes())) {
+            saveIncrementally();
+        } else {
+            saveInFull(target);
+        }
+    }
+
+    private long liveBytes() {
+        long live = 0;
+        for (ChunkRef chunk : chunks.values()) {
+            live += chunk.length;
+        }
+        return live;
+    }
+
+    private void saveIncrementally() throws IOException {
+        if (!isDirty()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            Map<Long, ChunkRef> written = new HashMap<>();
+            for (long key : new ArrayList<>(dirtyChunks)) {
+                byte[] payload = encodeChunk(key);
+                ChunkRef old = chunks.get(key);
+                if (old != null) {
+                    deadBytes += old.length;
+                }
+                if (payload == null) {
+                    written.put(key, null); // Empty now, so dropped from the index
+                    continue;
+                }
+                writeFully(channel, ByteBuffer.wrap(payload), end);
+                written.put(key, new ChunkRef(kindOf(key), end, payload.length, crc(payload)));
+                end += payload.length;
+            }
+            Map<Long, ChunkRef> updated = new HashMap<>(chunks);
+            for (Map.Entry<Long, ChunkRef> chunk : written.entrySet()) {
+                if (chunk.getValue() == null) {
+                    updated.remove(chunk.getKey());
+                } else {
+                    updated.put(chunk.getKey(), chunk.getValue());
+                }
+            }
+            byte[] index = encodeIndex(updated);
+            writeFully(channel, ByteBuffer.wrap(index), end);
+            // Everything the new header points to is on disk before the header changes
+            channel.force(false);
+            writeFully(channel, header(end, index), 0);
+            channel.force(false);
+            chunks.clear();
+            chunks.putAll(updated);
+        }
+        dirtyChunks.clear();
+        settingsDirty = false;
+    }
+
+    private void saveInFull(Path target) throws IOException {
+        // Components no part uses are dropped and the rest numbered again from zero
+        componentIds.clear();
+        componentsById.clear();
+        nextComponentId = 0;
+        Set<Long> regions = new LinkedHashSet<>(regionParts.keySet());
+        regions.addAll(regionJumpers.keySet());
+        for (long key : regions) {
+            for (PlacedComponent part : regionParts.getOrDefault(key, Set.of())) {
+                idOf(part.getComponent());
+            }
+        }
+        Set<Long> keys = new LinkedHashSet<>(regions);
+        for (int id = 0; id < nextComponentId; id += COMPONENT_BLOCK) {
+            keys.add(componentBlockKey(id));
+        }
+
+        Map<Long, ChunkRef> written = new HashMap<>();
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long end = HEADER_BYTES;
+                for (long key : keys) {
+                    byte[] payload = encodeChunk(key);
+                    if (payload == null) {
+                        continue;
+                    }
+                    writeFully(channel, ByteBuffer.wrap(payload), end);
+                    written.put(key, new ChunkRef(kindOf(key), end, payload.length, crc(payload)));
+                    end += payload.length;
+                }
+                byte[] index = encodeIndex(written);
+                writeFully(channel, ByteBuffer.wrap(index), end);
+                writeFully(channel, header(end, index), 0);
+                channel.force(false);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        file = target;
+        chunks.clear();
+        chunks.putAll(written);
+        deadBytes = 0;
+        dirtyChunks.clear();
+        settingsDirty = false;
+    }
+
+    /**
+     * The chunk's current contents, or null if it has none.
+     */
+    private byte[] encodeChunk(long key) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        if (kindOf(key) == COMPONENTS) {
+            int first = (int) (key & 0xFFFFFFFFL) * COMPONENT_BLOCK;
+            List<Integer> ids = new ArrayList<>();
+            for (int id = first; id < first + COMPONENT_BLOCK && id < nextComponentId; id++) {
+                if (componentsById.containsKey(id)) {
+                    ids.add(id);
+                }
+            }
+            if (ids.isEmpty()) {
+                return null;
+            }
+            out.writeInt(ids.size());
+            for (int id : ids) {
+                Component component = componentsById.get(id);
+                Map<String, String> properties = ComponentCodec.properties(component);
+                out.writeInt(id);
+                writeString(out, ComponentCodec.typeOf(component));
+                out.writeInt(properties.size());
+                for (Map.Entry<String, String> property : properties.entrySet()) {
+                    writeString(out, property.getKey());
+                    writeString(out, property.getValue());
+                }
+            }
+            return bytes.toByteArray();
+        }
+        Set<PlacedComponent> parts = regionParts.getOrDefault(key, Set.of());
+        List<Jumper> jumpers = regionJumpers.getOrDefault(key, List.of());
+        if (parts.isEmpty() && jumpers.isEmpty()) {
+            return null;
+        }
+        out.writeInt(parts.size());
+        for (PlacedComponent part : parts) {
+            out.writeInt(idOf(part.getComponent()));
+            out.writeInt(part.getCol());
+            out.writeInt(part.getRow());
+            out.writeInt((int) Math.round(part.getRotation() / 90));
+        }
+        out.writeInt(jumpers.size());
+        for (Jumper jumper : jumpers) {
+            out.writeInt(jumper.getStartCol());
+            out.writeInt(jumper.getStartRow());
+            out.writeInt(jumper.getEndCol());
+            out.writeInt(jumper.getEndRow());
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] encodeIndex(Map<Long, ChunkRef> table) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, board.getType().name());
+        writeString(out, board.getSide().name());
+        out.writeDouble(board.getWidthMm());
+        out.writeDouble(board.getHeightMm());
+        out.writeDouble(board.getHoleSpacingMm());
+        out.writeInt(table.size());
+        for (Map.Entry<Long, ChunkRef> chunk : table.entrySet()) {
+            ChunkRef ref = chunk.getValue();
+            out.writeByte(ref.kind);
+            out.writeLong(chunk.getKey());
+            out.writeLong(ref.offset);
+            out.writeInt(ref.length);
+            out.writeInt(ref.crc);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ByteBuffer header(long indexOffset, byte[] index) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putShort((short) MAJOR_VERSION).putShort((short) MINOR_VERSION)
+            .putLong(indexOffset).putInt(index.length).putInt(crc(index));
+        header.flip();
+        return header;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " runs past the end");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a chunked project. Component i of the project has id i in the file.
+     *
+     * @throws IOException if the file is not a chunked project, is damaged or needs a newer version
+     */
+    public static Project read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Map<Long, ChunkRef> table = new HashMap<>();
+            Project project = readIndex(buffer, table);
+            // Components first, in id order, so placements can refer to them by index
+            TreeMap<Integer, Component> components = new TreeMap<>();
+            for (ChunkRef ref : table.values()) {
+                if (ref.kind == COMPONENTS) {
+                    readComponents(blob(buffer, ref), components);
+                }
+            }
+            int expected = 0;
+            for (Map.Entry<Integer, Component> component : components.entrySet()) {
+                if (component.getKey() != expected++) {
+                    throw new IOException("Damaged project file: component " + (expected - 1) + " is missing");
+                }
+                project.addComponent(component.getValue());
+            }
+            for (ChunkRef ref : table.values()) {
+                if (ref.kind == REGION) {
+                    readRegion(blob(buffer, ref), project);
+                }
+            }
+            return project;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Damaged project file: " + e.getMessage(), e);
+        }
+    }
+
+    private static Project readIndex(ByteBuffer buffer, Map<Long, ChunkRef> table) throws IOException {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a LevHacı chunked project file");
+        }
+        int major = buffer.getShort() & 0xFFFF;
+        buffer.getShort(); // Minor versions stay readable
+        if (major > MAJOR_VERSION) {
+            throw new IOException("Project file needs a newer version of LevHacı (format " + major + ")");
+        }
+        long offset = buffer.getLong();
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        ByteBuffer index = blob(buffer, new ChunkRef((byte) 0, offset, length, checksum));
+        BoardType type = BoardType.valueOf(readString(index));
+        BoardSide side = BoardSide.valueOf(readString(index));
+        Project project = new Project(type, side, index.getDouble(), index.getDouble(), index.getDouble());
+        int count = index.getInt();
+        for (int i = 0; i < count; i++) {
+            byte kind = index.get();
+            long key = index.getLong();
+            table.put(key, new ChunkRef(kind, index.getLong(), index.getInt(), index.getInt()));
+        }
+        return project;
+    }
+
+    private static ByteBuffer blob(ByteBuffer file, ChunkRef ref) throws IOException {
+        if (ref.offset < HEADER_BYTES || ref.length < 0 || ref.offset + ref.length > file.capacity()) {
+            throw new IOException("Damaged project file: chunk outside the file");
+        }
+        ByteBuffer blob = file.duplicate();
+        blob.limit((int) (ref.offset + ref.length)).position((int) ref.offset);
+        blob = blob.slice();
+        CRC32 crc = new CRC32();
+        crc.update(blob.duplicate());
+        if ((int) crc.getValue() != ref.crc) {
+            throw new IOException("Damaged project file: chunk checksum mismatch");
+        }
+        return blob;
+    }
+
+    private static void readComponents(ByteBuffer blob, Map<Integer, Component> components) {
+        int count = blob.getInt();
+        for (int i = 0; i < count; i++) {
+            int id = blob.getInt();
+            String typeName = readString(blob);
+            int propertyCount = blob.getInt();
+            Map<String, String> properties = new LinkedHashMap<>();
+            for (int j = 0; j < propertyCount; j++) {
+                properties.put(readString(blob), readString(blob));
+            }
+            components.put(id, ComponentCodec.create(typeName, properties));
+        }
+    }
+
+    private static void readRegion(ByteBuffer blob, Project project) {
+        int parts = blob.getInt();
+        for (int i = 0; i < parts; i++) {
+            project.addPlacement(blob.getInt(), blob.getInt(), blob.getInt(), blob.getInt());
+        }
+        int jumpers = blob.getInt();
+        for (int i = 0; i < jumpers; i++) {
+            project.addJumper(blob.getInt(), blob.getInt(), blob.getInt(), blob.getInt());
+        }
+    }
+
+    /**
+     * Adopt a project just opened from the file and applied to the board as
+     * the saved state, so the next save only writes what changes from here.
+     *
+     * @param complete false if some parts did not fit the board, in which
+     *                 case the next save rewrites the whole file
+     */
+    public void opened(Path source, Project project, ComponentManager componentManager, boolean complete) throws IOException {
+        // Lets the change events of the load reach this store first
+        componentManager.flushChanges();
+        if (!complete) {
+            file = null;
+            return;
+        }
+        componentIds.clear();
+        componentsById.clear();
+        for (int id = 0; id < project.getComponentCount(); id++) {
+            componentIds.put(project.getComponent(id), id);
+            componentsById.put(id, project.getComponent(id));
+        }
+        nextComponentId = project.getComponentCount();
+        chunks.clear();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            readIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), chunks);
+            long live = HEADER_BYTES + liveBytes();
+            deadBytes = Math.max(0, channel.size() - live);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Damaged project file: " + e.getMessage(), e);
+        }
+        file = source;
+        dirtyChunks.clear();
+        settingsDirty = false;
+    }
+
+    /**
+     * Forget the file, e.g. after a design was opened from another format.
+     */
+    public void detach() {
+        file = null;
+    }
+}
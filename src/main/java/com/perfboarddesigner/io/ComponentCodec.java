@@ -0,0 +1,159 @@
+package com.perfboarddesigner.io;
+
+import com.perfboarddesigner.model.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Turns every kind of Component into a type name and a flat set of string
+ * properties and back, independent of how a file format lays them out.
+ * Properties missing on reading take the palette's defaults, and unknown
+ * ones are ignored, so older and newer files still open.
+ */
+public final class ComponentCodec {
+    private ComponentCodec() {
+    }
+
+    public static String typeOf(Component component) {
+        return component.getClass().getSimpleName();
+    }
+
+    /**
+     * Everything needed to recreate the component, in a stable order.
+     */
+    public static Map<String, String> properties(Component component) {
+        Map<String, String> p = new LinkedHashMap<>();
+        p.put("name", component.getName());
+        p.put("type", component.getType());
+        p.put("pins", String.valueOf(component.getPins()));
+        if (component instanceof Resistor) {
+            Resistor resistor = (Resistor) component;
+            p.put("value", resistor.getValue());
+            p.put("resistanceOhms", String.valueOf(resistor.getResistanceOhms()));
+            p.put("lengthMm", String.valueOf(resistor.getLengthMm()));
+            p.put("widthMm", String.valueOf(resistor.getWidthMm()));
+        } else if (component instanceof Capacitor) {
+            Capacitor capacitor = (Capacitor) component;
+            p.put("value", capacitor.getValue());
+            p.put("capacitorType", capacitor.getCapacitorType());
+            p.put("capacitanceF", String.valueOf(capacitor.getCapacitanceF()));
+        } else if (component instanceof LED) {
+            LED led = (LED) component;
+            p.put("color", led.getLedColor());
+            p.put("package", led.getPackageType());
+            p.put("forwardVoltage", String.valueOf(led.getForwardVoltage()));
+            p.put("brightness", String.valueOf(led.getBrightness()));
+        } else if (component instanceof Diode) {
+            Diode diode = (Diode) component;
+            p.put("diodeType", diode.getDiodeType());
+            p.put("model", diode.getModel());
+            p.put("forwardVoltage", String.valueOf(diode.getForwardVoltage()));
+        } else if (component instanceof Transistor) {
+            Transistor transistor = (Transistor) component;
+            p.put("transistorType", transistor.getTransistorType());
+            p.put("package", transistor.getPackageType());
+            p.put("model", transistor.getModel());
+        } else if (component instanceof Switch) {
+            Switch toggle = (Switch) component;
+            p.put("switchType", toggle.getSwitchType());
+            p.put("momentary", String.valueOf(toggle.isMomentary()));
+            p.put("state", String.valueOf(toggle.getState()));
+        } else if (component instanceof Potentiometer) {
+            Potentiometer pot = (Potentiometer) component;
+            p.put("value", pot.getValue());
+            p.put("potType", pot.getPotType());
+            p.put("wiperPosition", String.valueOf(pot.getWiperPosition()));
+        } else if (component instanceof DIPChip) {
+            DIPChip chip = (DIPChip) component;
+            p.put("package", chip.getDipPackage().name());
+            p.put("orientation", chip.getOrientation().name());
+            p.put("scaleFactor", String.valueOf(chip.getScaleFactor()));
+        } else if (component instanceof SVGComponent) {
+            SVGComponent svg = (SVGComponent) component;
+            p.put("svgFile", svg.getSvgFileName());
+            p.put("value", svg.getDisplayValue());
+            p.put("widthPx", String.valueOf(svg.getWidthPx()));
+            p.put("heightPx", String.valueOf(svg.getHeightPx()));
+            p.put("scaleFactor", String.valueOf(svg.getScaleFactor()));
+            p.put("orientation", svg.getOrientation().name());
+            p.put("gridUnits", String.valueOf(svg.getGridUnits()));
+        }
+        // Null properties are left out rather than written as text
+        p.values().removeIf(value -> value == null);
+        return p;
+    }
+
+    /**
+     * A new component of the named type with the given properties.
+     *
+     * @throws IllegalArgumentException if the type is unknown or a value cannot be read
+     */
+    public static Component create(String typeName, Map<String, String> p) {
+        String name = p.get("name");
+        String type = p.getOrDefault("type", "ThroughHole");
+        switch (typeName) {
+            case "Resistor": {
+                Resistor resistor = new Resistor(p.getOrDefault("value", name), 0, 0, type,
+                    integer(p, "pins", 2), number(p, "resistanceOhms", 1000));
+                resistor.setBodySize(number(p, "lengthMm", 6.3 * 0.7), number(p, "widthMm", 2.5 * 0.7));
+                return resistor;
+            }
+            case "Capacitor":
+                return new Capacitor(name, 0, 0, type, integer(p, "pins", 2), p.getOrDefault("value", "100uF"),
+                    p.getOrDefault("capacitorType", "Electrolytic"), number(p, "capacitanceF", 0));
+            case "LED": {
+                LED led = new LED(name, 0, 0, type, integer(p, "pins", 2), p.getOrDefault("color", "Red"),
+                    p.getOrDefault("package", "5mm"), number(p, "forwardVoltage", 2.0));
+                led.setBrightness(integer(p, "brightness", 50));
+                return led;
+            }
+            case "Diode":
+                return new Diode(name, 0, 0, type, integer(p, "pins", 2), p.getOrDefault("diodeType", "Standard"),
+                    p.getOrDefault("model", "1N4007"), number(p, "forwardVoltage", 0.7));
+            case "Transistor":
+                return new Transistor(name, 0, 0, type, integer(p, "pins", 3), p.getOrDefault("transistorType", "NPN"),
+                    p.getOrDefault("package", "TO-92"), p.getOrDefault("model", "2N2222"));
+            case "Switch": {
+                Switch toggle = new Switch(name, 0, 0, type, integer(p, "pins", 2),
+                    p.getOrDefault("switchType", "PushButton"), Boolean.parseBoolean(p.get("momentary")));
+                toggle.setState(Boolean.parseBoolean(p.get("state")));
+                return toggle;
+            }
+            case "Potentiometer": {
+                Potentiometer pot = new Potentiometer(name, 0, 0, type, integer(p, "pins", 3),
+                    p.getOrDefault("value", "10k"), p.getOrDefault("potType", "Linear"));
+                pot.setWiperPosition(number(p, "wiperPosition", 0.5));
+                return pot;
+            }
+            case "DIPChip": {
+                DIPChip chip = new DIPChip(name, 0, 0, type, DIPPackage.valueOf(p.getOrDefault("package", "DIP8")),
+                    ComponentOrientation.valueOf(p.getOrDefault("orientation", "HORIZONTAL")));
+                chip.setScaleFactor(number(p, "scaleFactor", 1.0));
+                return chip;
+            }
+            case "SVGComponent": {
+                SVGComponent svg = new SVGComponent(name, 0, 0, type, integer(p, "pins", 2), p.getOrDefault("svgFile", ""),
+                    p.get("value"), number(p, "widthPx", 20), number(p, "heightPx", 20));
+                svg.setScaleFactor(number(p, "scaleFactor", 1.0));
+                svg.setOrientation(ComponentOrientation.valueOf(p.getOrDefault("orientation", "HORIZONTAL")));
+                if (p.containsKey("gridUnits")) {
+                    svg.setGridUnits(integer(p, "gridUnits", 1));
+                }
+                return svg;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown component type: " + typeName);
+        }
+    }
+
+    private static double number(Map<String, String> p, String key, double fallback) {
+        String value = p.get(key);
+        return value != null ? Double.parseDouble(value) : fallback;
+    }
+
+    private static int integer(Map<String, String> p, String key, int fallback) {
+        String value = p.get(key);
+        return value != null ? Integer.parseInt(value) : fallback;
+    }
+}
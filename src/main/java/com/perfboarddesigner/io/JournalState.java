@@ -0,0 +1,223 @@
+package com.perfboarddesigner.io;
+
+import com.perfboarddesigner.model.BoardSide;
+import com.perfboarddesigner.model.BoardType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The design as the autosave journal describes it: plain data, with no
+ * nodes and no Components, so it can be kept up to date off the FX thread.
+ * Every journal record sets a piece of state outright (a part's position,
+ * a component's properties, a jumper being present) rather than describing
+ * a change, so replaying records that are already reflected is harmless.
+ */
+final class JournalState {
+    static final byte BOARD = 1;
+    static final byte DEFINE = 2;      // Properties of a component, by id
+    static final byte PUT = 3;         // Where a part is, by handle
+    static final byte REMOVE = 4;
+    static final byte JUMPER_ADD = 5;
+    static final byte JUMPER_REMOVE = 6;
+    static final byte FORGET = 7;      // A component no part uses any more
+
+    private BoardType boardType = BoardType.PERFORATED;
+    private BoardSide boardSide = BoardSide.SINGLE;
+    private double widthMm = 100, heightMm = 100, holeSpacingMm = 2.54;
+    private final Map<Integer, String> componentTypes = new LinkedHashMap<>();
+    private final Map<Integer, Map<String, String>> componentProperties = new HashMap<>();
+    // Handle -> component id, col, row, quarter turns
+    private final Map<Integer, int[]> parts = new LinkedHashMap<>();
+    private final Set<Long> jumpers = new LinkedHashSet<>();
+
+    static byte[] board(BoardType type, BoardSide side, double widthMm, double heightMm, double holeSpacingMm) {
+        return encode(out -> {
+            out.writeByte(BOARD);
+            writeString(out, type.name());
+            writeString(out, side.name());
+            out.writeDouble(widthMm);
+            out.writeDouble(heightMm);
+            out.writeDouble(holeSpacingMm);
+        });
+    }
+
+    static byte[] define(int id, String typeName, Map<String, String> properties) {
+        return encode(out -> {
+            out.writeByte(DEFINE);
+            out.writeInt(id);
+            writeString(out, typeName);
+            out.writeInt(properties.size());
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                writeString(out, property.getKey());
+                writeString(out, property.getValue());
+            }
+        });
+    }
+
+    static byte[] forget(int id) {
+        return ByteBuffer.allocate(5).put(FORGET).putInt(id).array();
+    }
+
+    static byte[] put(int handle, int componentId, int col, int row, int quarterTurns) {
+        return ByteBuffer.allocate(21).put(PUT).putInt(handle).putInt(componentId)
+            .putInt(col).putInt(row).putInt(quarterTurns).array();
+    }
+
+    static byte[] remove(int handle) {
+        return ByteBuffer.allocate(5).put(REMOVE).putInt(handle).array();
+    }
+
+    static byte[] jumper(boolean added, int startCol, int startRow, int endCol, int endRow) {
+        return ByteBuffer.allocate(17).put(added ? JUMPER_ADD : JUMPER_REMOVE)
+            .putInt(startCol).putInt(startRow).putInt(endCol).putInt(endRow).array();
+    }
+
+    private interface Encoder {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(Encoder encoder) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            encoder.write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown by in-memory streams
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Apply one record.
+     *
+     * @throws IllegalArgumentException if the record is not understood
+     */
+    void apply(ByteBuffer record) {
+        byte op = record.get();
+        switch (op) {
+            case BOARD:
+                boardType = BoardType.valueOf(readString(record));
+                boardSide = BoardSide.valueOf(readString(record));
+                widthMm = record.getDouble();
+                heightMm = record.getDouble();
+                holeSpacingMm = record.getDouble();
+                break;
+            case DEFINE: {
+                int id = record.getInt();
+                componentTypes.put(id, readString(record));
+                int count = record.getInt();
+                Map<String, String> properties = new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    properties.put(readString(record), readString(record));
+                }
+                componentProperties.put(id, properties);
+                break;
+            }
+            case FORGET: {
+                int id = record.getInt();
+                componentTypes.remove(id);
+                componentProperties.remove(id);
+                break;
+            }
+            case PUT:
+                parts.put(record.getInt(), new int[] {record.getInt(), record.getInt(), record.getInt(), record.getInt()});
+                break;
+            case REMOVE:
+                parts.remove(record.getInt());
+                break;
+            case JUMPER_ADD:
+                jumpers.add(packJumper(record.getInt(), record.getInt(), record.getInt(), record.getInt()));
+                break;
+            case JUMPER_REMOVE:
+                jumpers.remove(packJumper(record.getInt(), record.getInt(), record.getInt(), record.getInt()));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journal record " + op);
+        }
+    }
+
+    // Length-prefixed UTF-8; writeUTF would cap values at 64 KB
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0 || length > record.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " runs past the end");
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Holes fit in 16 bits, as in the edit history
+    private static long packJumper(int startCol, int startRow, int endCol, int endRow) {
+        return ((long) (startCol & 0xFFFF) << 48) | ((long) (startRow & 0xFFFF) << 32)
+            | ((endCol & 0xFFFFL) << 16) | (endRow & 0xFFFFL);
+    }
+
+    /**
+     * The state as records that rebuild it from nothing, for a snapshot.
+     */
+    void writeTo(RecordSink sink) throws IOException {
+        sink.accept(board(boardType, boardSide, widthMm, heightMm, holeSpacingMm));
+        // Components are forgotten once no part uses them, so the snapshot holds no others;
+        // a part an undo brings back is given a fresh definition
+        for (Map.Entry<Integer, String> component : componentTypes.entrySet()) {
+            sink.accept(define(component.getKey(), component.getValue(), componentProperties.get(component.getKey())));
+        }
+        for (Map.Entry<Integer, int[]> part : parts.entrySet()) {
+            int[] p = part.getValue();
+            sink.accept(put(part.getKey(), p[0], p[1], p[2], p[3]));
+        }
+        for (long jumper : jumpers) {
+            sink.accept(jumper(true, (short) (jumper >>> 48), (short) (jumper >>> 32), (short) (jumper >>> 16), (short) jumper));
+        }
+    }
+
+    interface RecordSink {
+        void accept(byte[] record) throws IOException;
+    }
+
+    /**
+     * The state as a project. Components are created here, so this runs on
+     * the FX thread. Parts whose component was never defined are left out.
+     */
+    Project toProject() {
+        Project project = new Project(boardType, boardSide, widthMm, heightMm, holeSpacingMm);
+        // Only components some part still uses are created
+        Map<Integer, Integer> indices = new HashMap<>();
+        for (int[] part : parts.values()) {
+            String typeName = componentTypes.get(part[0]);
+            if (typeName == null) {
+                continue;
+            }
+            Integer index = indices.get(part[0]);
+            if (index == null) {
+                index = project.addComponent(ComponentCodec.create(typeName, componentProperties.get(part[0])));
+                indices.put(part[0], index);
+            }
+            project.addPlacement(index, part[1], part[2], part[3]);
+        }
+        for (long jumper : jumpers) {
+            project.addJumper((short) (jumper >>> 48), (short) (jumper >>> 32), (short) (jumper >>> 16), (short) jumper);
+        }
+        return project;
+    }
+
+    boolean isEmpty() {
+        return parts.isEmpty() && jumpers.isEmpty();
+    }
+}
@@ -0,0 +1,243 @@
+package com.perfboarddesigner.io;
+
+import com.perfboarddesigner.model.BoardSide;
+import com.perfboarddesigner.model.BoardType;
+import com.perfboarddesigner.model.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Projects as JSON, for keeping designs under version control. Every
+ * component, placement and jumper is written on a line of its own, so a
+ * moved part shows up as a one-line diff:
+ * <pre>
+ * {
+ *   "format": "levhaci-project",
+ *   "version": 1,
+ *   "board": {"type": "PERFORATED", "side": "SINGLE", "widthMm": 100.0, ...},
+ *   "components": [
+ *     {"class": "Resistor", "name": "4.7k", "resistanceOhms": "4700.0", ...},
+ *     ...
+ *   ],
+ *   "placements": [
+ *     [0, 12, 4, 1],      component index, col, row, quarter turns
+ *     ...
+ *   ],
+ *   "jumpers": [
+ *     [3, 5, 3, 9]        start col, start row, end col, end row
+ *   ]
+ * }
+ * </pre>
+ * Both directions stream token by token; no document tree is built. The
+ * board must come before the components, and the components before the
+ * placements, which is how this class writes them. Members it does not
+ * know are skipped.
+ */
+public final class JsonProjectFormat {
+    public static final String EXTENSION = "json";
+    public static final int VERSION = 1;
+
+    private static final String FORMAT = "levhaci-project";
+    private static final String CLASS = "class";
+
+    private JsonProjectFormat() {
+    }
+
+    public static void write(Project project, Path file) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                write(project, out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static void write(Project project, Writer out) throws IOException {
+        JsonWriter json = new JsonWriter(out instanceof BufferedWriter ? out : new BufferedWriter(out));
+        json.beginObject();
+        json.name("format").value(FORMAT);
+        json.name("version").value(VERSION);
+
+        json.name("board").beginInlineObject();
+        json.name("type").value(project.getBoardType().name());
+        json.name("side").value(project.getBoardSide().name());
+        json.name("widthMm").value(project.getWidthMm());
+        json.name("heightMm").value(project.getHeightMm());
+        json.name("holeSpacingMm").value(project.getHoleSpacingMm());
+        json.endObject();
+
+        json.name("components").beginArray();
+        for (int i = 0; i < project.getComponentCount(); i++) {
+            Component component = project.getComponent(i);
+            json.beginInlineObject();
+            json.name(CLASS).value(ComponentCodec.typeOf(component));
+            for (Map.Entry<String, String> property : ComponentCodec.properties(component).entrySet()) {
+                json.name(property.getKey()).value(property.getValue());
+            }
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("placements").beginArray();
+        for (int i = 0; i < project.getPlacementCount(); i++) {
+            json.beginInlineArray()
+                .value(project.getPlacementComponent(i))
+                .value(project.getPlacementCol(i))
+                .value(project.getPlacementRow(i))
+                .value(project.getPlacementTurns(i))
+                .endArray();
+        }
+        json.endArray();
+
+        json.name("jumpers").beginArray();
+        for (int i = 0; i < project.getJumperCount(); i++) {
+            json.beginInlineArray()
+                .value(project.getJumperStartCol(i))
+                .value(project.getJumperStartRow(i))
+                .value(project.getJumperEndCol(i))
+                .value(project.getJumperEndRow(i))
+                .endArray();
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    public static Project read(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * @throws IOException if the text is not a project, is malformed or needs a newer version
+     */
+    public static Project read(Reader in) throws IOException {
+        JsonReader json = new JsonReader(in instanceof BufferedReader ? in : new BufferedReader(in));
+        try {
+            return readProject(json);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Damaged project file: " + e.getMessage(), e);
+        }
+    }
+
+    private static Project readProject(JsonReader json) throws IOException {
+        Project project = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            switch (name) {
+                case "format":
+                    if (!FORMAT.equals(json.nextString())) {
+                        throw new IOException("Not a LevHacı project file");
+                    }
+                    break;
+                case "version":
+                    int version = json.nextInt();
+                    if (version > VERSION) {
+                        throw new IOException("Project file needs a newer version of LevHacı (format " + version + ")");
+                    }
+                    break;
+                case "board":
+                    project = readBoard(json);
+                    break;
+                case "components":
+                    requireBoard(project, name);
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        project.addComponent(readComponent(json));
+                    }
+                    json.endArray();
+                    break;
+                case "placements":
+                    requireBoard(project, name);
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        json.beginArray();
+                        project.addPlacement(json.nextInt(), json.nextInt(), json.nextInt(), json.nextInt());
+                        json.endArray();
+                    }
+                    json.endArray();
+                    break;
+                case "jumpers":
+                    requireBoard(project, name);
+                    json.beginArray();
+                    while (json.hasNext()) {
+                        json.beginArray();
+                        project.addJumper(json.nextInt(), json.nextInt(), json.nextInt(), json.nextInt());
+                        json.endArray();
+                    }
+                    json.endArray();
+                    break;
+                default:
+                    json.skipValue();
+                    break;
+            }
+        }
+        json.endObject();
+        json.peek(); // Fails on anything after the project
+        requireBoard(project, "end of file");
+        return project;
+    }
+
+    private static void requireBoard(Project project, String where) throws IOException {
+        if (project == null) {
+            throw new IOException("Damaged project file: no board before " + where);
+        }
+    }
+
+    private static Project readBoard(JsonReader json) throws IOException {
+        BoardType type = BoardType.PERFORATED;
+        BoardSide side = BoardSide.SINGLE;
+        double width = 100, height = 100, spacing = 2.54;
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "type": type = BoardType.valueOf(json.nextString()); break;
+                case "side": side = BoardSide.valueOf(json.nextString()); break;
+                case "widthMm": width = json.nextDouble(); break;
+                case "heightMm": height = json.nextDouble(); break;
+                case "holeSpacingMm": spacing = json.nextDouble(); break;
+                default: json.skipValue(); break;
+            }
+        }
+        json.endObject();
+        return new Project(type, side, width, height, spacing);
+    }
+
+    private static Component readComponent(JsonReader json) throws IOException {
+        String typeName = null;
+        Map<String, String> properties = new HashMap<>();
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.peek() == JsonReader.Token.NULL) {
+                json.nextNull(); // Same as leaving the property out
+            } else if (CLASS.equals(name)) {
+                typeName = json.nextString();
+            } else if (json.peek() == JsonReader.Token.BEGIN_OBJECT || json.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                json.skipValue();
+            } else {
+                properties.put(name, json.nextString());
+            }
+        }
+        json.endObject();
+        if (typeName == null) {
+            throw new IOException("Damaged project file: component without a class");
+        }
+        return ComponentCodec.create(typeName, properties);
+    }
+}
@@ -0,0 +1,358 @@
+package com.perfboarddesigner.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Pulls JSON one token at a time from a Reader. Only the nesting and the
+ * token being read are held in memory, so a document of any size is read
+ * in the space of its largest string. Malformed input fails with an
+ * IOException naming the line and column.
+ */
+public final class JsonReader implements Closeable {
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    // What the parser expects next in each open container
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos;
+    private int limit;
+    private int line = 1;
+    private long lineStart;    // Position of the current line in the whole input
+    private long consumed;     // Characters in earlier buffers
+
+    private int[] stack = new int[16];
+    private int depth = 1;
+    private Token peeked;
+    private String peekedText;
+    private final StringBuilder text = new StringBuilder();
+
+    public JsonReader(Reader in) {
+        this.in = in;
+        stack[0] = EMPTY_DOCUMENT;
+    }
+
+    public Token peek() throws IOException {
+        if (peeked == null) {
+            peeked = readToken();
+        }
+        return peeked;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    /**
+     * Whether the current object or array has another element.
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return peekedText;
+    }
+
+    /**
+     * The next string, or the literal text of a number or boolean.
+     */
+    public String nextString() throws IOException {
+        Token token = peek();
+        if (token != Token.STRING && token != Token.NUMBER && token != Token.BOOLEAN) {
+            throw syntax("Expected a string but found " + token);
+        }
+        peeked = null;
+        return peekedText;
+    }
+
+    public int nextInt() throws IOException {
+        expect(Token.NUMBER);
+        try {
+            return Integer.parseInt(peekedText);
+        } catch (NumberFormatException e) {
+            throw syntax("Expected an integer but found " + peekedText);
+        }
+    }
+
+    public double nextDouble() throws IOException {
+        expect(Token.NUMBER);
+        try {
+            return Double.parseDouble(peekedText);
+        } catch (NumberFormatException e) {
+            throw syntax("Malformed number " + peekedText);
+        }
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        return peekedText.equals("true");
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+    }
+
+    /**
+     * Skip the next value, including everything nested in it. Unknown
+     * members are skipped this way, so newer files still read.
+     */
+    public void skipValue() throws IOException {
+        int open = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT: beginObject(); open++; break;
+                case BEGIN_ARRAY: beginArray(); open++; break;
+                case END_OBJECT: endObject(); open--; break;
+                case END_ARRAY: endArray(); open--; break;
+                case END_DOCUMENT: throw syntax("Unexpected end of document");
+                default: peeked = null; break;
+            }
+        } while (open > 0);
+    }
+
+    private void expect(Token token) throws IOException {
+        if (peek() != token) {
+            throw syntax("Expected " + token + " but found " + peeked);
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = scope;
+    }
+
+    private Token readToken() throws IOException {
+        int top = depth - 1;
+        int c;
+        switch (stack[top]) {
+            case EMPTY_ARRAY:
+                stack[top] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return Token.END_ARRAY;
+                }
+                pos--;
+                break;
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return Token.END_ARRAY;
+                }
+                if (c != ',') {
+                    throw syntax("Expected ',' or ']'");
+                }
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                boolean first = stack[top] == EMPTY_OBJECT;
+                stack[top] = DANGLING_NAME;
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    return Token.END_OBJECT;
+                }
+                if (!first) {
+                    if (c != ',') {
+                        throw syntax("Expected ',' or '}'");
+                    }
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw syntax("Expected a member name");
+                }
+                peekedText = readString();
+                return Token.NAME;
+            case DANGLING_NAME:
+                stack[top] = NONEMPTY_OBJECT;
+                if (nextNonWhitespace() != ':') {
+                    throw syntax("Expected ':'");
+                }
+                break;
+            case EMPTY_DOCUMENT:
+                stack[top] = NONEMPTY_DOCUMENT;
+                break;
+            default:
+                if (skipWhitespace() == -1) {
+                    return Token.END_DOCUMENT;
+                }
+                throw syntax("Content after the end of the document");
+        }
+
+        c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                peekedText = readString();
+                return Token.STRING;
+            default:
+                pos--;
+                peekedText = readLiteral();
+                if (peekedText.equals("true") || peekedText.equals("false")) {
+                    return Token.BOOLEAN;
+                }
+                if (peekedText.equals("null")) {
+                    return Token.NULL;
+                }
+                char first = peekedText.isEmpty() ? ' ' : peekedText.charAt(0);
+                if (first == '-' || (first >= '0' && first <= '9')) {
+                    return Token.NUMBER;
+                }
+                throw syntax("Unexpected " + (peekedText.isEmpty() ? "'" + (char) c + "'" : peekedText));
+        }
+    }
+
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            // Plain characters are copied from the buffer in runs
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '"' || c == '\\' || c == '\n') {
+                    break;
+                }
+                pos++;
+            }
+            text.append(buffer, start, pos - start);
+            if (pos == limit) {
+                if (!fill()) {
+                    throw syntax("Unterminated string");
+                }
+                continue;
+            }
+            char c = buffer[pos++];
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c == '\n') {
+                throw syntax("Unterminated string");
+            }
+            text.append(readEscape());
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"': case '\\': case '/': return (char) c;
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw syntax("Malformed \\u escape");
+                    }
+                    value = value * 16 + digit;
+                }
+                return (char) value;
+            default:
+                throw syntax("Invalid escape");
+        }
+    }
+
+    private String readLiteral() throws IOException {
+        text.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) {
+                return text.toString();
+            }
+            char c = buffer[pos];
+            if (!Character.isLetterOrDigit(c) && c != '-' && c != '+' && c != '.') {
+                return text.toString();
+            }
+            text.append(c);
+            pos++;
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            throw syntax("Unexpected end of document");
+        }
+        return buffer[pos++];
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c = skipWhitespace();
+        if (c == -1) {
+            throw syntax("Unexpected end of document");
+        }
+        pos++;
+        return c;
+    }
+
+    // The next significant character without consuming it, or -1 at the end
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[pos];
+            if (c == '\n') {
+                line++;
+                lineStart = consumed + pos + 1;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c;
+            }
+            pos++;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        consumed += limit;
+        pos = 0;
+        limit = Math.max(in.read(buffer), 0);
+        return limit > 0;
+    }
+
+    private IOException syntax(String message) {
+        long column = consumed + pos - lineStart;
+        return new IOException(message + " at line " + line + ", column " + column);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
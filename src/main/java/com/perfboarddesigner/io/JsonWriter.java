@@ -0,0 +1,188 @@
+package com.perfboarddesigner.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Writes JSON one token at a time straight to a Writer, so nothing but the
+ * current nesting is held in memory. Containers opened with the inline
+ * variants keep their contents on one line, which lets a list of small
+ * records come out one record per line and diff cleanly.
+ */
+public final class JsonWriter implements Closeable, Flushable {
+    private static final String INDENT = "  ";
+
+    private final Writer out;
+    private boolean[] inline = new boolean[16];
+    private boolean[] empty = new boolean[16];
+    private int depth;
+    private boolean afterName;
+    private boolean wroteRoot;
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() throws IOException { return open('{', false); }
+    public JsonWriter beginInlineObject() throws IOException { return open('{', true); }
+    public JsonWriter endObject() throws IOException { return close('}'); }
+    public JsonWriter beginArray() throws IOException { return open('[', false); }
+    public JsonWriter beginInlineArray() throws IOException { return open('[', true); }
+    public JsonWriter endArray() throws IOException { return close(']'); }
+
+    public JsonWriter name(String name) throws IOException {
+        if (depth == 0 || afterName) {
+            throw new IllegalStateException("Name outside an object");
+        }
+        beforeElement();
+        string(name);
+        out.write(": ");
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        string(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("JSON has no " + value);
+        }
+        beforeValue();
+        out.write(Double.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        out.write("null");
+        return this;
+    }
+
+    private JsonWriter open(char bracket, boolean inlineContents) throws IOException {
+        beforeValue();
+        out.write(bracket);
+        if (depth == inline.length) {
+            inline = Arrays.copyOf(inline, depth * 2);
+            empty = Arrays.copyOf(empty, depth * 2);
+        }
+        // Everything inside an inline container stays on its line
+        inline[depth] = inlineContents || (depth > 0 && inline[depth - 1]);
+        empty[depth] = true;
+        depth++;
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0 || afterName) {
+            throw new IllegalStateException("Nothing to close");
+        }
+        depth--;
+        if (!empty[depth] && !inline[depth]) {
+            newline();
+        }
+        out.write(bracket);
+        if (depth == 0) {
+            out.write('\n');
+        }
+        return this;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth == 0) {
+            if (wroteRoot) {
+                throw new IllegalStateException("A JSON document has one root value");
+            }
+            wroteRoot = true;
+            return;
+        }
+        beforeElement();
+    }
+
+    private void beforeElement() throws IOException {
+        int top = depth - 1;
+        if (!empty[top]) {
+            out.write(inline[top] ? ", " : ",");
+        }
+        empty[top] = false;
+        if (!inline[top]) {
+            newline();
+        }
+    }
+
+    private void newline() throws IOException {
+        out.write('\n');
+        for (int i = 0; i < depth; i++) {
+            out.write(INDENT);
+        }
+    }
+
+    private void string(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String escape;
+            if (c == '"') {
+                escape = "\\\"";
+            } else if (c == '\\') {
+                escape = "\\\\";
+            } else if (c == '\n') {
+                escape = "\\n";
+            } else if (c == '\r') {
+                escape = "\\r";
+            } else if (c == '\t') {
+                escape = "\\t";
+            } else if (c < 0x20) {
+                escape = String.format("\\u%04x", (int) c);
+            } else {
+                continue;
+            }
+            // Unescaped runs are copied in one write
+            out.write(value, start, i - start);
+            out.write(escape);
+            start = i + 1;
+        }
+        out.write(value, start, length - start);
+        out.write('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+        if (depth > 0) {
+            throw new IllegalStateException("Unclosed JSON container");
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.perfboarddesigner.io;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes an opaque RGB PNG a band of rows at a time, so no more than a few
+ * bands are ever held in memory. Bands are filtered and compressed on
+ * worker threads, each as its own run of deflate blocks ending on a byte
+ * boundary; their output is written in order as it becomes ready, and the
+ * zlib checksum is pieced together from the checksums of the bands.
+ */
+public final class PngEncoder implements Closeable {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9C}; // Deflate, 32K window, default level
+    private static final int BYTES_PER_PIXEL = 3;
+
+    // One compressed band and what the zlib trailer needs to know about it
+    private static final class Band {
+        private final byte[] data;
+        private final long adler;
+        private final long length; // Filtered bytes that went in
+
+        Band(byte[] data, long adler, long length) {
+            this.data = data;
+            this.adler = adler;
+            this.length = length;
+        }
+    }
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final ExecutorService workers;
+    private final int maxPending;
+    private final ArrayDeque<Future<Band>> pending = new ArrayDeque<>();
+    private int[] lastRow;     // Last row of the previous band, which the first row is filtered against
+    private int rowsQueued;
+    private boolean streamStarted;
+    private long adler = 1;    // Adler-32 of everything written so far
+
+    /**
+     * Write the signature and header.
+     *
+     * @param dpi resolution recorded in the file, or 0 for none
+     * @param threads how many bands to compress at once
+     */
+    public PngEncoder(OutputStream out, int width, int height, double dpi, int threads) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Empty image: " + width + " x " + height);
+        }
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "png-encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxPending = threads + 1;
+
+        this.out.write(SIGNATURE);
+        writeChunk("IHDR", new byte[] {
+            (byte) (width >>> 24), (byte) (width >>> 16), (byte) (width >>> 8), (byte) width,
+            (byte) (height >>> 24), (byte) (height >>> 16), (byte) (height >>> 8), (byte) height,
+            8,  // Bits per sample
+            2,  // Truecolour
+            0, 0, 0 // Deflate, adaptive filtering, no interlace
+        });
+        if (dpi > 0) {
+            int perMetre = (int) Math.round(dpi / 0.0254);
+            byte[] units = {(byte) (perMetre >>> 24), (byte) (perMetre >>> 16), (byte) (perMetre >>> 8), (byte) perMetre};
+            writeChunk("pHYs", units, units, new byte[] {1});
+        }
+    }
+
+    /**
+     * Queue the next rows, as ARGB pixels with the image's width as their
+     * stride. Alpha is dropped. The array belongs to the encoder from here
+     * on. Blocks while too many earlier bands are still being compressed.
+     */
+    public void writeRows(int[] argb, int rows) throws IOException {
+        if (rows <= 0 || rowsQueued + rows > height) {
+            throw new IllegalArgumentException("Rows " + rowsQueued + " to " + (rowsQueued + rows) + " of " + height);
+        }
+        int[] above = lastRow;
+        lastRow = Arrays.copyOfRange(argb, (rows - 1) * width, rows * width);
+        rowsQueued += rows;
+        boolean last = rowsQueued == height;
+        pending.add(workers.submit(() -> compress(argb, rows, above, last)));
+        while (pending.size() > maxPending) {
+            writeBand(pending.poll());
+        }
+    }
+
+    /**
+     * Write the remaining bands and the end of the image. Every row must
+     * have been queued.
+     */
+    public void finish() throws IOException {
+        if (rowsQueued < height) {
+            throw new IllegalStateException("Only " + rowsQueued + " of " + height + " rows were written");
+        }
+        while (!pending.isEmpty()) {
+            writeBand(pending.poll());
+        }
+        writeChunk("IEND");
+        out.flush();
+    }
+
+    private void writeBand(Future<Band> future) throws IOException {
+        Band band;
+        try {
+            band = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encoding");
+        } catch (ExecutionException e) {
+            throw new IOException("Could not encode image: " + e.getCause(), e.getCause());
+        }
+        byte[] header = streamStarted ? new byte[0] : ZLIB_HEADER;
+        streamStarted = true;
+        adler = combineAdler(adler, band.adler, band.length);
+        byte[] trailer = new byte[0];
+        if (pending.isEmpty() && rowsQueued == height) {
+            trailer = new byte[] {(byte) (adler >>> 24), (byte) (adler >>> 16), (byte) (adler >>> 8), (byte) adler};
+        }
+        writeChunk("IDAT", header, band.data, trailer);
+    }
+
+    private void writeChunk(String type, byte[]... parts) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        out.writeInt(length);
+        out.write(typeBytes);
+        for (byte[] part : parts) {
+            crc.update(part);
+            out.write(part);
+        }
+        out.writeInt((int) crc.getValue());
+    }
+
+    // Runs on a worker: filter the rows, then deflate them as one run of blocks
+    private Band compress(int[] argb, int rows, int[] above, boolean last) {
+        int rowBytes = width * BYTES_PER_PIXEL;
+        byte[] filtered = new byte[rows * (rowBytes + 1)];
+        byte[] previous = new byte[rowBytes];
+        byte[] current = new byte[rowBytes];
+        if (above != null) {
+            toRgb(above, 0, previous);
+        }
+        for (int row = 0; row < rows; row++) {
+            toRgb(argb, row * width, current);
+            filterRow(current, previous, filtered, row * (rowBytes + 1));
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        Adler32 checksum = new Adler32();
+        checksum.update(filtered);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(filtered);
+            byte[] buffer = new byte[Math.max(64, filtered.length / 4)];
+            int size = 0;
+            if (last) {
+                deflater.finish();
+            }
+            // A sync flush ends the band on a byte boundary, so the next band's blocks can follow it
+            while (true) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                int room = buffer.length - size;
+                int written = deflater.deflate(buffer, size, room, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                size += written;
+                if (last ? deflater.finished() : written < room) {
+                    break;
+                }
+            }
+            return new Band(Arrays.copyOf(buffer, size), checksum.getValue(), filtered.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void toRgb(int[] argb, int offset, byte[] rgb) {
+        for (int i = 0, j = 0; i < rgb.length; i += BYTES_PER_PIXEL, j++) {
+            int pixel = argb[offset + j];
+            rgb[i] = (byte) (pixel >> 16);
+            rgb[i + 1] = (byte) (pixel >> 8);
+            rgb[i + 2] = (byte) pixel;
+        }
+    }
+
+    // Pick the filter with the smallest sum of absolute differences, the usual heuristic
+    private static void filterRow(byte[] current, byte[] previous, byte[] dest, int offset) {
+        int bestType = 0;
+        long bestSum = Long.MAX_VALUE;
+        for (int type = 0; type < 5; type++) {
+            long sum = 0;
+            for (int i = 0; i < current.length && sum < bestSum; i++) {
+                sum += Math.abs((byte) filter(type, current, previous, i));
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                bestType = type;
+            }
+        }
+        dest[offset] = (byte) bestType;
+        for (int i = 0; i < current.length; i++) {
+            dest[offset + 1 + i] = (byte) filter(bestType, current, previous, i);
+        }
+    }
+
+    private static int filter(int type, byte[] current, byte[] previous, int i) {
+        int x = current[i] & 0xFF;
+        int a = i >= BYTES_PER_PIXEL ? current[i - BYTES_PER_PIXEL] & 0xFF : 0;
+        int b = previous[i] & 0xFF;
+        switch (type) {
+            case 0: return x;
+            case 1: return x - a;
+            case 2: return x - b;
+            case 3: return x - ((a + b) >> 1);
+            default:
+                int c = i >= BYTES_PER_PIXEL ? previous[i - BYTES_PER_PIXEL] & 0xFF : 0;
+                int p = a + b - c;
+                int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+                return x - (pa <= pb && pa <= pc ? a : pb <= pc ? b : c);
+        }
+    }
+
+    // The Adler-32 of two byte runs from the checksums of each, as zlib's adler32_combine
+    private static long combineAdler(long first, long second, long secondLength) {
+        final long base = 65521;
+        long remainder = secondLength % base;
+        long sum1 = first & 0xFFFF;
+        long sum2 = (remainder * sum1) % base;
+        sum1 += (second & 0xFFFF) + base - 1;
+        sum2 += ((first >>> 16) & 0xFFFF) + ((second >>> 16) & 0xFFFF) + base - remainder;
+        if (sum1 >= base) sum1 -= base;
+        if (sum1 >= base) sum1 -= base;
+        if (sum2 >= base << 1) sum2 -= base << 1;
+        if (sum2 >= base) sum2 -= base;
+        return sum1 | (sum2 << 16);
+    }
+
+    /**
+     * Stop the workers. The stream is left open.
+     */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
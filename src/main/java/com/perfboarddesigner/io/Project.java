@@ -0,0 +1,175 @@
+package com.perfboarddesigner.io;
+
+import com.perfboarddesigner.model.Board;
+import com.perfboarddesigner.model.BoardSide;
+import com.perfboarddesigner.model.BoardType;
+import com.perfboarddesigner.model.Component;
+import com.perfboarddesigner.model.ComponentManager;
+import com.perfboarddesigner.model.ComponentManager.PlacedComponent;
+import com.perfboarddesigner.model.Jumper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything a saved design consists of, detached from the board's nodes:
+ * board settings, the distinct components, where each copy of them sits
+ * and the jumpers. Placements and jumpers are kept as packed ints, in grid
+ * coordinates, so a design of any size costs a few arrays.
+ */
+public final class Project {
+    private static final int PLACEMENT_INTS = 4; // component index, col, row, quarter turns
+    private static final int JUMPER_INTS = 4;    // start col, start row, end col, end row
+
+    private final BoardType boardType;
+    private final BoardSide boardSide;
+    private final double widthMm;
+    private final double heightMm;
+    private final double holeSpacingMm;
+    private final List<Component> components = new ArrayList<>();
+    private int[] placements = new int[64];
+    private int placementCount;
+    private int[] jumpers = new int[64];
+    private int jumperCount;
+
+    public Project(BoardType boardType, BoardSide boardSide, double widthMm, double heightMm, double holeSpacingMm) {
+        this.boardType = boardType;
+        this.boardSide = boardSide;
+        this.widthMm = widthMm;
+        this.heightMm = heightMm;
+        this.holeSpacingMm = holeSpacingMm;
+    }
+
+    /**
+     * The design currently on the board. Copies sharing a Component keep
+     * sharing it.
+     */
+    public static Project capture(Board board, ComponentManager componentManager) {
+        Project project = new Project(board.getType(), board.getSide(),
+            board.getWidthMm(), board.getHeightMm(), board.getHoleSpacingMm());
+        Map<Component, Integer> indices = new IdentityHashMap<>();
+        for (PlacedComponent placed : componentManager.getPlacedComponents()) {
+            Integer index = indices.get(placed.getComponent());
+            if (index == null) {
+                index = project.addComponent(placed.getComponent());
+                indices.put(placed.getComponent(), index);
+            }
+            project.addPlacement(index, placed.getCol(), placed.getRow(), (int) Math.round(placed.getRotation() / 90));
+        }
+        for (Jumper jumper : board.getJumpers()) {
+            project.addJumper(jumper.getStartCol(), jumper.getStartRow(), jumper.getEndCol(), jumper.getEndRow());
+        }
+        return project;
+    }
+
+    /**
+     * A copy with copies of the components, so later edits to the parts on
+     * the board do not reach it.
+     */
+    public Project copy() {
+        Project copy = new Project(boardType, boardSide, widthMm, heightMm, holeSpacingMm);
+        for (Component component : components) {
+            copy.addComponent(ComponentCodec.create(ComponentCodec.typeOf(component), ComponentCodec.properties(component)));
+        }
+        copy.placements = Arrays.copyOf(placements, placements.length);
+        copy.placementCount = placementCount;
+        copy.jumpers = Arrays.copyOf(jumpers, jumpers.length);
+        copy.jumperCount = jumperCount;
+        return copy;
+    }
+
+    /**
+     * Replace the design on the board with this one. The edit history starts
+     * over, since it refers to parts that are gone.
+     *
+     * @return the number of placements and jumpers that did not fit the board
+     */
+    public int applyTo(Board board, ComponentManager componentManager) {
+        componentManager.clearAllComponents();
+        board.clearJumpers();
+        board.setType(boardType);
+        board.setSide(boardSide);
+        board.setDimensions(widthMm, heightMm, holeSpacingMm);
+
+        List<Component> placedComponents = new ArrayList<>(placementCount);
+        int[] cols = new int[placementCount];
+        int[] rows = new int[placementCount];
+        int[] turns = new int[placementCount];
+        for (int i = 0; i < placementCount; i++) {
+            int base = i * PLACEMENT_INTS;
+            placedComponents.add(components.get(placements[base]));
+            cols[i] = placements[base + 1];
+            rows[i] = placements[base + 2];
+            turns[i] = placements[base + 3];
+        }
+        int skipped = placementCount - componentManager.placeAll(placedComponents, cols, rows, turns);
+        for (int i = 0; i < jumperCount; i++) {
+            int base = i * JUMPER_INTS;
+            if (onBoard(board, jumpers[base], jumpers[base + 1]) && onBoard(board, jumpers[base + 2], jumpers[base + 3])) {
+                board.addJumper(jumpers[base], jumpers[base + 1], jumpers[base + 2], jumpers[base + 3]);
+            } else {
+                skipped++;
+            }
+        }
+        componentManager.getHistory().clear();
+        return skipped;
+    }
+
+    private static boolean onBoard(Board board, int col, int row) {
+        return col >= 0 && row >= 0 && col < board.getCols() && row < board.getRows();
+    }
+
+    /**
+     * @return the index placements refer to the component by
+     */
+    public int addComponent(Component component) {
+        components.add(component);
+        return components.size() - 1;
+    }
+
+    public void addPlacement(int component, int col, int row, int quarterTurns) {
+        if (component < 0 || component >= components.size()) {
+            throw new IllegalArgumentException("No component " + component);
+        }
+        if ((placementCount + 1) * PLACEMENT_INTS > placements.length) {
+            placements = Arrays.copyOf(placements, placements.length * 2);
+        }
+        int base = placementCount++ * PLACEMENT_INTS;
+        placements[base] = component;
+        placements[base + 1] = col;
+        placements[base + 2] = row;
+        placements[base + 3] = Math.floorMod(quarterTurns, 4);
+    }
+
+    public void addJumper(int startCol, int startRow, int endCol, int endRow) {
+        if ((jumperCount + 1) * JUMPER_INTS > jumpers.length) {
+            jumpers = Arrays.copyOf(jumpers, jumpers.length * 2);
+        }
+        int base = jumperCount++ * JUMPER_INTS;
+        jumpers[base] = startCol;
+        jumpers[base + 1] = startRow;
+        jumpers[base + 2] = endCol;
+        jumpers[base + 3] = endRow;
+    }
+
+    public BoardType getBoardType() { return boardType; }
+    public BoardSide getBoardSide() { return boardSide; }
+    public double getWidthMm() { return widthMm; }
+    public double getHeightMm() { return heightMm; }
+    public double getHoleSpacingMm() { return holeSpacingMm; }
+    public int getComponentCount() { return components.size(); }
+    public Component getComponent(int index) { return components.get(index); }
+    public int getPlacementCount() { return placementCount; }
+    public int getPlacementComponent(int index) { return placements[index * PLACEMENT_INTS]; }
+    public int getPlacementCol(int index) { return placements[index * PLACEMENT_INTS + 1]; }
+    public int getPlacementRow(int index) { return placements[index * PLACEMENT_INTS + 2]; }
+    public int getPlacementTurns(int index) { return placements[index * PLACEMENT_INTS + 3]; }
+    public int getJumperCount() { return jumperCount; }
+    public int getJumperStartCol(int index) { return jumpers[index * JUMPER_INTS]; }
+    public int getJumperStartRow(int index) { return jumpers[index * JUMPER_INTS + 1]; }
+    public int getJumperEndCol(int index) { return jumpers[index * JUMPER_INTS + 2]; }
+    public int getJumperEndRow(int index) { return jumpers[index * JUMPER_INTS + 3]; }
+}
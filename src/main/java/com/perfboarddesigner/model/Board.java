@@ -1,25 +1,91 @@
 package com.perfboarddesigner.model;
 
 import com.perfboarddesigner.Constants;
+import com.perfboarddesigner.render.DetailLevel;
+import com.perfboarddesigner.render.RenderScheduler;
+import com.perfboarddesigner.render.TiledCanvasLayer;
+import javafx.scene.Group;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
+import javafx.scene.shape.ClosePath;
+import javafx.scene.shape.HLineTo;
 import javafx.scene.shape.Line;
+import javafx.scene.shape.MoveTo;
+import javafx.scene.shape.Path;
+import javafx.scene.shape.PathElement;
 import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.VLineTo;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Translate;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 
 public class Board {
+    private static final double MIN_ZOOM = 0.05;
+    private static final double MAX_ZOOM = 20.0;
+    private static final double WHEEL_ZOOM_STEP = 1.1; // Per wheel notch
+
     private BoardType type;
     private BoardSide side;
+    // Clipped viewport; everything below is panned and zoomed inside it
     private Pane boardPane;
-    private List<Line> jumpers;
+    // One node per layer, stacked in BoardLayer order. The tiled layers are
+    // rasterized in screen space; the rest sit in model space under the view
+    // transform and are never rebuilt on zoom or pan.
+    private TiledCanvasLayer substrateLayer;
+    private TiledCanvasLayer copperLayer;
+    // Component symbols blitted from the sprite atlas while zoomed out; the
+    // nodes in componentLayer are then only there to be clicked
+    private TiledCanvasLayer componentCanvas;
+    private TiledCanvasLayer.TilePainter componentPainter;
+    private Group contentGroup;
+    private Pane componentLayer;
+    private Pane jumperLayer;
+    private Pane previewLayer;
+    private final Translate pan = new Translate();
+    private final Scale zoom = new Scale(1, 1);
+    private final EnumSet<BoardLayer> dirtyLayers = EnumSet.noneOf(BoardLayer.class);
+    private final RenderScheduler renderScheduler = new RenderScheduler(this::validate);
+    private boolean viewportChanged;
+    private DetailLevel detailLevel = DetailLevel.FULL;
+    private final List<Consumer<DetailLevel>> detailLevelListeners = new ArrayList<>();
+    private final List<DoubleConsumer> zoomListeners = new ArrayList<>();
+    private final List<Runnable> viewportListeners = new ArrayList<>();
+    private final List<Runnable> gridListeners = new ArrayList<>();
+    private final List<Runnable> resizeListeners = new ArrayList<>();
+    private final List<Runnable> settingsListeners = new ArrayList<>();
+    private final List<BiConsumer<Jumper, Boolean>> jumperListeners = new ArrayList<>();
+    private List<Jumper> jumpers;
+    private final SpatialIndex<Jumper> jumperIndex = new SpatialIndex<>();
+    private EditHistory history;
+    private BoardModel model;
+    // Set while typed dimensions wait out the render debounce; the model keeps the old grid until then
+    private boolean resizePending;
+    // Rebuilt lazily after changes that can split nets; jumpers are merged in place
+    private NetConnectivity nets;
+    private boolean netsDirty = true;
+    // Net under the mouse, drawn as outlined holes
+    private Path netHighlight;
+    private Path pinHighlight;
+    private int hoverCol = -1, hoverRow = -1;
+    private int hoverNet = -1;
+    private Jumper hoverJumper; // Drawn thicker while under the mouse
     private double widthMm;
     private double heightMm;
     private double holeSpacingMm;
     // Removed MM_TO_PIXEL and MARGIN_MM, now in Constants.java
     private double scaleFactor = 1.0;
     private Line tempJumper; // For preview during drag
+    private int tempStartCol, tempStartRow;
+    private double panAnchorX, panAnchorY;
 
     public Board(BoardType type, BoardSide side, double widthMm, double heightMm, double holeSpacingMm) {
         this.type = type;
@@ -27,90 +93,369 @@ public class Board {
         this.widthMm = widthMm;
         this.heightMm = heightMm;
         this.holeSpacingMm = holeSpacingMm;
-        this.boardPane = new Pane();
+        this.substrateLayer = new TiledCanvasLayer((gc, x, y, w, h) -> paintSubstrate(gc, scaleFactor, detailLevel, x, y, w, h));
+        this.copperLayer = new TiledCanvasLayer((gc, x, y, w, h) -> paintCopper(gc, scaleFactor, detailLevel, x, y, w, h));
+        this.componentCanvas = new TiledCanvasLayer(this::paintComponents);
+        this.componentLayer = new Pane();
+        this.jumperLayer = new Pane();
+        this.previewLayer = new Pane();
+        // Only the substrate catches mouse events; parts and jumpers are found through their indexes,
+        // so the scene graph is never searched node by node under the pointer
+        copperLayer.setMouseTransparent(true);
+        componentCanvas.setMouseTransparent(true);
+        componentCanvas.setVisible(false);
+        componentLayer.setMouseTransparent(true);
+        jumperLayer.setMouseTransparent(true);
+        previewLayer.setPickOnBounds(false);
+        previewLayer.setMouseTransparent(true);
+        this.netHighlight = new Path();
+        netHighlight.setFill(Color.rgb(255, 215, 0, 0.45));
+        netHighlight.setStroke(null);
+        this.pinHighlight = new Path();
+        pinHighlight.setFill(null);
+        pinHighlight.setStroke(Color.CRIMSON);
+        pinHighlight.setStrokeWidth(1.5);
+        previewLayer.getChildren().addAll(netHighlight, pinHighlight);
+        this.contentGroup = new Group(componentLayer, jumperLayer, previewLayer);
+        contentGroup.getTransforms().addAll(pan, zoom);
+        this.boardPane = new Pane(substrateLayer, copperLayer, componentCanvas, contentGroup);
+        boardPane.setStyle("-fx-background-color: #e9ecef;");
+        boardPane.setPrefSize(800, 600);
+        boardPane.setMinSize(0, 0);
+        Rectangle clip = new Rectangle();
+        clip.widthProperty().bind(boardPane.widthProperty());
+        clip.heightProperty().bind(boardPane.heightProperty());
+        boardPane.setClip(clip);
+        boardPane.widthProperty().addListener(obs -> onViewportChanged());
+        boardPane.heightProperty().addListener(obs -> onViewportChanged());
+        installViewHandlers();
         this.jumpers = new ArrayList<>();
+        this.model = new BoardModel(getCols(), getRows());
+        this.nets = new NetConnectivity(getCols(), getRows());
         renderBoard();
     }
 
+    private void installViewHandlers() {
+        // Ctrl+wheel zooms around the cursor, a plain wheel pans
+        boardPane.addEventHandler(ScrollEvent.SCROLL, e -> {
+            if (e.isControlDown()) {
+                if (e.getDeltaY() != 0) {
+                    zoomAt(e.getX(), e.getY(), e.getDeltaY() > 0 ? WHEEL_ZOOM_STEP : 1 / WHEEL_ZOOM_STEP);
+                }
+            } else {
+                panBy(e.getDeltaX(), e.getDeltaY());
+            }
+            e.consume();
+        });
+        // Middle-drag pans
+        boardPane.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> {
+            if (e.getButton() == MouseButton.MIDDLE) {
+                panAnchorX = e.getX();
+                panAnchorY = e.getY();
+                e.consume();
+            }
+        });
+        boardPane.addEventFilter(MouseEvent.MOUSE_DRAGGED, e -> {
+            if (e.isMiddleButtonDown()) {
+                panBy(e.getX() - panAnchorX, e.getY() - panAnchorY);
+                panAnchorX = e.getX();
+                panAnchorY = e.getY();
+                e.consume();
+            }
+        });
+        // Hovering a hole highlights its net and any jumper passing over it
+        boardPane.addEventHandler(MouseEvent.MOUSE_MOVED, e -> {
+            int col = colAt(toModelX(e.getX()));
+            int row = rowAt(toModelY(e.getY()));
+            showNetAt(col, row);
+            showJumper(getJumperAt(col, row));
+        });
+        boardPane.addEventHandler(MouseEvent.MOUSE_EXITED, e -> {
+            showNetAt(-1, -1);
+            showJumper(null);
+        });
+    }
+
+    /**
+     * Repaint every geometry-dependent layer. Components are left untouched.
+     */
     public void renderBoard() {
-        boardPane.getChildren().clear();
-        double pixelWidth = widthMm * Constants.MM_TO_PIXEL;
-        double pixelHeight = heightMm * Constants.MM_TO_PIXEL;
-        double marginPx = Constants.MARGIN_MM * Constants.MM_TO_PIXEL;
-        double innerWidthMm = widthMm - (2 * Constants.MARGIN_MM);
-        double innerHeightMm = heightMm - (2 * Constants.MARGIN_MM);
-        double spacing = holeSpacingMm * (Constants.MM_TO_PIXEL / 2.54) * scaleFactor;
-        double holeRadius = 2.5 * scaleFactor;
-
-        int cols = (int) (innerWidthMm / holeSpacingMm);
-        int rows = (int) (innerHeightMm / holeSpacingMm);
+        invalidateGeometry();
+        renderScheduler.flush();
+    }
 
-        // Draw outer board rectangle
-        Rectangle outerRect = new Rectangle(0, 0, pixelWidth, pixelHeight);
-        outerRect.setFill(Color.LIGHTGREEN);
-        outerRect.setStroke(Color.BLACK);
-        outerRect.setStrokeWidth(1 * scaleFactor);
-        boardPane.getChildren().add(outerRect);
+    /**
+     * Mark a layer as out of date. It is rebuilt on the next pulse, together
+     * with anything else invalidated before then.
+     */
+    public void invalidate(BoardLayer layer) {
+        dirtyLayers.add(layer);
+        renderScheduler.requestRender();
+    }
+
+    /**
+     * Zoom by the given factor, keeping the model point under (viewX, viewY)
+     * fixed on screen. Only the view transform and the detail tier change.
+     */
+    public void zoomAt(double viewX, double viewY, double factor) {
+        double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, scaleFactor * factor));
+        double modelX = toModelX(viewX);
+        double modelY = toModelY(viewY);
+        pan.setX(viewX - modelX * newZoom);
+        pan.setY(viewY - modelY * newZoom);
+        setScaleFactor(newZoom);
+        onViewportChanged();
+    }
+
+    public void panBy(double dx, double dy) {
+        if (dx == 0 && dy == 0) return;
+        pan.setX(pan.getX() + dx);
+        pan.setY(pan.getY() + dy);
+        onViewportChanged();
+    }
+
+    private void onViewportChanged() {
+        // Move the screen-space tiles with the transform right away, recycle them on the next pulse
+        substrateLayer.setLayoutX(pan.getX());
+        substrateLayer.setLayoutY(pan.getY());
+        copperLayer.setLayoutX(pan.getX());
+        copperLayer.setLayoutY(pan.getY());
+        componentCanvas.setLayoutX(pan.getX());
+        componentCanvas.setLayoutY(pan.getY());
+        viewportChanged = true;
+        renderScheduler.requestRender();
+    }
+
+    /**
+     * Rebuild the layers invalidated since the last call, and only those.
+     * Normally driven by the render scheduler.
+     */
+    public void validate() {
+        applyPendingResize();
+        if (dirtyLayers.isEmpty() && !viewportChanged) {
+            return;
+        }
+        double pixelWidth = getModelWidth() * scaleFactor;
+        double pixelHeight = getModelHeight() * scaleFactor;
+        DetailLevel newLevel = DetailLevel.forPixelsPerHole(getPitchPx() * scaleFactor);
+        if (newLevel != detailLevel) {
+            detailLevel = newLevel;
+            dirtyLayers.add(BoardLayer.SUBSTRATE);
+            dirtyLayers.add(BoardLayer.COPPER);
+            dirtyLayers.add(BoardLayer.COMPONENTS);
+            for (Consumer<DetailLevel> listener : detailLevelListeners) {
+                listener.accept(newLevel);
+            }
+        }
+        // Visible area in the tiled layers' coordinates
+        double viewX = -pan.getX();
+        double viewY = -pan.getY();
+        substrateLayer.setViewport(viewX, viewY, boardPane.getWidth(), boardPane.getHeight());
+        copperLayer.setViewport(viewX, viewY, boardPane.getWidth(), boardPane.getHeight());
+        componentCanvas.setViewport(viewX, viewY, boardPane.getWidth(), boardPane.getHeight());
+        if (dirtyLayers.contains(BoardLayer.SUBSTRATE)) {
+            substrateLayer.setContentSize(pixelWidth, pixelHeight);
+            substrateLayer.repaint();
+        } else {
+            substrateLayer.updateTiles();
+        }
+        if (dirtyLayers.contains(BoardLayer.COPPER)) {
+            copperLayer.setContentSize(pixelWidth, pixelHeight);
+            copperLayer.repaint();
+        } else {
+            copperLayer.updateTiles();
+        }
+        // Only the simplified tier draws components onto the canvas
+        componentCanvas.setVisible(detailLevel == DetailLevel.SIMPLIFIED && componentPainter != null);
+        if (componentCanvas.isVisible()) {
+            if (dirtyLayers.contains(BoardLayer.COMPONENTS)) {
+                componentCanvas.setContentSize(pixelWidth, pixelHeight);
+                componentCanvas.repaint();
+            } else {
+                componentCanvas.updateTiles();
+            }
+        }
+        if (dirtyLayers.contains(BoardLayer.JUMPERS)) {
+            layoutJumpers();
+        }
+        dirtyLayers.clear();
+        if (viewportChanged) {
+            viewportChanged = false;
+            for (Runnable listener : viewportListeners) {
+                listener.run();
+            }
+        }
+    }
+
+    private void paintSubstrate(GraphicsContext gc, double scale, DetailLevel level, double x, double y, double w, double h) {
+        // Tiles live in screen space, so paint at the given zoom
+        double pixelWidth = getModelWidth() * scale;
+        double pixelHeight = getModelHeight() * scale;
+        double marginPx = getOriginPx() * scale;
+        double spacing = getPitchPx() * scale;
+        double holeRadius = 2.5 * scale;
 
         // Draw background for double-sided board
         if (side == BoardSide.DOUBLE) {
-            Rectangle blueBackground = new Rectangle(0, 0, pixelWidth, pixelHeight);
-            blueBackground.setFill(Color.BLUE);
-            boardPane.getChildren().add(0, blueBackground);
+            gc.setFill(Color.BLUE);
+            gc.fillRect(0, 0, pixelWidth, pixelHeight);
         }
 
-        // Draw holes inside margins
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                double x = marginPx + (j * spacing);
-                double y = marginPx + (i * spacing);
-                Circle hole = new Circle(holeRadius, Color.GRAY);
-                hole.setStroke(Color.BLACK);
-                hole.setStrokeWidth(1 * scaleFactor);
-                hole.setLayoutX(x);
-                hole.setLayoutY(y);
-                boardPane.getChildren().add(hole);
+        // Draw outer board rectangle
+        gc.setFill(Color.LIGHTGREEN);
+        gc.fillRect(0, 0, pixelWidth, pixelHeight);
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(1 * scale);
+        gc.strokeRect(0, 0, pixelWidth, pixelHeight);
+
+        if (level == DetailLevel.FOOTPRINT) {
+            // Holes are sub-pixel: shade the drilled area instead
+            gc.setFill(Color.rgb(128, 128, 128, 0.35));
+            gc.fillRect(marginPx, marginPx, (getCols() - 1) * spacing, (getRows() - 1) * spacing);
+            return;
+        }
+
+        // Draw only the holes that touch this tile, as one batched path
+        double reach = holeRadius + scale;
+        int firstCol = Math.max(0, (int) Math.floor((x - reach - marginPx) / spacing));
+        int lastCol = Math.min(getCols() - 1, (int) Math.ceil((x + w + reach - marginPx) / spacing));
+        int firstRow = Math.max(0, (int) Math.floor((y - reach - marginPx) / spacing));
+        int lastRow = Math.min(getRows() - 1, (int) Math.ceil((y + h + reach - marginPx) / spacing));
+        gc.beginPath();
+        if (level == DetailLevel.SIMPLIFIED) {
+            // Small unstroked squares are indistinguishable from circles here
+            for (int i = firstRow; i <= lastRow; i++) {
+                for (int j = firstCol; j <= lastCol; j++) {
+                    gc.rect(marginPx + (j * spacing) - holeRadius, marginPx + (i * spacing) - holeRadius,
+                            2 * holeRadius, 2 * holeRadius);
+                }
             }
+            gc.setFill(Color.GRAY);
+            gc.fill();
+            return;
+        }
+        for (int i = firstRow; i <= lastRow; i++) {
+            for (int j = firstCol; j <= lastCol; j++) {
+                double hx = marginPx + (j * spacing);
+                double hy = marginPx + (i * spacing);
+                gc.moveTo(hx + holeRadius, hy);
+                gc.arc(hx, hy, holeRadius, holeRadius, 0, 360);
+            }
+        }
+        gc.setFill(Color.GRAY);
+        gc.fill();
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(1 * scale);
+        gc.stroke();
+    }
+
+    private void paintCopper(GraphicsContext gc, double scale, DetailLevel level, double x, double y, double w, double h) {
+        // Tiles live in screen space, so paint at the given zoom
+        double pixelWidth = getModelWidth() * scale;
+        double pixelHeight = getModelHeight() * scale;
+        double marginPx = getOriginPx() * scale;
+        double spacing = getPitchPx() * scale;
+        int cols = getCols();
+        int rows = getRows();
+        double reach = 2 * scale;
+        int firstCol = Math.max(0, (int) Math.floor((x - reach - marginPx) / spacing));
+        int lastCol = Math.min(cols - 1, (int) Math.ceil((x + w + reach - marginPx) / spacing));
+        int firstRow = Math.max(0, (int) Math.floor((y - reach - marginPx) / spacing));
+        int lastRow = Math.min(rows - 1, (int) Math.ceil((y + h + reach - marginPx) / spacing));
+
+        if (level == DetailLevel.FOOTPRINT && type == BoardType.STRIPBOARD) {
+            // Individual strips blur together: fill the strip area as one block
+            gc.setFill(Color.rgb(184, 115, 51, 0.6));
+            gc.fillRect(marginPx, marginPx - reach, pixelWidth - 2 * marginPx, (rows - 1) * spacing + 2 * reach);
+            return;
         }
 
         // Draw strips based on board type
+        gc.setStroke(Color.rgb(184, 115, 51)); // Copper color
+        gc.beginPath();
         if (type == BoardType.STRIPBOARD) {
             // Horizontal strips for stripboard
-            for (int i = 0; i < rows; i++) {
-                double y = marginPx + (i * spacing);
-                Line strip = new Line(marginPx, y, pixelWidth - marginPx, y);
-                strip.setStroke(Color.rgb(184, 115, 51)); // Copper color
-                strip.setStrokeWidth(4 * scaleFactor);
-                boardPane.getChildren().add(strip);
+            for (int i = firstRow; i <= lastRow; i++) {
+                double sy = marginPx + (i * spacing);
+                gc.moveTo(marginPx, sy);
+                gc.lineTo(pixelWidth - marginPx, sy);
             }
+            gc.setLineWidth(4 * scale);
         } else if (type == BoardType.MIXED) {
             // Mixed board: some horizontal strips, some vertical
-            for (int i = 0; i < rows; i += 2) {
-                double y = marginPx + (i * spacing);
-                Line strip = new Line(marginPx, y, pixelWidth - marginPx, y);
-                strip.setStroke(Color.rgb(184, 115, 51));
-                strip.setStrokeWidth(3 * scaleFactor);
-                boardPane.getChildren().add(strip);
+            for (int i = firstRow + (firstRow & 1); i <= lastRow; i += 2) {
+                double sy = marginPx + (i * spacing);
+                gc.moveTo(marginPx, sy);
+                gc.lineTo(pixelWidth - marginPx, sy);
             }
-            for (int j = 0; j < cols; j += 3) {
-                double x = marginPx + (j * spacing);
-                Line strip = new Line(x, marginPx + (rows/2 * spacing), x, pixelHeight - marginPx);
-                strip.setStroke(Color.rgb(184, 115, 51));
-                strip.setStrokeWidth(3 * scaleFactor);
-                boardPane.getChildren().add(strip);
+            for (int j = (firstCol + 2) / 3 * 3; j <= lastCol; j += 3) {
+                double sx = marginPx + (j * spacing);
+                gc.moveTo(sx, marginPx + (rows/2 * spacing));
+                gc.lineTo(sx, pixelHeight - marginPx);
             }
+            gc.setLineWidth(3 * scale);
+        }
+        gc.stroke();
+    }
+
+    private void paintComponents(GraphicsContext gc, double x, double y, double w, double h) {
+        if (componentPainter != null) {
+            componentPainter.paint(gc, x, y, w, h);
+        }
+    }
+
+    /**
+     * Paint the substrate and copper inside the rectangle at the given scale,
+     * e.g. for an export. The rectangle is model space times the scale; the
+     * detail level follows from the scale, and nothing on screen changes.
+     */
+    public void paintBoard(GraphicsContext gc, double scale, double x, double y, double w, double h) {
+        DetailLevel level = DetailLevel.forPixelsPerHole(getPitchPx() * scale);
+        paintSubstrate(gc, scale, level, x, y, w, h);
+        paintCopper(gc, scale, level, x, y, w, h);
+    }
+
+    /**
+     * Paint the jumpers inside the rectangle at the given scale, as drawn on
+     * top of the components.
+     */
+    public void paintJumpers(GraphicsContext gc, double scale, double x, double y, double w, double h) {
+        double pitch = getPitchPx() * scale;
+        double origin = getOriginPx() * scale;
+        int minCol = (int) Math.floor((x - origin) / pitch) - 1;
+        int minRow = (int) Math.floor((y - origin) / pitch) - 1;
+        int maxCol = (int) Math.ceil((x + w - origin) / pitch) + 1;
+        int maxRow = (int) Math.ceil((y + h - origin) / pitch) + 1;
+        gc.setStroke(Color.RED);
+        gc.setLineWidth(1.5 * scale);
+        for (Jumper jumper : jumperIndex.queryRect(minCol, minRow, maxCol, maxRow)) {
+            gc.strokeLine(getColPx(jumper.getStartCol()) * scale, getRowPx(jumper.getStartRow()) * scale,
+                getColPx(jumper.getEndCol()) * scale, getRowPx(jumper.getEndRow()) * scale);
         }
+    }
 
-        boardPane.setPrefSize(pixelWidth, pixelHeight);
+    private void layoutJumpers() {
+        // Jumpers keep their nodes; only their endpoints follow the new geometry
+        for (Jumper jumper : jumpers) {
+            Line line = jumper.getLine();
+            line.setStartX(getColPx(jumper.getStartCol()));
+            line.setStartY(getRowPx(jumper.getStartRow()));
+            line.setEndX(getColPx(jumper.getEndCol()));
+            line.setEndY(getRowPx(jumper.getEndRow()));
+        }
     }
 
     public void startJumper(double xMm, double yMm) {
+        tempStartCol = getCol(xMm);
+        tempStartRow = getRow(yMm);
         tempJumper = new Line();
-        tempJumper.setStartX(getPixelX(xMm));
-        tempJumper.setStartY(getPixelY(yMm));
+        tempJumper.setStartX(getColPx(tempStartCol));
+        tempJumper.setStartY(getRowPx(tempStartRow));
+        tempJumper.setEndX(tempJumper.getStartX());
+        tempJumper.setEndY(tempJumper.getStartY());
         tempJumper.setStroke(Color.RED);
-        tempJumper.setStrokeWidth(1.5 * scaleFactor);
-        boardPane.getChildren().add(tempJumper);
+        tempJumper.setStrokeWidth(1.5);
+        previewLayer.getChildren().add(tempJumper);
     }
 
     public void updateTempJumper(double xMm, double yMm) {
@@ -122,49 +467,415 @@ public class Board {
 
     public void finishJumper(double xMm, double yMm) {
         if (tempJumper != null) {
-            tempJumper.setEndX(getPixelX(xMm));
-            tempJumper.setEndY(getPixelY(yMm));
-            jumpers.add(tempJumper);
+            int endCol = getCol(xMm);
+            int endRow = getRow(yMm);
+            tempJumper.setEndX(getColPx(endCol));
+            tempJumper.setEndY(getRowPx(endRow));
+            previewLayer.getChildren().remove(tempJumper);
+            addJumper(new Jumper(tempStartCol, tempStartRow, endCol, endRow, tempJumper));
+            if (history != null) {
+                history.beginEntry();
+                history.recordJumper(true, tempStartCol, tempStartRow, endCol, endRow);
+            }
             tempJumper = null;
         }
     }
 
+    /**
+     * Add a jumper between two holes without going through the mouse preview.
+     */
+    public void addJumper(int startCol, int startRow, int endCol, int endRow) {
+        Line line = new Line(getColPx(startCol), getRowPx(startRow), getColPx(endCol), getRowPx(endRow));
+        line.setStroke(Color.RED);
+        line.setStrokeWidth(1.5);
+        addJumper(new Jumper(startCol, startRow, endCol, endRow, line));
+    }
+
+    private void addJumper(Jumper jumper) {
+        jumperLayer.getChildren().add(jumper.getLine());
+        jumpers.add(jumper);
+        jumperIndex.insert(jumper, jumper.getStartCol(), jumper.getStartRow(), jumper.getEndCol(), jumper.getEndRow());
+        model.addJumperEnd(jumper.getStartCol(), jumper.getStartRow());
+        model.addJumperEnd(jumper.getEndCol(), jumper.getEndRow());
+        if (!netsDirty) {
+            nets.connect(jumper.getStartCol(), jumper.getStartRow(), jumper.getEndCol(), jumper.getEndRow());
+        }
+        refreshNetHighlight();
+        fireJumperChanged(jumper, true);
+    }
+
+    /**
+     * Remove one jumper with exactly these ends, if there is one.
+     */
+    public boolean removeJumper(int startCol, int startRow, int endCol, int endRow) {
+        Jumper[] found = new Jumper[1];
+        jumperIndex.forEachAt(startCol, startRow, jumper -> {
+            if (found[0] == null && jumper.getStartCol() == startCol && jumper.getStartRow() == startRow
+                    && jumper.getEndCol() == endCol && jumper.getEndRow() == endRow) {
+                found[0] = jumper;
+            }
+        });
+        Jumper jumper = found[0];
+        if (jumper == null) {
+            return false;
+        }
+        if (jumper == hoverJumper) {
+            showJumper(null);
+        }
+        jumpers.remove(jumper);
+        jumperIndex.remove(jumper);
+        jumperLayer.getChildren().remove(jumper.getLine());
+        model.removeJumperEnd(startCol, startRow);
+        model.removeJumperEnd(endCol, endRow);
+        invalidateNets();
+        fireJumperChanged(jumper, false);
+        return true;
+    }
+
     public void clearJumpers() {
-        for (Line jumper : jumpers) {
-            boardPane.getChildren().remove(jumper);
+        if (history != null && !jumpers.isEmpty()) {
+            history.beginEntry();
+            for (Jumper jumper : jumpers) {
+                history.recordJumper(false, jumper.getStartCol(), jumper.getStartRow(), jumper.getEndCol(), jumper.getEndRow());
+            }
         }
+        List<Jumper> removed = jumperListeners.isEmpty() ? List.of() : new ArrayList<>(jumpers);
+        showJumper(null);
+        jumperLayer.getChildren().clear();
         jumpers.clear();
+        jumperIndex.clear();
+        model.clearJumperEnds();
+        invalidateNets();
+        for (Jumper jumper : removed) {
+            fireJumperChanged(jumper, false);
+        }
+    }
+
+    private void fireJumperChanged(Jumper jumper, boolean added) {
+        for (BiConsumer<Jumper, Boolean> listener : jumperListeners) {
+            listener.accept(jumper, added);
+        }
+    }
+
+    private void fireSettingsChanged() {
+        for (Runnable listener : settingsListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * A jumper passing within half a hole pitch of the hole, or null.
+     */
+    public Jumper getJumperAt(int col, int row) {
+        Jumper[] hit = new Jumper[1];
+        jumperIndex.forEachAt(col, row, jumper -> {
+            if (hit[0] == null && jumper.distanceTo(col, row) <= 0.5) {
+                hit[0] = jumper;
+            }
+        });
+        return hit[0];
+    }
+
+    private void showJumper(Jumper jumper) {
+        if (jumper == hoverJumper) {
+            return;
+        }
+        if (hoverJumper != null) {
+            hoverJumper.getLine().setStrokeWidth(1.5);
+        }
+        hoverJumper = jumper;
+        if (jumper != null) {
+            jumper.getLine().setStrokeWidth(3);
+        }
+    }
+
+    /**
+     * Hole connectivity from copper strips and jumpers, brought up to date first.
+     */
+    public NetConnectivity getNets() {
+        if (netsDirty) {
+            nets.reset(getCols(), getRows());
+            nets.addStrips(type);
+            for (Jumper jumper : jumpers) {
+                nets.connect(jumper.getStartCol(), jumper.getStartRow(), jumper.getEndCol(), jumper.getEndRow());
+            }
+            netsDirty = false;
+        }
+        return nets;
+    }
+
+    private void invalidateNets() {
+        netsDirty = true;
+        refreshNetHighlight();
+    }
+
+    /**
+     * Redraw the hovered net, e.g. after parts were moved onto or off it.
+     */
+    public void refreshNetHighlight() {
+        int col = hoverCol;
+        int row = hoverRow;
+        hoverNet = -1;
+        showNetAt(-1, -1);
+        showNetAt(col, row);
+    }
+
+    private void showNetAt(int col, int row) {
+        if (col == hoverCol && row == hoverRow) {
+            return;
+        }
+        hoverCol = col;
+        hoverRow = row;
+        NetConnectivity current = getNets();
+        int net = current.getNetSize(col, row) > 1 ? current.getNet(col, row) : -1;
+        if (net == hoverNet) {
+            return;
+        }
+        hoverNet = net;
+        List<PathElement> holes = new ArrayList<>();
+        List<PathElement> pins = new ArrayList<>();
+        if (net >= 0) {
+            double half = getPitchPx() * 0.4;
+            int cols = current.getCols();
+            current.forEachHole(col, row, hole -> {
+                int c = hole % cols;
+                int r = hole / cols;
+                addSquare(c, r, half, holes);
+                if (model.getPinNumber(c, r) != 0) {
+                    addSquare(c, r, half, pins);
+                }
+            });
+        }
+        netHighlight.getElements().setAll(holes);
+        pinHighlight.getElements().setAll(pins);
+    }
+
+    private void addSquare(int col, int row, double half, List<PathElement> elements) {
+        double x = getColPx(col);
+        double y = getRowPx(row);
+        elements.add(new MoveTo(x - half, y - half));
+        elements.add(new HLineTo(x + half));
+        elements.add(new VLineTo(y + half));
+        elements.add(new HLineTo(x - half));
+        elements.add(new ClosePath());
+    }
+
+    /**
+     * Convert a position in the board pane (the viewport) to model space.
+     */
+    public double toModelX(double viewX) {
+        return (viewX - pan.getX()) / scaleFactor;
+    }
+
+    public double toModelY(double viewY) {
+        return (viewY - pan.getY()) / scaleFactor;
+    }
+
+    // Nearest hole to a position in mm
+    private int getCol(double xMm) {
+        return (int) Math.round((xMm - Constants.MARGIN_MM) / holeSpacingMm);
+    }
+
+    private int getRow(double yMm) {
+        return (int) Math.round((yMm - Constants.MARGIN_MM) / holeSpacingMm);
+    }
+
+    private double getColPx(int col) {
+        return getOriginPx() + (col * getPitchPx());
+    }
+
+    private double getRowPx(int row) {
+        return getOriginPx() + (row * getPitchPx());
     }
 
     private double getPixelX(double xMm) {
-        double marginPx = Constants.MARGIN_MM * Constants.MM_TO_PIXEL;
-        double spacingPx = holeSpacingMm * (Constants.MM_TO_PIXEL / 2.54) * scaleFactor;
-        int col = (int) ((xMm - Constants.MARGIN_MM) / holeSpacingMm);
-        return marginPx + (col * spacingPx);
+        return getColPx(getCol(xMm));
     }
 
     private double getPixelY(double yMm) {
-        double marginPx = Constants.MARGIN_MM * Constants.MM_TO_PIXEL;
-        double spacingPx = holeSpacingMm * (Constants.MM_TO_PIXEL / 2.54) * scaleFactor;
-        int row = (int) ((yMm - Constants.MARGIN_MM) / holeSpacingMm);
-        return marginPx + (row * spacingPx);
+        return getRowPx(getRow(yMm));
+    }
+
+    /**
+     * Nearest hole column to a model-space x coordinate. May lie off the board.
+     */
+    public int colAt(double modelX) {
+        return (int) Math.round((modelX - getOriginPx()) / getPitchPx());
+    }
+
+    public int rowAt(double modelY) {
+        return (int) Math.round((modelY - getOriginPx()) / getPitchPx());
+    }
+
+    /**
+     * Model-space x coordinate of a hole column.
+     */
+    public double colX(int col) {
+        return getColPx(col);
+    }
+
+    public double rowY(int row) {
+        return getRowPx(row);
+    }
+
+    /**
+     * Model-space position of the first hole, in pixels.
+     */
+    public double getOriginPx() {
+        return Constants.MARGIN_MM * Constants.MM_TO_PIXEL;
+    }
+
+    /**
+     * Model-space distance between neighbouring holes, in pixels.
+     */
+    public double getPitchPx() {
+        return holeSpacingMm * Constants.MM_TO_PIXEL;
+    }
+
+    public double getModelWidth() {
+        return widthMm * Constants.MM_TO_PIXEL;
+    }
+
+    public double getModelHeight() {
+        return heightMm * Constants.MM_TO_PIXEL;
+    }
+
+    public int getCols() {
+        return (int) ((widthMm - (2 * Constants.MARGIN_MM)) / holeSpacingMm);
+    }
+
+    public int getRows() {
+        return (int) ((heightMm - (2 * Constants.MARGIN_MM)) / holeSpacingMm);
     }
 
     public Pane getBoardPane() { return boardPane; }
+    public Pane getComponentLayer() { return componentLayer; }
+    /**
+     * Set what draws the components at the simplified detail level, in the
+     * layer's screen-space coordinates.
+     */
+    public void setComponentPainter(TiledCanvasLayer.TilePainter painter) {
+        this.componentPainter = painter;
+        invalidate(BoardLayer.COMPONENTS);
+    }
+    public Pane getPreviewLayer() { return previewLayer; }
+    public RenderScheduler getRenderScheduler() { return renderScheduler; }
     public BoardType getType() { return type; }
-    public void setType(BoardType type) { this.type = type; renderBoard(); }
+    public void setType(BoardType type) {
+        if (this.type == type) return;
+        // Board type only changes the copper strips
+        this.type = type;
+        invalidate(BoardLayer.COPPER);
+        invalidateNets();
+        fireSettingsChanged();
+    }
     public BoardSide getSide() { return side; }
-    public void setSide(BoardSide side) { this.side = side; renderBoard(); }
+    public void setSide(BoardSide side) {
+        if (this.side == side) return;
+        this.side = side;
+        invalidate(BoardLayer.SUBSTRATE);
+        fireSettingsChanged();
+    }
     public void setDimensions(double widthMm, double heightMm, double holeSpacingMm) {
+        if (this.widthMm == widthMm && this.heightMm == heightMm && this.holeSpacingMm == holeSpacingMm) return;
         this.widthMm = widthMm;
         this.heightMm = heightMm;
+        boolean pitchChanged = this.holeSpacingMm != holeSpacingMm;
         this.holeSpacingMm = holeSpacingMm;
-        renderBoard();
+        // Each keystroke lands here; the grid follows once the render does
+        resizePending = true;
+        invalidateGeometry();
+        invalidateNets();
+        if (pitchChanged) {
+            for (Runnable listener : gridListeners) {
+                listener.run();
+            }
+        }
+        fireSettingsChanged();
     }
     public void setScaleFactor(double scaleFactor) {
+        if (this.scaleFactor == scaleFactor) return;
+        // Zoom is a transform: model-space layers are not touched, the
+        // screen-space tiles repaint what is visible
         this.scaleFactor = scaleFactor;
-        renderBoard();
+        zoom.setX(scaleFactor);
+        zoom.setY(scaleFactor);
+        invalidate(BoardLayer.SUBSTRATE);
+        invalidate(BoardLayer.COPPER);
+        invalidate(BoardLayer.COMPONENTS);
+        for (DoubleConsumer listener : zoomListeners) {
+            listener.accept(scaleFactor);
+        }
+    }
+    private void invalidateGeometry() {
+        invalidate(BoardLayer.SUBSTRATE);
+        invalidate(BoardLayer.COPPER);
+        invalidate(BoardLayer.COMPONENTS);
+        invalidate(BoardLayer.JUMPERS);
     }
     public double getScaleFactor() { return scaleFactor; }
-    public List<Line> getJumpers() { return jumpers; }
-}
\ No newline at end of file
+    public DetailLevel getDetailLevel() { return detailLevel; }
+    public void addDetailLevelListener(Consumer<DetailLevel> listener) { detailLevelListeners.add(listener); }
+    public void addZoomListener(DoubleConsumer listener) { zoomListeners.add(listener); }
+    // Called once per pulse after the view was panned, zoomed or resized
+    public void addViewportListener(Runnable listener) { viewportListeners.add(listener); }
+    public void addGridListener(Runnable listener) { gridListeners.add(listener); }
+    // Called after the model was reset to a new grid size, inside the history entry of the resize;
+    // listeners record their parts on it again
+    public void addResizeListener(Runnable listener) { resizeListeners.add(listener); }
+    // Called after the type, side or dimensions changed
+    public void addSettingsListener(Runnable listener) { settingsListeners.add(listener); }
+    // Called with each jumper added (true) or removed (false)
+    public void addJumperListener(BiConsumer<Jumper, Boolean> listener) { jumperListeners.add(listener); }
+    public double getWidthMm() { return widthMm; }
+    public double getHeightMm() { return heightMm; }
+    public double getHoleSpacingMm() { return holeSpacingMm; }
+    public List<Jumper> getJumpers() { return jumpers; }
+    /**
+     * Hole state of the board, brought up to the current dimensions first.
+     */
+    public BoardModel getModel() {
+        applyPendingResize();
+        return model;
+    }
+
+    /**
+     * Move the model onto the current grid and record what is on the board
+     * again. Jumpers with an end off the grid are removed, as are parts that
+     * no longer fit (by the resize listeners), all as one history entry so
+     * that growing the board back and undoing restores them.
+     */
+    void applyPendingResize() {
+        if (!resizePending) {
+            return;
+        }
+        resizePending = false;
+        if (model.getCols() == getCols() && model.getRows() == getRows()) {
+            return;
+        }
+        model.reset(getCols(), getRows());
+        if (history != null) {
+            history.beginEntry();
+        }
+        List<Jumper> kept = new ArrayList<>(jumpers.size());
+        for (Jumper jumper : new ArrayList<>(jumpers)) {
+            if (model.inBounds(jumper.getStartCol(), jumper.getStartRow()) && model.inBounds(jumper.getEndCol(), jumper.getEndRow())) {
+                kept.add(jumper);
+                continue;
+            }
+            if (history != null) {
+                history.recordJumper(false, jumper.getStartCol(), jumper.getStartRow(), jumper.getEndCol(), jumper.getEndRow());
+            }
+            removeJumper(jumper.getStartCol(), jumper.getStartRow(), jumper.getEndCol(), jumper.getEndRow());
+        }
+        for (Jumper jumper : kept) {
+            model.addJumperEnd(jumper.getStartCol(), jumper.getStartRow());
+            model.addJumperEnd(jumper.getEndCol(), jumper.getEndRow());
+        }
+        for (Runnable listener : resizeListeners) {
+            listener.run();
+        }
+        invalidateNets();
+    }
+    void setHistory(EditHistory history) { this.history = history; }
+}
@@ -0,0 +1,12 @@
+package com.perfboarddesigner.model;
+
+/**
+ * Independently repainted layers of a board, from bottom to top.
+ */
+public enum BoardLayer {
+    SUBSTRATE,   // board outline, background and holes
+    COPPER,      // strips of stripboard and mixed boards
+    COMPONENTS,  // placed component visuals
+    JUMPERS,     // finished jumper wires
+    PREVIEW      // temporary feedback such as the jumper being dragged
+}
@@ -0,0 +1,159 @@
+package com.perfboarddesigner.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Hole-level state of a board, kept in flat arrays indexed by
+ * {@code row * cols + col}. Every lookup is O(1) and independent of the
+ * scene graph.
+ *
+ * Components are referred to by integer handles handed out by
+ * {@link ComponentManager}; {@link #NONE} marks a free hole.
+ */
+public class BoardModel {
+    public static final int NONE = 0;
+
+    private int cols;
+    private int rows;
+    private int[] owner;        // Handle of the component on the hole (pin or body)
+    private byte[] pinNumber;   // 1-based pin of the owner in the hole, 0 if only body
+    private BitSet occupied;    // owner != NONE
+    private short[] jumperEnds; // Jumper endpoints in the hole
+
+    public BoardModel(int cols, int rows) {
+        allocate(Math.max(cols, 0), Math.max(rows, 0));
+    }
+
+    private void allocate(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+        int size = cols * rows;
+        this.owner = new int[size];
+        this.pinNumber = new byte[size];
+        this.occupied = new BitSet(size);
+        this.jumperEnds = new short[size];
+    }
+
+    /**
+     * Start over on a grid of the given size with every hole free. Whoever
+     * owns parts or jumpers records them again, so nothing that lies off the
+     * new grid is dropped without them knowing.
+     */
+    public void reset(int newCols, int newRows) {
+        allocate(Math.max(newCols, 0), Math.max(newRows, 0));
+    }
+
+    public boolean inBounds(int col, int row) {
+        return col >= 0 && row >= 0 && col < cols && row < rows;
+    }
+
+    public int index(int col, int row) {
+        return row * cols + col;
+    }
+
+    public int getOwner(int col, int row) {
+        return inBounds(col, row) ? owner[index(col, row)] : NONE;
+    }
+
+    public boolean isOccupied(int col, int row) {
+        return inBounds(col, row) && occupied.get(index(col, row));
+    }
+
+    /**
+     * Pin number (1-based) of the component pin sitting in the hole, 0 if none.
+     */
+    public int getPinNumber(int col, int row) {
+        return inBounds(col, row) ? pinNumber[index(col, row)] & 0xFF : 0;
+    }
+
+    /**
+     * Whether the footprint anchored at (col, row) lies on the board and only
+     * covers holes that are free or already owned by the given handle.
+     */
+    public boolean canPlace(int handle, Footprint footprint, int col, int row) {
+        int c0 = col + footprint.getMinCol();
+        int r0 = row + footprint.getMinRow();
+        int c1 = col + footprint.getMaxCol();
+        int r1 = row + footprint.getMaxRow();
+        if (!inBounds(c0, r0) || !inBounds(c1, r1)) {
+            return false;
+        }
+        for (int r = r0; r <= r1; r++) {
+            int base = r * cols;
+            for (int c = c0; c <= c1; c++) {
+                int current = owner[base + c];
+                if (current != NONE && current != handle) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Record the footprint. Holes outside the board are skipped.
+     */
+    public void place(int handle, Footprint footprint, int col, int row) {
+        forEachBodyHole(footprint, col, row, i -> {
+            owner[i] = handle;
+            occupied.set(i);
+        });
+        for (int pin = 0; pin < footprint.getPinCount(); pin++) {
+            int c = col + footprint.getPinCol(pin);
+            int r = row + footprint.getPinRow(pin);
+            if (inBounds(c, r)) {
+                pinNumber[index(c, r)] = (byte) (pin + 1);
+            }
+        }
+    }
+
+    /**
+     * Clear the holes of the footprint that still belong to the given handle.
+     */
+    public void remove(int handle, Footprint footprint, int col, int row) {
+        forEachBodyHole(footprint, col, row, i -> {
+            if (owner[i] == handle) {
+                owner[i] = NONE;
+                pinNumber[i] = 0;
+                occupied.clear(i);
+            }
+        });
+    }
+
+    private void forEachBodyHole(Footprint footprint, int col, int row, IntConsumer action) {
+        int c0 = Math.max(0, col + footprint.getMinCol());
+        int r0 = Math.max(0, row + footprint.getMinRow());
+        int c1 = Math.min(cols - 1, col + footprint.getMaxCol());
+        int r1 = Math.min(rows - 1, row + footprint.getMaxRow());
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                action.accept(r * cols + c);
+            }
+        }
+    }
+
+    public void addJumperEnd(int col, int row) {
+        if (inBounds(col, row)) {
+            jumperEnds[index(col, row)]++;
+        }
+    }
+
+    public void removeJumperEnd(int col, int row) {
+        if (inBounds(col, row) && jumperEnds[index(col, row)] > 0) {
+            jumperEnds[index(col, row)]--;
+        }
+    }
+
+    public int getJumperEndCount(int col, int row) {
+        return inBounds(col, row) ? jumperEnds[index(col, row)] : 0;
+    }
+
+    public void clearJumperEnds() {
+        Arrays.fill(jumperEnds, (short) 0);
+    }
+
+    public int getCols() { return cols; }
+    public int getRows() { return rows; }
+}
@@ -6,9 +6,6 @@ import javafx.scene.shape.Arc;
 import javafx.scene.shape.ArcType;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Rectangle;
-import javafx.scene.control.TextField;
-import javafx.scene.control.Label;
-import javafx.scene.layout.VBox;
 
 public class Capacitor extends Component {
     private String value; // e.g., "100uF", "0.1uF"
@@ -97,25 +94,14 @@ public class Capacitor extends Component {
             }
         }
 
-        // Value input field
-        VBox controlBox = new VBox(5);
-        controlBox.setLayoutY(bodyHeight + 5);
-        
-        Label typeLabel = new Label(capacitorType + " Capacitor");
-        TextField valueField = new TextField(value);
-        valueField.setPrefWidth(bodyWidth);
-        
-        valueField.textProperty().addListener((obs, oldVal, newVal) -> {
-            this.value = newVal;
-            this.capacitanceF = parseCapacitance(newVal);
-        });
-        
-        controlBox.getChildren().addAll(typeLabel, valueField);
-        capacitorPane.getChildren().add(controlBox);
-
-        capacitorPane.setPrefSize(bodyWidth + (pins >= 2 ? bodyWidth / 2 : 0), bodyHeight + 60);
+        capacitorPane.setPrefSize(bodyWidth + (pins >= 2 ? bodyWidth / 2 : 0), bodyHeight);
         return capacitorPane;
     }
+
+    @Override
+    public String getVisualKey() {
+        return "capacitor:" + capacitorType + "|" + pins;
+    }
     
     private Color getCapacitorColor() {
         switch (capacitorType) {
@@ -144,7 +130,11 @@ public class Capacitor extends Component {
 
     // Getters and setters
     public String getValue() { return value; }
-    public void setValue(String value) { this.value = value; }
+    public void setValue(String value) {
+        this.value = value;
+        this.capacitanceF = parseCapacitance(value);
+    }
+    public double getCapacitanceF() { return capacitanceF; }
     public String getCapacitorType() { return capacitorType; }
     public void setCapacitorType(String capacitorType) { this.capacitorType = capacitorType; }
 }
@@ -18,4 +18,26 @@ public abstract class Component {
     }
 
     public abstract Pane render();
+
+    public String getName() { return name; }
+    public String getType() { return type; }
+    public int getPins() { return pins; }
+
+    /**
+     * Everything that determines what render() draws, or null if the visual
+     * is interactive or otherwise unique. Components with equal keys may share
+     * one cached rendering.
+     */
+    public String getVisualKey() {
+        return null;
+    }
+
+    /**
+     * Holes used by this component before any placement rotation. By default
+     * the pins sit in one row, one hole apart.
+     */
+    public Footprint getFootprint() {
+        int pinCount = Math.max(pins, 1);
+        return Footprint.inline(pinCount, pinCount - 1);
+    }
 }
\ No newline at end of file
@@ -1,174 +1,1307 @@
 package com.perfboarddesigner.model;
 
-import com.perfboarddesigner.Constants;
+import com.perfboarddesigner.render.DetailLevel;
+import com.perfboarddesigner.render.DiskImageCache;
+import com.perfboarddesigner.render.RenderCache;
+import com.perfboarddesigner.render.RenderScheduler;
+import com.perfboarddesigner.render.SpriteAtlas;
+import com.perfboarddesigner.util.SVGLoader;
+import javafx.collections.ObservableList;
+import javafx.geometry.Bounds;
+import javafx.scene.Cursor;
 import javafx.scene.Node;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.effect.DropShadow;
+import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Transform;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class ComponentManager {
+    private static final DropShadow SELECTION_EFFECT = new DropShadow(8, Color.DODGERBLUE);
+    private static final int RENDER_CACHE_SIZE = 128;
+    private static final long SPRITE_MEMORY_BUDGET = 32L << 20; // bytes
+    // How far a visual may reach past its footprint, in holes
+    private static final int SPRITE_REACH = 2;
+    // How close the pointer must come to a part to pick it once holes are smaller than this, in screen pixels
+    private static final double PICK_SLOP_PX = 6;
+
     private Board board;
+    // Kept in the same order as the component layer's children, so a
+    // component's index locates its node as well
     private List<PlacedComponent> placedComponents;
-    private PlacedComponent selectedComponent;
+    // Indexed by handle; slot 0 stays empty because BoardModel.NONE is 0.
+    // Removed components stay here while the edit history names them, so it
+    // can bring them back; after that their slot is cleared and reused.
+    private List<PlacedComponent> componentsByHandle;
+    private int[] freeHandles = new int[16];
+    private int freeHandleCount;
+    // The parts held by handle for each Component, which all change when it is edited
+    private final Map<Component, List<PlacedComponent>> copiesByComponent = new IdentityHashMap<>();
+    // Parts rendered while their drawing was loading, to be rendered again once it is in
+    private final Set<Component> awaitingDrawing = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Footprint bounds in holes, for area and nearest queries
+    private SpatialIndex<PlacedComponent> componentIndex = new SpatialIndex<>();
+    private final Set<PlacedComponent> selection = new LinkedHashSet<>();
+    private PlacedComponent selectedComponent; // Most recently selected
+    private PlacedComponent notifiedSelection; // Last primary selection reported to listeners
+    private final List<Consumer<PlacedComponent>> selectionListeners = new ArrayList<>();
+    // Parts added, moved, turned or removed since the last pulse, reported together
+    private final List<PlacedComponent> pendingChanges = new ArrayList<>();
+    private final RenderScheduler changeScheduler = new RenderScheduler(this::fireChanges);
+    private final List<Consumer<List<PlacedComponent>>> changeListeners = new ArrayList<>();
+    private final List<Consumer<Component>> componentEditListeners = new ArrayList<>();
     private boolean gridSnapEnabled = true;
     private double snapTolerance = 5.0; // pixels
+    private DetailLevel detailLevel;
+    // Zoomed in past the render cache's resolution, where its shared bitmaps would blur
+    private boolean vectorDetail;
+    // State of the drag in progress; the whole selection moves together
+    private PlacedComponent[] dragGroup;
+    private int[] dragStartCols, dragStartRows;
+    private double[] dragStartXs, dragStartYs;
+    private int dragCols, dragRows; // Offset in holes currently applied
+    private double dragPressSceneX, dragPressSceneY;
+    private double dragScale, dragPitchPx;
+    // Stacking is done with viewOrder, so child order is free for bookkeeping
+    private double frontViewOrder = 0;
+    // Model edits happen at once; their nodes are laid out together on the next pulse
+    private final List<PlacedComponent> pendingLayout = new ArrayList<>();
+    private final RenderScheduler layoutScheduler = new RenderScheduler(this::applyPendingLayout);
+    private PlacedComponent hovered;
+    private Rectangle rubberBand;
+    private double bandStartX, bandStartY;
+    private final EditHistory history;
+    // Rendered visuals shared between identical parts, and kept on disk for the next run
+    private final RenderCache renderCache = new RenderCache(RENDER_CACHE_SIZE, DiskImageCache.getDefault());
+    // The same visuals as bitmaps per zoom, drawn onto the board's canvas when zoomed out
+    private final SpriteAtlas spriteAtlas = new SpriteAtlas(SPRITE_MEMORY_BUDGET, DiskImageCache.getDefault());
 
     public ComponentManager(Board board) {
         this.board = board;
         this.placedComponents = new ArrayList<>();
+        this.componentsByHandle = new ArrayList<>();
+        componentsByHandle.add(null);
+        this.detailLevel = board.getDetailLevel();
+        board.addDetailLevelListener(this::applyDetailLevel);
+        this.vectorDetail = board.getScaleFactor() > RenderCache.SNAPSHOT_SCALE;
+        board.addZoomListener(this::applyZoom);
+        board.addViewportListener(this::sharpenVisible);
+        board.addGridListener(this::relayoutComponents);
+        board.addResizeListener(this::replaceAfterResize);
+        board.setComponentPainter(this::paintSprites);
+        installSelectionHandlers();
+        this.history = new EditHistory(this, board);
+    }
+
+    /**
+     * Place a component at the given model-space position. If its holes are
+     * taken, the nearest free spot is used instead.
+     *
+     * @return the placed component, or null if the board has no room for it
+     */
+    public PlacedComponent addComponent(Component component, double x, double y) {
+        Footprint footprint = component.getFootprint();
+        long cell = findFreeCell(nextHandle(), footprint, Math.max(0, board.colAt(x)), Math.max(0, board.rowAt(y)));
+        if (cell < 0) {
+            return null;
+        }
+        int col = (int) (cell >> 32);
+        int row = (int) cell;
+        if (gridSnapEnabled || col != board.colAt(x) || row != board.rowAt(y)) {
+            // Snap to the hole the component was recorded at
+            x = board.colX(col);
+            y = board.rowY(row);
+        }
+
+        // Add visual representation to board
+        Pane componentPane = renderDetail(component);
+        PlacedComponent placedComponent = place(component, footprint, col, row, x, y, componentPane);
+        placedComponent.baseRotate = componentPane.getRotate();
+        placedComponent.view = getViewFor(placedComponent, detailLevel);
+        layoutView(placedComponent);
+
+        board.getComponentLayer().getChildren().add(placedComponent.view);
+        history.beginEntry();
+        history.recordAdd(placedComponent.handle);
+        return placedComponent;
     }
 
-    public void addComponent(Component component, double x, double y) {
-        // Apply current board scale to components
-        if (component instanceof SVGComponent) {
-            ((SVGComponent) component).setScaleFactor(board.getScaleFactor());
-        } else if (component instanceof DIPChip) {
-            ((DIPChip) component).setScaleFactor(board.getScaleFactor());
+    // Parts with a visual key share a cached rendering
+    private Pane renderDetail(Component component) {
+        String visualKey = component.getVisualKey();
+        if (visualKey != null) {
+            return renderCache.getOrCreate(visualKey, component::render).newInstance();
+        }
+        if (component instanceof SVGComponent && awaitingDrawing.add(component)) {
+            // Possibly drawn with its fallback, as the drawing is still loading
+            SVGLoader.whenLoaded(((SVGComponent) component).getSvgFileName(), () -> redrawLoaded(component));
+        }
+        return component.render();
+    }
+
+    // Render the copies of a part again now that its drawing is in
+    private void redrawLoaded(Component component) {
+        awaitingDrawing.remove(component);
+        List<PlacedComponent> copies = copiesByComponent.get(component);
+        if (copies == null) {
+            return; // Forgotten meanwhile
+        }
+        // Its fallback sprites were keyed by the Component, as it had no visual key then
+        spriteAtlas.invalidate(component);
+        renderCopies(component, copies);
+    }
+
+    /**
+     * Render a component again after its properties changed, keeping its
+     * anchor hole, rotation and selection. Copies sharing the same Component
+     * are refreshed with it.
+     *
+     * @return false if the new footprint does not fit, in which case nothing
+     *         was changed and the caller should restore the old properties
+     */
+    public boolean refreshComponent(PlacedComponent placedComponent) {
+        Component component = placedComponent.component;
+        List<PlacedComponent> copies = copiesByComponent.getOrDefault(component, List.of());
+        List<PlacedComponent> onBoard = new ArrayList<>();
+        for (PlacedComponent other : copies) {
+            if (other.index >= 0) {
+                onBoard.add(other);
+            }
         }
-        
-        if (gridSnapEnabled) {
-            // Snap to nearest grid point
-            double[] snappedPos = snapToGrid(x, y);
-            x = snappedPos[0];
-            y = snappedPos[1];
+        // Properties such as grid units or orientation decide which holes are used
+        Footprint footprint = component.getFootprint();
+        for (PlacedComponent member : onBoard) {
+            member.targetCol = member.col;
+            member.targetRow = member.row;
+            member.targetFootprint = footprint.rotated(member.getRotation());
         }
-        
+        if (!relocate(onBoard.toArray(new PlacedComponent[0]))) {
+            return false;
+        }
+        if (component.getVisualKey() == null) {
+            // Sprites of keyless parts are keyed by the Component, which has just changed
+            spriteAtlas.invalidate(component);
+        }
+        for (Consumer<Component> listener : componentEditListeners) {
+            listener.accept(component);
+        }
+        for (PlacedComponent other : copies) {
+            other.footprint = footprint.rotated(other.getRotation());
+        }
+        renderCopies(component, copies);
+        board.refreshNetHighlight();
+        return true;
+    }
+
+    // Swap a freshly rendered visual into every copy of the component
+    private void renderCopies(Component component, List<PlacedComponent> copies) {
+        ObservableList<Node> children = board.getComponentLayer().getChildren();
+        for (PlacedComponent other : copies) {
+            // With a visual key only the first copy renders; the rest hit the cache
+            Pane detail = renderDetail(component);
+            other.detailView = detail;
+            other.vectorView = null;
+            other.baseRotate = detail.getRotate();
+            other.footprintView = null; // Sized from the detail view, so rebuilt on demand
+            if (other.index >= 0) {
+                other.view = getViewFor(other, detailLevel);
+                layoutView(other);
+                children.set(other.index, other.view);
+            }
+        }
+    }
+
+    // Register a component on holes already known to be free; its view is not added to the layer
+    private PlacedComponent place(Component component, Footprint footprint, int col, int row, double x, double y, Node detailView) {
         PlacedComponent placedComponent = new PlacedComponent(component, x, y);
+        int handle;
+        if (freeHandleCount > 0) {
+            handle = freeHandles[--freeHandleCount];
+            componentsByHandle.set(handle, placedComponent);
+        } else {
+            handle = componentsByHandle.size();
+            componentsByHandle.add(placedComponent);
+        }
+        placedComponent.handle = handle;
+        placedComponent.col = col;
+        placedComponent.row = row;
+        placedComponent.footprint = footprint;
+        List<PlacedComponent> copies = copiesByComponent.computeIfAbsent(component, key -> new ArrayList<>());
+        placedComponent.copyIndex = copies.size();
+        copies.add(placedComponent);
+        board.getModel().place(handle, footprint, col, row);
+        indexComponent(placedComponent);
+        markChanged(placedComponent);
+        placedComponent.index = placedComponents.size();
         placedComponents.add(placedComponent);
-        
-        // Add visual representation to board
-        Pane componentPane = component.render();
-        componentPane.setLayoutX(x);
-        componentPane.setLayoutY(y);
-        
-        // Add drag functionality
-        setupDragHandlers(componentPane, placedComponent);
-        
-        board.getBoardPane().getChildren().add(componentPane);
-    }
-    
-    private void setupDragHandlers(Pane componentPane, PlacedComponent placedComponent) {
-        final double[] mouseAnchor = new double[2];
-        
-        componentPane.setOnMousePressed((MouseEvent event) -> {
-            mouseAnchor[0] = event.getSceneX();
-            mouseAnchor[1] = event.getSceneY();
-            selectedComponent = placedComponent;
-            componentPane.toFront();
-            event.consume();
-        });
-        
-        componentPane.setOnMouseDragged((MouseEvent event) -> {
-            if (selectedComponent == placedComponent) {
-                double deltaX = event.getSceneX() - mouseAnchor[0];
-                double deltaY = event.getSceneY() - mouseAnchor[1];
-                
-                double newX = placedComponent.getX() + deltaX;
-                double newY = placedComponent.getY() + deltaY;
-                
-                if (gridSnapEnabled) {
-                    double[] snappedPos = snapToGrid(newX, newY);
-                    newX = snappedPos[0];
-                    newY = snappedPos[1];
+        placedComponent.detailView = detailView;
+        return placedComponent;
+    }
+
+    /**
+     * Step and repeat the selection as a grid of copies, the original block
+     * being the top-left one. Copies share the original's Component and a
+     * single rendered image of it instead of each building its own pane.
+     * Blocks that would not fit on free holes are skipped.
+     *
+     * @return the number of blocks placed, not counting the original
+     */
+    public int replicateSelection(int columns, int rows, int pitchCols, int pitchRows) {
+        if (selection.isEmpty()) {
+            return 0;
+        }
+        PlacedComponent[] block = selection.toArray(new PlacedComponent[0]);
+        RenderCache.Prototype[] prototypes = new RenderCache.Prototype[block.length];
+        for (int i = 0; i < block.length; i++) {
+            prototypes[i] = renderPrototype(block[i]);
+        }
+        double pitch = board.getPitchPx();
+        List<Node> views = new ArrayList<>();
+        history.beginEntry();
+        int placedBlocks = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (r == 0 && c == 0) {
+                    continue;
+                }
+                int dCols = c * pitchCols;
+                int dRows = r * pitchRows;
+                if (!blockFits(block, dCols, dRows)) {
+                    continue;
+                }
+                for (int i = 0; i < block.length; i++) {
+                    PlacedComponent source = block[i];
+                    PlacedComponent copy = place(source.component, source.footprint,
+                        source.col + dCols, source.row + dRows,
+                        source.getX() + dCols * pitch, source.getY() + dRows * pitch, prototypes[i].newInstance());
+                    copy.setRotation(source.getRotation());
+                    copy.baseRotate = source.baseRotate;
+                    copy.view = getViewFor(copy, detailLevel);
+                    layoutView(copy);
+                    views.add(copy.view);
+                    history.recordAdd(copy.handle);
+                }
+                placedBlocks++;
+            }
+        }
+        // One change to the layer for the whole array
+        board.getComponentLayer().getChildren().addAll(views);
+        board.refreshNetHighlight();
+        return placedBlocks;
+    }
+
+    private boolean blockFits(PlacedComponent[] block, int dCols, int dRows) {
+        BoardModel model = board.getModel();
+        int newHandle = nextHandle();
+        for (PlacedComponent source : block) {
+            if (!model.canPlace(newHandle, source.footprint, source.col + dCols, source.row + dRows)) {
+                return false;
+            }
+        }
+        // Parts of one block never overlap each other, so checking them one by one is enough
+        return true;
+    }
+
+    /**
+     * Put components straight onto recorded holes, e.g. when a project is
+     * opened. Entries may repeat a Component to place copies that share it.
+     * Parts whose holes are taken or off the board are skipped, and nothing
+     * is recorded in the edit history.
+     *
+     * @param quarterTurns clockwise rotation of each part in quarter turns
+     * @return the number of parts placed
+     */
+    public int placeAll(List<Component> components, int[] cols, int[] rows, int[] quarterTurns) {
+        BoardModel model = board.getModel();
+        List<Node> views = new ArrayList<>(components.size());
+        for (int i = 0; i < components.size(); i++) {
+            Component component = components.get(i);
+            double rotation = Math.floorMod(quarterTurns[i], 4) * 90;
+            Footprint footprint = component.getFootprint().rotated(rotation);
+            if (!model.canPlace(nextHandle(), footprint, cols[i], rows[i])) {
+                continue;
+            }
+            Pane detail = renderDetail(component);
+            PlacedComponent placedComponent = place(component, footprint, cols[i], rows[i],
+                board.colX(cols[i]), board.rowY(rows[i]), detail);
+            placedComponent.setRotation(rotation);
+            placedComponent.baseRotate = detail.getRotate();
+            placedComponent.view = getViewFor(placedComponent, detailLevel);
+            layoutView(placedComponent);
+            views.add(placedComponent.view);
+        }
+        // One change to the layer for the whole design
+        board.getComponentLayer().getChildren().addAll(views);
+        board.refreshNetHighlight();
+        return views.size();
+    }
+
+    /**
+     * Cached rendering of the component's detailed visual. Parts without a
+     * visual key are cached per Component, so all copies of one part share it.
+     */
+    private RenderCache.Prototype renderPrototype(PlacedComponent source) {
+        String visualKey = source.component.getVisualKey();
+        return renderCache.getOrCreate(visualKey != null ? visualKey : source.component, () -> source.detailView);
+    }
+
+    /**
+     * Put a removed component back on its recorded holes, e.g. on undo.
+     */
+    boolean restoreByHandle(int handle) {
+        PlacedComponent placedComponent = handle > 0 && handle < componentsByHandle.size() ? componentsByHandle.get(handle) : null;
+        if (placedComponent == null || placedComponent.index >= 0) {
+            return false;
+        }
+        BoardModel model = board.getModel();
+        if (!model.canPlace(handle, placedComponent.footprint, placedComponent.col, placedComponent.row)) {
+            return false;
+        }
+        model.place(handle, placedComponent.footprint, placedComponent.col, placedComponent.row);
+        indexComponent(placedComponent);
+        markChanged(placedComponent);
+        placedComponent.index = placedComponents.size();
+        placedComponents.add(placedComponent);
+        placedComponent.view = getViewFor(placedComponent, detailLevel);
+        layoutView(placedComponent);
+        board.getComponentLayer().getChildren().add(placedComponent.view);
+        board.refreshNetHighlight();
+        return true;
+    }
+
+    // The handle the next placed part gets, which owns no holes yet
+    private int nextHandle() {
+        return freeHandleCount > 0 ? freeHandles[freeHandleCount - 1] : componentsByHandle.size();
+    }
+
+    /**
+     * Forget a removed component once the edit history no longer names it,
+     * so neither it nor its rendered nodes stay reachable, and hand its
+     * handle out again. Parts on the board are kept.
+     */
+    void releaseHandle(int handle) {
+        PlacedComponent placedComponent = handle > 0 && handle < componentsByHandle.size() ? componentsByHandle.get(handle) : null;
+        if (placedComponent == null || placedComponent.index >= 0) {
+            return;
+        }
+        componentsByHandle.set(handle, null);
+        if (freeHandleCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeHandleCount * 2);
+        }
+        freeHandles[freeHandleCount++] = handle;
+        // Swap the last copy into its slot, as placedComponents does
+        List<PlacedComponent> copies = copiesByComponent.get(placedComponent.component);
+        PlacedComponent last = copies.remove(copies.size() - 1);
+        if (last != placedComponent) {
+            copies.set(placedComponent.copyIndex, last);
+            last.copyIndex = placedComponent.copyIndex;
+        }
+        if (copies.isEmpty()) {
+            copiesByComponent.remove(placedComponent.component);
+        }
+        placedComponent.detailView = null;
+        placedComponent.vectorView = null;
+        placedComponent.footprintView = null;
+        placedComponent.view = null;
+    }
+
+    void detachByHandle(int handle) {
+        if (handle > 0 && handle < componentsByHandle.size() && componentsByHandle.get(handle) != null) {
+            detachComponent(componentsByHandle.get(handle));
+        }
+    }
+
+    /**
+     * Shift and turn components by handle as one transaction, e.g. on undo.
+     * Turns are in quarter turns clockwise.
+     */
+    boolean relocateByHandle(int[] handles, int[] cols, int[] rows, int[] turns) {
+        PlacedComponent[] group = new PlacedComponent[handles.length];
+        for (int i = 0; i < handles.length; i++) {
+            PlacedComponent member = componentsByHandle.get(handles[i]);
+            if (member == null || member.index < 0) {
+                return false;
+            }
+            member.targetCol = member.col + cols[i];
+            member.targetRow = member.row + rows[i];
+            member.targetFootprint = turns[i] == 0 ? member.footprint
+                : member.component.getFootprint().rotated(member.getRotation() + turns[i] * 90);
+            group[i] = member;
+        }
+        if (!relocate(group)) {
+            return false;
+        }
+        double pitch = board.getPitchPx();
+        for (int i = 0; i < group.length; i++) {
+            PlacedComponent member = group[i];
+            member.setRotation(((member.getRotation() + turns[i] * 90) % 360 + 360) % 360);
+            member.setX(member.getX() + cols[i] * pitch);
+            member.setY(member.getY() + rows[i] * pitch);
+            queueLayout(member);
+        }
+        board.refreshNetHighlight();
+        return true;
+    }
+
+    /**
+     * Nearest anchor hole, searching outwards ring by ring from (col, row),
+     * where the footprint fits. Only the perimeter of each ring is visited.
+     * Returns (col << 32 | row), or -1 if none.
+     */
+    private long findFreeCell(int handle, Footprint footprint, int col, int row) {
+        BoardModel model = board.getModel();
+        if (model.canPlace(handle, footprint, col, row)) {
+            return packCell(col, row);
+        }
+        int maxRadius = Math.max(model.getCols(), model.getRows());
+        for (int radius = 1; radius <= maxRadius; radius++) {
+            // Top and bottom edges in full, then the sides between them
+            for (int c = col - radius; c <= col + radius; c++) {
+                if (model.canPlace(handle, footprint, c, row - radius)) {
+                    return packCell(c, row - radius);
+                }
+                if (model.canPlace(handle, footprint, c, row + radius)) {
+                    return packCell(c, row + radius);
+                }
+            }
+            for (int r = row - radius + 1; r < row + radius; r++) {
+                if (model.canPlace(handle, footprint, col - radius, r)) {
+                    return packCell(col - radius, r);
                 }
-                
-                placedComponent.setX(newX);
-                placedComponent.setY(newY);
-                componentPane.setLayoutX(newX);
-                componentPane.setLayoutY(newY);
-                
-                mouseAnchor[0] = event.getSceneX();
-                mouseAnchor[1] = event.getSceneY();
-                event.consume();
+                if (model.canPlace(handle, footprint, col + radius, r)) {
+                    return packCell(col + radius, r);
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static long packCell(int col, int row) {
+        return ((long) col << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The part drawn at a model-space point, or null. The hole under the
+     * point is looked up first; parts whose drawing reaches past their
+     * footprint are then tested by bounds among the few the index holds
+     * around the point. Zoomed out until a hole is smaller than the pointer,
+     * the nearest footprint within reach is taken instead.
+     */
+    public PlacedComponent pickComponent(double modelX, double modelY) {
+        int col = board.colAt(modelX);
+        int row = board.rowAt(modelY);
+        PlacedComponent hit = getComponentAt(col, row);
+        if (hit != null) {
+            return hit;
+        }
+        for (PlacedComponent candidate : getComponentsIn(col - SPRITE_REACH, row - SPRITE_REACH, col + SPRITE_REACH, row + SPRITE_REACH)) {
+            // Lower view orders are drawn on top
+            if (candidate.view.getBoundsInParent().contains(modelX, modelY)
+                    && (hit == null || candidate.viewOrder < hit.viewOrder)) {
+                hit = candidate;
+            }
+        }
+        if (hit != null) {
+            return hit;
+        }
+        double slopHoles = PICK_SLOP_PX / (board.getPitchPx() * board.getScaleFactor());
+        return slopHoles >= 1 ? getNearestComponent(col, row, slopHoles) : null;
+    }
+
+    /**
+     * Look up the component whose body or pin occupies a hole, in O(1).
+     */
+    public PlacedComponent getComponentAt(int col, int row) {
+        int handle = board.getModel().getOwner(col, row);
+        return handle == BoardModel.NONE ? null : componentsByHandle.get(handle);
+    }
+
+    /**
+     * Components whose footprint touches the rectangle of holes (inclusive).
+     */
+    public List<PlacedComponent> getComponentsIn(int minCol, int minRow, int maxCol, int maxRow) {
+        return componentIndex.queryRect(minCol, minRow, maxCol, maxRow);
+    }
+
+    /**
+     * Component whose footprint is nearest to the hole, within maxHoles, or null.
+     */
+    public PlacedComponent getNearestComponent(int col, int row, double maxHoles) {
+        return componentIndex.nearest(col, row, maxHoles);
+    }
+
+    private void indexComponent(PlacedComponent placedComponent) {
+        Footprint footprint = placedComponent.footprint;
+        componentIndex.insert(placedComponent,
+            placedComponent.col + footprint.getMinCol(), placedComponent.row + footprint.getMinRow(),
+            placedComponent.col + footprint.getMaxCol(), placedComponent.row + footprint.getMaxRow());
+    }
+
+    /**
+     * Record every part on the model again after the board changed size.
+     * Parts that no longer lie on it are taken off the board as a delete in
+     * the resize's history entry, instead of staying drawn on holes the model
+     * has forgotten.
+     */
+    private void replaceAfterResize() {
+        BoardModel model = board.getModel();
+        List<PlacedComponent> misfits = new ArrayList<>();
+        for (PlacedComponent placedComponent : placedComponents) {
+            if (model.canPlace(placedComponent.handle, placedComponent.footprint, placedComponent.col, placedComponent.row)) {
+                model.place(placedComponent.handle, placedComponent.footprint, placedComponent.col, placedComponent.row);
+            } else {
+                misfits.add(placedComponent);
+            }
+        }
+        for (PlacedComponent misfit : misfits) {
+            history.recordDelete(misfit.handle);
+            detachComponent(misfit);
+        }
+    }
+
+    /**
+     * Move snapped components back onto their holes after the hole spacing changed.
+     */
+    private void relayoutComponents() {
+        if (!gridSnapEnabled) {
+            return;
+        }
+        for (PlacedComponent placedComponent : placedComponents) {
+            placedComponent.setX(board.colX(placedComponent.col));
+            placedComponent.setY(board.rowY(placedComponent.row));
+            queueLayout(placedComponent);
+        }
+    }
+
+    /**
+     * Swap every component to the visual of the given detail level. Detailed
+     * panes are kept, so zooming back in does not re-render them.
+     */
+    private void applyDetailLevel(DetailLevel level) {
+        if (level == detailLevel) {
+            return;
+        }
+        detailLevel = level;
+        List<Node> views = new ArrayList<>(placedComponents.size());
+        for (PlacedComponent placedComponent : placedComponents) {
+            Node view = getViewFor(placedComponent, level);
+            placedComponent.view = view;
+            layoutView(placedComponent);
+            views.add(view);
+        }
+        board.getComponentLayer().getChildren().setAll(views);
+    }
+
+    /**
+     * Past the resolution of the cached bitmaps, parts in view that show one
+     * get a vector pane of their own, so they stay sharp up to the highest
+     * zoom. The panes are let go once the zoom is back well below it.
+     */
+    private void applyZoom(double zoom) {
+        // Some slack, so zooming back and forth across the limit does not render them each time
+        boolean vector = vectorDetail ? zoom >= RenderCache.SNAPSHOT_SCALE / 2 : zoom > RenderCache.SNAPSHOT_SCALE;
+        if (vector == vectorDetail) {
+            return;
+        }
+        vectorDetail = vector;
+        if (vector) {
+            return; // The viewport has changed too, so sharpenVisible follows on this pulse
+        }
+        ObservableList<Node> children = board.getComponentLayer().getChildren();
+        for (PlacedComponent placedComponent : componentsByHandle) {
+            if (placedComponent == null || placedComponent.vectorView == null) {
+                continue;
+            }
+            placedComponent.vectorView = null;
+            if (placedComponent.index >= 0) {
+                placedComponent.view = getViewFor(placedComponent, detailLevel);
+                layoutView(placedComponent);
+                children.set(placedComponent.index, placedComponent.view);
+            }
+        }
+    }
+
+    // Give the parts that scrolled into view their vector panes
+    private void sharpenVisible() {
+        if (!vectorDetail || detailLevel != DetailLevel.FULL) {
+            return;
+        }
+        ObservableList<Node> children = board.getComponentLayer().getChildren();
+        forEachInView(placedComponent -> {
+            if (placedComponent.view == placedComponent.detailView && RenderCache.isSnapshot(placedComponent.detailView)) {
+                placedComponent.view = getViewFor(placedComponent, DetailLevel.FULL);
+                layoutView(placedComponent);
+                children.set(placedComponent.index, placedComponent.view);
+            }
+        });
+    }
+
+    private void forEachInView(Consumer<PlacedComponent> action) {
+        Pane pane = board.getBoardPane();
+        componentIndex.forEachIn(
+            board.colAt(board.toModelX(0)) - SPRITE_REACH, board.rowAt(board.toModelY(0)) - SPRITE_REACH,
+            board.colAt(board.toModelX(pane.getWidth())) + SPRITE_REACH,
+            board.rowAt(board.toModelY(pane.getHeight())) + SPRITE_REACH, action);
+    }
+
+    // The same test as forEachInView, on the footprint's bounding box
+    private boolean isInView(PlacedComponent placedComponent) {
+        Pane pane = board.getBoardPane();
+        Footprint footprint = placedComponent.footprint;
+        return placedComponent.col + footprint.getMaxCol() >= board.colAt(board.toModelX(0)) - SPRITE_REACH
+            && placedComponent.row + footprint.getMaxRow() >= board.rowAt(board.toModelY(0)) - SPRITE_REACH
+            && placedComponent.col + footprint.getMinCol() <= board.colAt(board.toModelX(pane.getWidth())) + SPRITE_REACH
+            && placedComponent.row + footprint.getMinRow() <= board.rowAt(board.toModelY(pane.getHeight())) + SPRITE_REACH;
+    }
+
+    private Node getViewFor(PlacedComponent placedComponent, DetailLevel level) {
+        if (level == DetailLevel.FULL) {
+            if (vectorDetail && placedComponent.vectorView == null
+                    && RenderCache.isSnapshot(placedComponent.detailView) && isInView(placedComponent)) {
+                placedComponent.vectorView = placedComponent.component.render();
+            }
+            return placedComponent.vectorView != null ? placedComponent.vectorView : placedComponent.detailView;
+        }
+        // A single rectangle covering the component's footprint
+        Rectangle block = placedComponent.footprintView;
+        if (block == null) {
+            // In the detail view's own coordinates, so it turns about the same anchor
+            Bounds bounds = placedComponent.detailView.getBoundsInLocal();
+            block = new Rectangle(bounds.getMinX(), bounds.getMinY(), bounds.getWidth(), bounds.getHeight());
+            placedComponent.footprintView = block;
+        }
+        if (level == DetailLevel.SIMPLIFIED) {
+            // The board's canvas draws the symbol; the block only stands in for it in the layer
+            block.setFill(Color.TRANSPARENT);
+            block.setStroke(null);
+        } else {
+            block.setFill(Color.DIMGRAY);
+            block.setStroke(null);
+        }
+        return block;
+    }
+
+    // Bring the current view in line with the component's state
+    private void layoutView(PlacedComponent placedComponent) {
+        Node view = placedComponent.view;
+        view.setLayoutX(placedComponent.getX());
+        view.setLayoutY(placedComponent.getY());
+        rotateView(view, placedComponent.baseRotate + placedComponent.getRotation());
+        view.setViewOrder(placedComponent.viewOrder);
+        view.setEffect(selection.contains(placedComponent) ? SELECTION_EFFECT : null);
+        repaintSprites();
+    }
+
+    /**
+     * Turn a view about its origin, which sits on the anchor hole. Footprint
+     * turns the pins about the same hole, so the drawing keeps covering the
+     * holes the model gives the part. The node's own rotate property would
+     * pivot on the centre of its bounds instead.
+     */
+    private static void rotateView(Node view, double degrees) {
+        view.setRotate(0);
+        ObservableList<Transform> transforms = view.getTransforms();
+        if (transforms.isEmpty()) {
+            transforms.add(new Rotate(degrees));
+        } else {
+            ((Rotate) transforms.get(0)).setAngle(degrees);
+        }
+    }
+
+    // The sprite canvas shows positions and selection, so it follows every change to them
+    private void repaintSprites() {
+        if (detailLevel == DetailLevel.SIMPLIFIED) {
+            board.invalidate(BoardLayer.COMPONENTS);
+        }
+    }
+
+    /**
+     * Draw the components inside the rectangle, one sprite blit each. The
+     * rectangle is in the board canvas' coordinates, model space times zoom.
+     */
+    private void paintSprites(GraphicsContext gc, double x, double y, double w, double h) {
+        paintSprites(gc, spriteAtlas, board.getScaleFactor(), x, y, w, h, true);
+    }
+
+    /**
+     * Draw the components inside the rectangle at the given scale, e.g. for
+     * an export. Sprites come from the given atlas and are rasterized from
+     * freshly rendered visuals, so they stay sharp past the render cache's
+     * resolution. The selection is not marked.
+     */
+    public void paintComponents(GraphicsContext gc, SpriteAtlas atlas, double scale, double x, double y, double w, double h) {
+        paintSprites(gc, atlas, scale, x, y, w, h, false);
+    }
+
+    private void paintSprites(GraphicsContext gc, SpriteAtlas atlas, double scale,
+                              double x, double y, double w, double h, boolean onScreen) {
+        int minCol = board.colAt(x / scale) - SPRITE_REACH;
+        int minRow = board.rowAt(y / scale) - SPRITE_REACH;
+        int maxCol = board.colAt((x + w) / scale) + SPRITE_REACH;
+        int maxRow = board.rowAt((y + h) / scale) + SPRITE_REACH;
+        gc.setStroke(SELECTION_EFFECT.getColor());
+        gc.setLineWidth(1);
+        componentIndex.forEachIn(minCol, minRow, maxCol, maxRow, placedComponent -> {
+            Component component = placedComponent.component;
+            String visualKey = component.getVisualKey();
+            SpriteAtlas.Sprite sprite = atlas.get(visualKey != null ? visualKey : component,
+                placedComponent.baseRotate + placedComponent.getRotation(), scale,
+                onScreen ? () -> placedComponent.detailView : component::render);
+            double originX = placedComponent.getX() * scale;
+            double originY = placedComponent.getY() * scale;
+            sprite.draw(gc, originX, originY, scale);
+            if (onScreen && selection.contains(placedComponent)) {
+                gc.strokeRect(sprite.getMinX(originX, scale) - 1, sprite.getMinY(originY, scale) - 1,
+                    sprite.getWidth(scale) + 2, sprite.getHeight(scale) + 2);
             }
         });
-        
-        componentPane.setOnMouseReleased((MouseEvent event) -> {
+    }
+
+    private void queueLayout(PlacedComponent placedComponent) {
+        if (!placedComponent.layoutPending) {
+            placedComponent.layoutPending = true;
+            pendingLayout.add(placedComponent);
+        }
+        layoutScheduler.requestRender();
+    }
+
+    private void applyPendingLayout() {
+        for (PlacedComponent placedComponent : pendingLayout) {
+            placedComponent.layoutPending = false;
+            if (placedComponent.index >= 0) {
+                layoutView(placedComponent);
+            }
+        }
+        pendingLayout.clear();
+    }
+
+    /**
+     * Update the selection for a click, then capture the grid transform and
+     * the start of every selected component. Each drag event is measured from
+     * here, so rounding never accumulates.
+     */
+    private void beginDrag(PlacedComponent placedComponent, MouseEvent event) {
+        if (event.isShiftDown()) {
+            // Shift-click toggles without dragging
+            if (selection.contains(placedComponent)) {
+                deselect(placedComponent);
+            } else {
+                select(placedComponent);
+            }
+            return;
+        }
+        if (!selection.contains(placedComponent)) {
+            clearSelection();
+            select(placedComponent);
+        }
+        selectedComponent = placedComponent;
+        fireSelectionChanged();
+        dragGroup = selection.toArray(new PlacedComponent[0]);
+        int count = dragGroup.length;
+        dragStartCols = new int[count];
+        dragStartRows = new int[count];
+        dragStartXs = new double[count];
+        dragStartYs = new double[count];
+        for (int i = 0; i < count; i++) {
+            PlacedComponent member = dragGroup[i];
+            dragStartCols[i] = member.col;
+            dragStartRows[i] = member.row;
+            dragStartXs[i] = member.getX();
+            dragStartYs[i] = member.getY();
+            bringToFront(member);
+        }
+        dragCols = 0;
+        dragRows = 0;
+        dragPressSceneX = event.getSceneX();
+        dragPressSceneY = event.getSceneY();
+        dragScale = board.getScaleFactor();
+        dragPitchPx = board.getPitchPx();
+    }
+
+    private void dragTo(MouseEvent event) {
+        // Components live in model space; undo the board zoom
+        double dx = (event.getSceneX() - dragPressSceneX) / dragScale;
+        double dy = (event.getSceneY() - dragPressSceneY) / dragScale;
+        int cols = (int) Math.round(dx / dragPitchPx);
+        int rows = (int) Math.round(dy / dragPitchPx);
+
+        if (cols != dragCols || rows != dragRows) {
+            for (int i = 0; i < dragGroup.length; i++) {
+                PlacedComponent member = dragGroup[i];
+                member.targetCol = dragStartCols[i] + cols;
+                member.targetRow = dragStartRows[i] + rows;
+                member.targetFootprint = member.footprint;
+            }
+            if (!relocate(dragGroup)) {
+                // Blocked: stay put until the pointer reaches free holes
+                return;
+            }
+            dragCols = cols;
+            dragRows = rows;
+        } else if (gridSnapEnabled) {
+            // Same holes: the scene graph already shows this position
+            return;
+        }
+
+        for (int i = 0; i < dragGroup.length; i++) {
+            PlacedComponent member = dragGroup[i];
+            if (gridSnapEnabled) {
+                member.setX(dragStartXs[i] + dragCols * dragPitchPx);
+                member.setY(dragStartYs[i] + dragRows * dragPitchPx);
+            } else {
+                member.setX(dragStartXs[i] + dx);
+                member.setY(dragStartYs[i] + dy);
+            }
+            queueLayout(member);
+        }
+    }
+
+    // The whole drag becomes a single history entry, however many holes it crossed
+    private void recordDrag() {
+        if (dragCols == 0 && dragRows == 0) {
+            return;
+        }
+        history.beginEntry();
+        for (PlacedComponent member : dragGroup) {
+            history.recordMove(member.handle, dragCols, dragRows);
+        }
+    }
+
+    /**
+     * Move every component of the group to its target anchor and footprint
+     * as one transaction: either all of them fit, or the model is left as it
+     * was. Nodes are not touched here.
+     */
+    private boolean relocate(PlacedComponent[] group) {
+        BoardModel model = board.getModel();
+        for (PlacedComponent member : group) {
+            model.remove(member.handle, member.footprint, member.col, member.row);
+        }
+        int placed = 0;
+        while (placed < group.length) {
+            PlacedComponent member = group[placed];
+            if (!model.canPlace(member.handle, member.targetFootprint, member.targetCol, member.targetRow)) {
+                break;
+            }
+            model.place(member.handle, member.targetFootprint, member.targetCol, member.targetRow);
+            placed++;
+        }
+        if (placed < group.length) {
+            for (int i = 0; i < placed; i++) {
+                model.remove(group[i].handle, group[i].targetFootprint, group[i].targetCol, group[i].targetRow);
+            }
+            for (PlacedComponent member : group) {
+                model.place(member.handle, member.footprint, member.col, member.row);
+            }
+            return false;
+        }
+        for (PlacedComponent member : group) {
+            member.col = member.targetCol;
+            member.row = member.targetRow;
+            member.footprint = member.targetFootprint;
+            indexComponent(member);
+            markChanged(member);
+        }
+        return true;
+    }
+
+    /**
+     * Shift the selection by whole holes.
+     *
+     * @return false if any selected component would not fit, in which case nothing moves
+     */
+    public boolean moveSelection(int cols, int rows) {
+        if (selection.isEmpty()) {
+            return false;
+        }
+        PlacedComponent[] group = selection.toArray(new PlacedComponent[0]);
+        for (PlacedComponent member : group) {
+            member.targetCol = member.col + cols;
+            member.targetRow = member.row + rows;
+            member.targetFootprint = member.footprint;
+        }
+        if (!relocate(group)) {
+            return false;
+        }
+        double pitch = board.getPitchPx();
+        history.beginEntry();
+        for (PlacedComponent member : group) {
+            member.setX(member.getX() + cols * pitch);
+            member.setY(member.getY() + rows * pitch);
+            queueLayout(member);
+            history.recordMove(member.handle, cols, rows);
+        }
+        board.refreshNetHighlight();
+        return true;
+    }
+
+    /**
+     * Turn the selection a quarter turn clockwise around the centre of its
+     * anchors, each part turning with it.
+     *
+     * @return false if the rotated parts would not fit, in which case nothing changes
+     */
+    public boolean rotateSelection() {
+        if (selection.isEmpty()) {
+            return false;
+        }
+        PlacedComponent[] group = selection.toArray(new PlacedComponent[0]);
+        int minCol = Integer.MAX_VALUE, minRow = Integer.MAX_VALUE;
+        int maxCol = Integer.MIN_VALUE, maxRow = Integer.MIN_VALUE;
+        for (PlacedComponent member : group) {
+            minCol = Math.min(minCol, member.col);
+            minRow = Math.min(minRow, member.row);
+            maxCol = Math.max(maxCol, member.col);
+            maxRow = Math.max(maxRow, member.row);
+        }
+        int pivotCol = (minCol + maxCol) / 2;
+        int pivotRow = (minRow + maxRow) / 2;
+        int[] handles = new int[group.length];
+        int[] cols = new int[group.length];
+        int[] rows = new int[group.length];
+        int[] turns = new int[group.length];
+        for (int i = 0; i < group.length; i++) {
+            PlacedComponent member = group[i];
+            handles[i] = member.handle;
+            // (col, row) -> (-row, col) is clockwise with rows growing downwards
+            cols[i] = pivotCol - (member.row - pivotRow) - member.col;
+            rows[i] = pivotRow + (member.col - pivotCol) - member.row;
+            turns[i] = 1;
+        }
+        if (!relocateByHandle(handles, cols, rows, turns)) {
+            return false;
+        }
+        history.beginEntry();
+        for (int i = 0; i < group.length; i++) {
+            history.recordRotate(handles[i], cols[i], rows[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Remove every selected component. The component list is compacted and
+     * the layer's children replaced in a single change.
+     */
+    public void deleteSelection() {
+        if (selection.size() == 1) {
+            removeComponent(selection.iterator().next());
+            return;
+        }
+        if (selection.isEmpty()) {
+            return;
+        }
+        history.beginEntry();
+        for (PlacedComponent component : selection) {
+            releaseComponent(component);
+            history.recordDelete(component.handle);
+        }
+        selection.clear();
+        selectedComponent = null;
+        fireSelectionChanged();
+        List<Node> views = new ArrayList<>(placedComponents.size());
+        int kept = 0;
+        for (PlacedComponent component : placedComponents) {
+            if (component.index >= 0) {
+                component.index = kept;
+                placedComponents.set(kept++, component);
+                views.add(component.view);
+            }
+        }
+        placedComponents.subList(kept, placedComponents.size()).clear();
+        board.getComponentLayer().getChildren().setAll(views);
+        board.refreshNetHighlight();
+    }
+
+    public void select(PlacedComponent component) {
+        if (component.index >= 0 && selection.add(component)) {
+            component.view.setEffect(SELECTION_EFFECT);
+            repaintSprites();
+        }
+        selectedComponent = component;
+        fireSelectionChanged();
+    }
+
+    public void deselect(PlacedComponent component) {
+        if (selection.remove(component)) {
+            component.view.setEffect(null);
+            repaintSprites();
+        }
+        if (selectedComponent == component) {
             selectedComponent = null;
-            event.consume();
+        }
+        fireSelectionChanged();
+    }
+
+    public void clearSelection() {
+        for (PlacedComponent component : selection) {
+            component.view.setEffect(null);
+        }
+        selection.clear();
+        selectedComponent = null;
+        repaintSprites();
+        fireSelectionChanged();
+    }
+
+    // Listeners only hear about the primary selection, and only when it changes
+    private void fireSelectionChanged() {
+        if (selectedComponent == notifiedSelection) {
+            return;
+        }
+        notifiedSelection = selectedComponent;
+        for (Consumer<PlacedComponent> listener : selectionListeners) {
+            listener.accept(selectedComponent);
+        }
+    }
+
+    /**
+     * Add every component with a hole inside the rectangle of holes to the selection.
+     */
+    public void selectIn(int minCol, int minRow, int maxCol, int maxRow) {
+        componentIndex.forEachIn(minCol, minRow, maxCol, maxRow, this::select);
+    }
+
+    private void installSelectionHandlers() {
+        // Parts are picked through the index rather than the scene graph, whose layer is mouse transparent.
+        // Shift+drag on empty board space draws a rubber band; a plain click there clears the selection.
+        Pane pane = board.getBoardPane();
+        pane.addEventFilter(MouseEvent.MOUSE_PRESSED, e -> {
+            if (e.getButton() != MouseButton.PRIMARY) {
+                return;
+            }
+            PlacedComponent picked = pickComponent(board.toModelX(e.getX()), board.toModelY(e.getY()));
+            if (picked != null) {
+                beginDrag(picked, e);
+                e.consume();
+                return;
+            }
+            if (!e.isShiftDown()) {
+                clearSelection();
+                return;
+            }
+            bandStartX = board.toModelX(e.getX());
+            bandStartY = board.toModelY(e.getY());
+            rubberBand = new Rectangle(bandStartX, bandStartY, 0, 0);
+            rubberBand.setFill(Color.rgb(30, 144, 255, 0.15));
+            rubberBand.setStroke(Color.DODGERBLUE);
+            rubberBand.setStrokeWidth(1 / board.getScaleFactor());
+            board.getPreviewLayer().getChildren().add(rubberBand);
+            e.consume();
+        });
+        pane.addEventFilter(MouseEvent.MOUSE_DRAGGED, e -> {
+            if (dragGroup != null) {
+                dragTo(e);
+                e.consume();
+            } else if (rubberBand != null) {
+                double x = board.toModelX(e.getX());
+                double y = board.toModelY(e.getY());
+                rubberBand.setX(Math.min(x, bandStartX));
+                rubberBand.setY(Math.min(y, bandStartY));
+                rubberBand.setWidth(Math.abs(x - bandStartX));
+                rubberBand.setHeight(Math.abs(y - bandStartY));
+                e.consume();
+            }
+        });
+        pane.addEventFilter(MouseEvent.MOUSE_RELEASED, e -> {
+            if (dragGroup != null) {
+                recordDrag();
+                dragGroup = null;
+                // Pins may have moved onto or off the hovered net
+                board.refreshNetHighlight();
+                e.consume();
+            } else if (rubberBand != null) {
+                // Holes strictly inside the band
+                double origin = board.getOriginPx();
+                double pitch = board.getPitchPx();
+                int minCol = (int) Math.ceil((rubberBand.getX() - origin) / pitch);
+                int minRow = (int) Math.ceil((rubberBand.getY() - origin) / pitch);
+                int maxCol = (int) Math.floor((rubberBand.getX() + rubberBand.getWidth() - origin) / pitch);
+                int maxRow = (int) Math.floor((rubberBand.getY() + rubberBand.getHeight() - origin) / pitch);
+                if (minCol <= maxCol && minRow <= maxRow) {
+                    selectIn(minCol, minRow, maxCol, maxRow);
+                }
+                board.getPreviewLayer().getChildren().remove(rubberBand);
+                rubberBand = null;
+                e.consume();
+            }
         });
+        // The pointer turns into a hand over anything that can be picked up
+        pane.addEventHandler(MouseEvent.MOUSE_MOVED, e ->
+            showHover(pickComponent(board.toModelX(e.getX()), board.toModelY(e.getY()))));
+        pane.addEventHandler(MouseEvent.MOUSE_EXITED, e -> showHover(null));
+    }
+
+    private void showHover(PlacedComponent placedComponent) {
+        if (placedComponent == hovered) {
+            return;
+        }
+        hovered = placedComponent;
+        board.getBoardPane().setCursor(placedComponent != null ? Cursor.HAND : null);
     }
-    
-    private double[] snapToGrid(double x, double y) {
-        // Get board info for proper offset calculation
-        double boardX = board.getBoardPane().getLayoutX();
-        double boardY = board.getBoardPane().getLayoutY();
-        
-        // Adjust coordinates relative to board
-        double relativeX = x - boardX;
-        double relativeY = y - boardY;
-        
-        // Convert to mm, snap to grid, convert back to pixels
-        double xMm = relativeX / Constants.MM_TO_PIXEL;
-        double yMm = relativeY / Constants.MM_TO_PIXEL;
-        
-        // Snap to hole spacing (2.54mm typically)
-        double holeSpacing = 2.54; // Standard perfboard spacing
-        double marginMm = Constants.MARGIN_MM;
-        
-        // Calculate grid position
-        int gridX = (int) Math.round((xMm - marginMm) / holeSpacing);
-        int gridY = (int) Math.round((yMm - marginMm) / holeSpacing);
-        
-        // Ensure minimum values
-        gridX = Math.max(0, gridX);
-        gridY = Math.max(0, gridY);
-        
-        // Convert back to mm and then pixels, then add board offset
-        double snappedXMm = marginMm + (gridX * holeSpacing);
-        double snappedYMm = marginMm + (gridY * holeSpacing);
-        
-        return new double[]{
-            boardX + (snappedXMm * Constants.MM_TO_PIXEL),
-            boardY + (snappedYMm * Constants.MM_TO_PIXEL)
-        };
-    }
-    
+
+    private void bringToFront(PlacedComponent placedComponent) {
+        // Lower view orders are drawn (and picked) on top
+        frontViewOrder -= 1;
+        placedComponent.viewOrder = frontViewOrder;
+        placedComponent.view.setViewOrder(frontViewOrder);
+    }
+
+    /**
+     * Remove a component in constant time: the last component is moved into
+     * its slot, both in the list and among the component layer's children.
+     */
     public void removeComponent(PlacedComponent component) {
-        placedComponents.remove(component);
-        // Remove from board pane as well
-        board.getBoardPane().getChildren().removeIf(node -> 
-            node.getUserData() == component);
+        if (component.index >= 0) {
+            history.beginEntry();
+            history.recordDelete(component.handle);
+        }
+        detachComponent(component);
     }
-    
-    public void removeSelectedComponent() {
-        if (selectedComponent != null) {
-            removeComponent(selectedComponent);
-            selectedComponent = null;
+
+    private void detachComponent(PlacedComponent component) {
+        int index = component.index;
+        if (index < 0 || index >= placedComponents.size() || placedComponents.get(index) != component) {
+            return;
+        }
+        deselect(component);
+        releaseComponent(component);
+        int last = placedComponents.size() - 1;
+        PlacedComponent moved = placedComponents.remove(last);
+        ObservableList<Node> children = board.getComponentLayer().getChildren();
+        Node movedView = children.remove(last);
+        if (index != last) {
+            placedComponents.set(index, moved);
+            moved.index = index;
+            children.set(index, movedView);
+        }
+        board.refreshNetHighlight();
+    }
+
+    // Forget everything the board knows about the component except its node
+    private void releaseComponent(PlacedComponent component) {
+        board.getModel().remove(component.handle, component.footprint, component.col, component.row);
+        componentIndex.remove(component);
+        if (component == hovered) {
+            showHover(null);
+        }
+        repaintSprites();
+        markChanged(component);
+        component.index = -1;
+    }
+
+    private void markChanged(PlacedComponent placedComponent) {
+        if (!placedComponent.changePending) {
+            placedComponent.changePending = true;
+            pendingChanges.add(placedComponent);
+        }
+        changeScheduler.requestRender();
+    }
+
+    private void fireChanges() {
+        List<PlacedComponent> changed = new ArrayList<>(pendingChanges);
+        pendingChanges.clear();
+        for (PlacedComponent placedComponent : changed) {
+            placedComponent.changePending = false;
+        }
+        for (Consumer<List<PlacedComponent>> listener : changeListeners) {
+            listener.accept(changed);
         }
     }
-    
+
+    /**
+     * Report pending changes now rather than on the next pulse, e.g. before
+     * the application exits.
+     */
+    public void flushChanges() {
+        changeScheduler.flush();
+    }
+
+    public void removeSelectedComponent() {
+        deleteSelection();
+    }
+
     public void clearAllComponents() {
-        for (PlacedComponent component : new ArrayList<>(placedComponents)) {
-            removeComponent(component);
+        history.beginEntry();
+        for (PlacedComponent component : placedComponents) {
+            releaseComponent(component);
+            history.recordDelete(component.handle);
         }
+        selection.clear();
+        selectedComponent = null;
+        fireSelectionChanged();
+        dragGroup = null;
         placedComponents.clear();
+        board.getComponentLayer().getChildren().clear();
+        board.refreshNetHighlight();
     }
-    
+
     // Getters and setters
     public boolean isGridSnapEnabled() { return gridSnapEnabled; }
     public void setGridSnapEnabled(boolean gridSnapEnabled) { this.gridSnapEnabled = gridSnapEnabled; }
     public List<PlacedComponent> getPlacedComponents() { return new ArrayList<>(placedComponents); }
     public PlacedComponent getSelectedComponent() { return selectedComponent; }
-    
+    public Set<PlacedComponent> getSelection() { return Collections.unmodifiableSet(selection); }
+    public EditHistory getHistory() { return history; }
+    public SpriteAtlas getSpriteAtlas() { return spriteAtlas; }
+    public void addSelectionListener(Consumer<PlacedComponent> listener) { selectionListeners.add(listener); }
+    // Called once per pulse with every part added, moved, turned or removed since the last call
+    public void addChangeListener(Consumer<List<PlacedComponent>> listener) { changeListeners.add(listener); }
+    // Called when a Component's properties were edited; all parts sharing it are affected
+    public void addComponentEditListener(Consumer<Component> listener) { componentEditListeners.add(listener); }
+
     public static class PlacedComponent {
         private Component component;
         private double x, y;
         private double rotation = 0; // degrees
-        
+        // Grid state mirrored in BoardModel
+        private int handle;
+        private int col, row;
+        private Footprint footprint;
+        // Scratch state of a pending relocation
+        private int targetCol, targetRow;
+        private Footprint targetFootprint;
+        // Position in placedComponents, -1 once removed
+        private int index = -1;
+        private int copyIndex; // Position among the copies of its Component
+        private double viewOrder;
+        private boolean layoutPending;
+        private boolean changePending;
+        // Visuals owned by ComponentManager; view is the one currently on the board
+        private Node detailView;
+        private Node vectorView; // Own vector pane in place of a cached bitmap, when zoomed in past it
+        private Rectangle footprintView;
+        private Node view;
+        private double baseRotate; // Rotation applied by the component's own render
+
         public PlacedComponent(Component component, double x, double y) {
             this.component = component;
             this.x = x;
             this.y = y;
         }
-        
+
         // Getters and setters
         public Component getComponent() { return component; }
         public double getX() { return x; }
         public void setX(double x) { this.x = x; }
         public double getY() { return y; }
         public void setY(double y) { this.y = y; }
+        public int getHandle() { return handle; }
+        public int getCol() { return col; }
+        public int getRow() { return row; }
+        public boolean isPlaced() { return index >= 0; }
+        public Footprint getFootprint() { return footprint; }
         public double getRotation() { return rotation; }
         public void setRotation(double rotation) { this.rotation = rotation; }
     }
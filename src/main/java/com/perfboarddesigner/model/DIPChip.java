@@ -4,12 +4,18 @@ import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.shape.Circle;
-import javafx.scene.control.Label;
+import javafx.geometry.VPos;
+import javafx.scene.text.Text;
 
 public class DIPChip extends Component {
     private ComponentOrientation orientation;
     private DIPPackage dipPackage;
     private static final double MM_TO_PIXEL = 6.0;
+    private static final double PIN_PITCH_MM = 2.54;
+    // Body beyond the first and last pin, so the outline stays n * 2.54 + 2 mm long
+    private static final double END_MARGIN_MM = 1 + PIN_PITCH_MM / 2;
+    // Gap between a row of pins and the body edge, bridged by the leads
+    private static final double BODY_INSET_MM = 0.5;
     private double scaleFactor = 1.0;
 
     public DIPChip(String name, double x, double y, String type, DIPPackage dipPackage, ComponentOrientation orientation) {
@@ -22,19 +28,17 @@ public class DIPChip extends Component {
     public Pane render() {
         Pane chipPane = new Pane();
         
-        // DIP package dimensions (dynamic based on pin count)
-        double chipWidth = 22 * MM_TO_PIXEL * scaleFactor;  // Standard DIP width
-        double chipHeight = (dipPackage.getPinsPerSide() * 2.54 + 2) * MM_TO_PIXEL * scaleFactor; // Dynamic height
+        // Laid out across the board; other orientations are the same drawing turned about pin 1
+        double unit = MM_TO_PIXEL * scaleFactor;
+        double pitch = PIN_PITCH_MM * unit;
+        double rowSpan = dipPackage.getRowSpanHoles() * pitch;
+        double inset = BODY_INSET_MM * unit;
+        double chipWidth = rowSpan - 2 * inset;
+        double margin = END_MARGIN_MM * unit;
+        double chipHeight = (dipPackage.getPinsPerSide() - 1) * pitch + 2 * margin;
         
-        if (orientation == ComponentOrientation.VERTICAL) {
-            // Swap dimensions for vertical
-            double temp = chipWidth;
-            chipWidth = chipHeight;
-            chipHeight = temp;
-        }
-        
-        // Main chip body
-        Rectangle body = new Rectangle(0, 0, chipWidth, chipHeight);
+        // Main chip body between the rows, pin 1 on the origin
+        Rectangle body = new Rectangle(inset, -margin, chipWidth, chipHeight);
         body.setFill(Color.DARKSLATEGRAY);
         body.setStroke(Color.BLACK);
         body.setStrokeWidth(1 * scaleFactor);
@@ -43,23 +47,24 @@ public class DIPChip extends Component {
         chipPane.getChildren().add(body);
         
         // Pin 1 indicator (small circle)
-        Circle pin1Indicator = new Circle(chipWidth * 0.15, chipHeight * 0.15, 2 * scaleFactor);
+        Circle pin1Indicator = new Circle(inset + chipWidth * 0.2, -margin + chipHeight * 0.15, 2 * scaleFactor);
         pin1Indicator.setFill(Color.WHITE);
         chipPane.getChildren().add(pin1Indicator);
         
         // Notch indicator (small rectangle)
-        Rectangle notch = new Rectangle(chipWidth * 0.4, 0, chipWidth * 0.2, 3 * scaleFactor);
+        Rectangle notch = new Rectangle(inset + chipWidth * 0.4, -margin, chipWidth * 0.2, 3 * scaleFactor);
         notch.setFill(Color.DARKGRAY);
         chipPane.getChildren().add(notch);
         
         // Draw pins
-        renderPins(chipPane, chipWidth, chipHeight);
+        renderPins(chipPane, pitch, inset);
         
         // Label
-        Label chipLabel = new Label(dipPackage.getDisplayName());
-        chipLabel.setLayoutX(chipWidth/2 - (dipPackage.getDisplayName().length() * 2));
-        chipLabel.setLayoutY(chipHeight/2 - 5);
-        chipLabel.setStyle("-fx-font-size: " + (7 * scaleFactor) + "px; -fx-text-fill: white; -fx-font-weight: bold;");
+        Text chipLabel = new Text(dipPackage.getDisplayName());
+        chipLabel.setTextOrigin(VPos.TOP);
+        chipLabel.setLayoutX(rowSpan/2 - (dipPackage.getDisplayName().length() * 2));
+        chipLabel.setLayoutY(-margin + chipHeight/2 - 5);
+        chipLabel.setStyle("-fx-font-size: " + (7 * scaleFactor) + "px; -fx-fill: white; -fx-font-weight: bold;");
         chipPane.getChildren().add(chipLabel);
         
         // Apply rotation
@@ -67,47 +72,40 @@ public class DIPChip extends Component {
             chipPane.setRotate(orientation.getAngleDegrees());
         }
         
-        chipPane.setPrefSize(chipWidth, chipHeight);
+        chipPane.setPrefSize(rowSpan, chipHeight);
         return chipPane;
     }
     
-    private void renderPins(Pane pane, double chipWidth, double chipHeight) {
+    private void renderPins(Pane pane, double pitch, double inset) {
         double pinWidth = 1 * scaleFactor;
-        double pinLength = 3 * scaleFactor;
+        Footprint pins = pinHoles();
         
-        if (orientation == ComponentOrientation.HORIZONTAL || orientation == ComponentOrientation.DIAGONAL_UP || orientation == ComponentOrientation.DIAGONAL_DOWN) {
-            // Horizontal layout - pins on left and right
-            for (int i = 0; i < dipPackage.getPinsPerSide(); i++) {
-                double y = (chipHeight / (dipPackage.getPinsPerSide() + 1)) * (i + 1);
-                
-                // Left side pins
-                Rectangle leftPin = new Rectangle(-pinLength, y - pinWidth/2, pinLength, pinWidth);
-                leftPin.setFill(Color.SILVER);
-                pane.getChildren().add(leftPin);
-                
-                // Right side pins
-                Rectangle rightPin = new Rectangle(chipWidth, y - pinWidth/2, pinLength, pinWidth);
-                rightPin.setFill(Color.SILVER);
-                pane.getChildren().add(rightPin);
-            }
-        } else {
-            // Vertical layout - pins on top and bottom
-            for (int i = 0; i < dipPackage.getPinsPerSide(); i++) {
-                double x = (chipWidth / (dipPackage.getPinsPerSide() + 1)) * (i + 1);
-                
-                // Top pins
-                Rectangle topPin = new Rectangle(x - pinWidth/2, -pinLength, pinWidth, pinLength);
-                topPin.setFill(Color.SILVER);
-                pane.getChildren().add(topPin);
-                
-                // Bottom pins
-                Rectangle bottomPin = new Rectangle(x - pinWidth/2, chipHeight, pinWidth, pinLength);
-                bottomPin.setFill(Color.SILVER);
-                pane.getChildren().add(bottomPin);
-            }
+        // Each lead runs from the hole its pin sits in to the body edge
+        for (int pin = 0; pin < pins.getPinCount(); pin++) {
+            double x = pins.getPinCol(pin) * pitch;
+            double y = pins.getPinRow(pin) * pitch;
+            Rectangle lead = new Rectangle(pins.getPinCol(pin) == 0 ? x : x - inset, y - pinWidth/2, inset, pinWidth);
+            lead.setFill(Color.SILVER);
+            pane.getChildren().add(lead);
         }
     }
 
+    // Holes of the pins from pin 1, unrotated: down the first row, then up the second as numbered on a DIP
+    private Footprint pinHoles() {
+        return Footprint.dual(dipPackage.getPinsPerSide(), dipPackage.getRowSpanHoles());
+    }
+
+    @Override
+    public Footprint getFootprint() {
+        // The holes the pins are drawn on, turned about pin 1 as the view is
+        return pinHoles().rotated(orientation.getAngleDegrees());
+    }
+
+    @Override
+    public String getVisualKey() {
+        return "dip:" + dipPackage + "|" + orientation + "|" + scaleFactor;
+    }
+
     // Getters and setters
     public ComponentOrientation getOrientation() { return orientation; }
     public void setOrientation(ComponentOrientation orientation) { this.orientation = orientation; }
@@ -5,10 +5,6 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Polygon;
 import javafx.scene.shape.Rectangle;
-import javafx.scene.control.ComboBox;
-import javafx.scene.control.Label;
-import javafx.scene.layout.VBox;
-import javafx.collections.FXCollections;
 
 public class Diode extends Component {
     private String diodeType; // "Standard", "Zener", "Schottky", "Bridge"
@@ -35,29 +31,14 @@ public class Diode extends Component {
             renderSMDDiode(diodePane, bodyLength, bodyWidth);
         }
 
-        // Control panel
-        VBox controlBox = new VBox(5);
-        controlBox.setLayoutY(bodyWidth + 10);
-        
-        Label typeLabel = new Label(diodeType + " Diode");
-        
-        ComboBox<String> typeCombo = new ComboBox<>(FXCollections.observableArrayList(
-            "Standard", "Zener", "Schottky", "Bridge"));
-        typeCombo.setValue(diodeType);
-        typeCombo.setOnAction(e -> {
-            this.diodeType = typeCombo.getValue();
-            refreshDiode(diodePane, controlBox, bodyLength, bodyWidth);
-        });
-        
-        Label modelLabel = new Label("Model: " + model);
-        Label voltageLabel = new Label("Vf: " + forwardVoltage + "V");
-        
-        controlBox.getChildren().addAll(typeLabel, typeCombo, modelLabel, voltageLabel);
-        diodePane.getChildren().add(controlBox);
-
-        diodePane.setPrefSize(Math.max(bodyLength + 20, 100), bodyWidth + 80);
+        diodePane.setPrefSize(bodyLength + bodyLength / 2, bodyWidth);
         return diodePane;
     }
+
+    @Override
+    public String getVisualKey() {
+        return "diode:" + diodeType + "|" + type + "|" + pins;
+    }
     
     private void renderThroughHoleDiode(Pane pane, double bodyLength, double bodyWidth) {
         double centerY = bodyWidth / 2;
@@ -160,16 +141,6 @@ public class Diode extends Component {
         }
     }
     
-    private void refreshDiode(Pane diodePane, VBox controlBox, double bodyLength, double bodyWidth) {
-        diodePane.getChildren().clear();
-        if ("ThroughHole".equals(this.type)) {
-            renderThroughHoleDiode(diodePane, bodyLength, bodyWidth);
-        } else {
-            renderSMDDiode(diodePane, bodyLength, bodyWidth);
-        }
-        diodePane.getChildren().add(controlBox);
-    }
-
     // Getters and setters
     public String getDiodeType() { return diodeType; }
     public void setDiodeType(String diodeType) { this.diodeType = diodeType; }
@@ -0,0 +1,287 @@
+package com.perfboarddesigner.model;
+
+import java.util.Arrays;
+
+/**
+ * Undo/redo history stored as a flat log of primitive records. A record is
+ * two longs: an opcode with a component handle (or a packed hole), and a
+ * pair of ints such as a grid offset. Records made by one user action form
+ * an entry, which is undone or redone as a whole.
+ *
+ * Replaying only touches the parts and jumpers named in the entry, so undo
+ * and redo cost the same as the original edit.
+ *
+ * The log is capped: past MAX_ENTRIES entries or MAX_LOG_LONGS longs the
+ * oldest entries are dropped. Removed parts are only kept alive by the
+ * records naming them, so a part whose last record goes is released.
+ */
+public class EditHistory {
+    private static final int OP_ADD = 1;
+    private static final int OP_DELETE = 2;
+    private static final int OP_MOVE = 3;         // Offset in holes
+    private static final int OP_ROTATE = 4;       // Offset in holes plus a quarter turn
+    private static final int OP_JUMPER_ADD = 5;
+    private static final int OP_JUMPER_REMOVE = 6;
+    private static final int RECORD_LONGS = 2;
+    private static final int MAX_ENTRIES = 50_000;
+    private static final int MAX_LOG_LONGS = 1 << 19; // 4 MB
+
+    private final ComponentManager components;
+    private final Board board;
+    private long[] log = new long[256];
+    private int logSize;
+    // Log offset where each entry starts
+    private int[] entryStarts = new int[64];
+    private int entryCount;
+    private int cursor; // Entries below the cursor are applied; the rest can be redone
+    // Records in the log naming each component handle
+    private int[] handleRecords = new int[64];
+    private boolean entryRequested;
+    private boolean replaying;
+
+    public EditHistory(ComponentManager components, Board board) {
+        this.components = components;
+        this.board = board;
+        board.setHistory(this);
+    }
+
+    /**
+     * Start a new entry for the next user action. It is only created once
+     * something is recorded, so failed actions leave no trace.
+     */
+    void beginEntry() {
+        if (!replaying) {
+            entryRequested = true;
+        }
+    }
+
+    void recordAdd(int handle) {
+        record(OP_ADD, handle, 0, 0);
+    }
+
+    void recordDelete(int handle) {
+        record(OP_DELETE, handle, 0, 0);
+    }
+
+    void recordMove(int handle, int cols, int rows) {
+        record(OP_MOVE, handle, cols, rows);
+    }
+
+    void recordRotate(int handle, int cols, int rows) {
+        record(OP_ROTATE, handle, cols, rows);
+    }
+
+    void recordJumper(boolean added, int startCol, int startRow, int endCol, int endRow) {
+        record(added ? OP_JUMPER_ADD : OP_JUMPER_REMOVE, packHole(startCol, startRow), endCol, endRow);
+    }
+
+    private void record(int op, int subject, int a, int b) {
+        if (replaying) {
+            return;
+        }
+        if (entryRequested || entryCount == 0 || cursor < entryCount) {
+            openEntry();
+        }
+        if (logSize + RECORD_LONGS > log.length) {
+            log = Arrays.copyOf(log, log.length * 2);
+        }
+        log[logSize++] = ((long) op << 56) | (subject & 0xFFFFFFFFL);
+        log[logSize++] = ((long) a << 32) | (b & 0xFFFFFFFFL);
+        if (namesHandle(op)) {
+            if (subject >= handleRecords.length) {
+                handleRecords = Arrays.copyOf(handleRecords, Math.max(subject + 1, handleRecords.length * 2));
+            }
+            handleRecords[subject]++;
+        }
+    }
+
+    private void openEntry() {
+        entryRequested = false;
+        // A new action drops whatever could have been redone
+        if (cursor < entryCount) {
+            forget(entryStarts[cursor], logSize);
+            logSize = entryStarts[cursor];
+            entryCount = cursor;
+        }
+        if (entryCount >= MAX_ENTRIES || logSize >= MAX_LOG_LONGS) {
+            trim();
+        }
+        if (entryCount == entryStarts.length) {
+            entryStarts = Arrays.copyOf(entryStarts, entryStarts.length * 2);
+        }
+        entryStarts[entryCount++] = logSize;
+        cursor = entryCount;
+    }
+
+    public boolean canUndo() { return cursor > 0; }
+    public boolean canRedo() { return cursor < entryCount; }
+
+    /**
+     * Undo the last applied entry.
+     *
+     * @return false if there was nothing to undo, or if the entry could not
+     *         be applied, e.g. because its parts no longer fit after the
+     *         board shrank; the board and the cursor are then left as they were
+     */
+    public boolean undo() {
+        // A resize still waiting on the typing debounce goes in first, as its own entry
+        board.applyPendingResize();
+        if (!canUndo() || !replay(cursor - 1, true)) {
+            return false;
+        }
+        cursor--;
+        return true;
+    }
+
+    /**
+     * Redo the next entry.
+     *
+     * @return false if there was nothing to redo or the entry could not be
+     *         applied, leaving the board and the cursor as they were
+     */
+    public boolean redo() {
+        board.applyPendingResize();
+        if (!canRedo() || !replay(cursor, false)) {
+            return false;
+        }
+        cursor++;
+        return true;
+    }
+
+    /**
+     * Drop every entry. Removed parts are released, since nothing can bring
+     * them back any more.
+     */
+    public void clear() {
+        forget(0, logSize);
+        logSize = 0;
+        entryCount = 0;
+        cursor = 0;
+        entryRequested = false;
+    }
+
+    /**
+     * Approximate memory held by the log, in bytes.
+     */
+    public long getMemoryBytes() {
+        return (long) log.length * Long.BYTES + (long) (entryStarts.length + handleRecords.length) * Integer.BYTES;
+    }
+
+    // Drop the oldest entries down to three quarters of the limits, so the copy is paid for rarely
+    private void trim() {
+        int drop = Math.max(0, entryCount - MAX_ENTRIES * 3 / 4);
+        while (drop < entryCount && logSize - entryStarts[drop] > MAX_LOG_LONGS * 3 / 4) {
+            drop++;
+        }
+        int end = drop < entryCount ? entryStarts[drop] : logSize;
+        forget(0, end);
+        System.arraycopy(log, end, log, 0, logSize - end);
+        logSize -= end;
+        for (int i = drop; i < entryCount; i++) {
+            entryStarts[i - drop] = entryStarts[i] - end;
+        }
+        entryCount -= drop;
+        cursor -= drop;
+    }
+
+    // The records between the offsets are going away: parts no longer named anywhere are released
+    private void forget(int start, int end) {
+        for (int offset = start; offset < end; offset += RECORD_LONGS) {
+            int op = (int) (log[offset] >>> 56);
+            int handle = (int) log[offset];
+            if (namesHandle(op) && --handleRecords[handle] == 0) {
+                components.releaseHandle(handle);
+            }
+        }
+    }
+
+    private static boolean namesHandle(int op) {
+        return op >= OP_ADD && op <= OP_ROTATE;
+    }
+
+    // Apply an entry as a whole or not at all
+    private boolean replay(int entry, boolean undo) {
+        int start = entryStarts[entry];
+        int end = entry + 1 < entryCount ? entryStarts[entry + 1] : logSize;
+        int records = (end - start) / RECORD_LONGS;
+        replaying = true;
+        try {
+            if (isRelocation(start)) {
+                return replayRelocation(start, records, undo);
+            }
+            // Undo walks the entry backwards so dependent records unwind in order
+            for (int i = 0; i < records; i++) {
+                if (!replayRecord(start + (undo ? records - 1 - i : i) * RECORD_LONGS, undo)) {
+                    // Take back what the entry already changed, so the board still matches the cursor
+                    for (int j = i - 1; j >= 0; j--) {
+                        replayRecord(start + (undo ? records - 1 - j : j) * RECORD_LONGS, !undo);
+                    }
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            replaying = false;
+        }
+    }
+
+    private boolean isRelocation(int offset) {
+        int op = (int) (log[offset] >>> 56);
+        return op == OP_MOVE || op == OP_ROTATE;
+    }
+
+    // Moves and rotations of one action are applied together, as one transaction
+    private boolean replayRelocation(int start, int records, boolean undo) {
+        int sign = undo ? -1 : 1;
+        int[] handles = new int[records];
+        int[] cols = new int[records];
+        int[] rows = new int[records];
+        int[] turns = new int[records];
+        for (int i = 0; i < records; i++) {
+            int offset = start + i * RECORD_LONGS;
+            handles[i] = (int) log[offset];
+            cols[i] = sign * (int) (log[offset + 1] >> 32);
+            rows[i] = sign * (int) log[offset + 1];
+            turns[i] = (int) (log[offset] >>> 56) == OP_ROTATE ? sign : 0;
+        }
+        // Either every part moves or none does
+        return components.relocateByHandle(handles, cols, rows, turns);
+    }
+
+    // False if the record cannot be applied to the board as it is now
+    private boolean replayRecord(int offset, boolean undo) {
+        int op = (int) (log[offset] >>> 56);
+        int subject = (int) log[offset];
+        int a = (int) (log[offset + 1] >> 32);
+        int b = (int) log[offset + 1];
+        switch (op) {
+            case OP_ADD:
+            case OP_DELETE:
+                if ((op == OP_ADD) == undo) {
+                    components.detachByHandle(subject);
+                    return true;
+                }
+                return components.restoreByHandle(subject);
+            case OP_JUMPER_ADD:
+            case OP_JUMPER_REMOVE:
+                if ((op == OP_JUMPER_ADD) == undo) {
+                    board.removeJumper(subject >> 16, (short) subject, a, b);
+                    return true;
+                }
+                BoardModel model = board.getModel();
+                if (!model.inBounds(subject >> 16, (short) subject) || !model.inBounds(a, b)) {
+                    return false;
+                }
+                board.addJumper(subject >> 16, (short) subject, a, b);
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    private static int packHole(int col, int row) {
+        return (col << 16) | (row & 0xFFFF);
+    }
+
+    public int getEntryCount() { return entryCount; }
+}
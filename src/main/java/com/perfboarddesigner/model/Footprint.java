@@ -0,0 +1,86 @@
+package com.perfboarddesigner.model;
+
+/**
+ * Holes used by a component, as (col, row) offsets from its anchor hole.
+ * The body is taken to cover the bounding box of the pins.
+ */
+public final class Footprint {
+    private final int[] pinCols;
+    private final int[] pinRows;
+    private final int minCol, minRow, maxCol, maxRow;
+
+    public Footprint(int[] pinCols, int[] pinRows) {
+        if (pinCols.length != pinRows.length || pinCols.length == 0) {
+            throw new IllegalArgumentException("A footprint needs at least one pin and matching coordinates");
+        }
+        this.pinCols = pinCols.clone();
+        this.pinRows = pinRows.clone();
+        int c0 = Integer.MAX_VALUE, r0 = Integer.MAX_VALUE, c1 = Integer.MIN_VALUE, r1 = Integer.MIN_VALUE;
+        for (int i = 0; i < pinCols.length; i++) {
+            c0 = Math.min(c0, pinCols[i]);
+            r0 = Math.min(r0, pinRows[i]);
+            c1 = Math.max(c1, pinCols[i]);
+            r1 = Math.max(r1, pinRows[i]);
+        }
+        this.minCol = c0;
+        this.minRow = r0;
+        this.maxCol = c1;
+        this.maxRow = r1;
+    }
+
+    /**
+     * Pins in one row, spread evenly over the given number of hole pitches.
+     */
+    public static Footprint inline(int pinCount, int span) {
+        int[] cols = new int[pinCount];
+        int[] rows = new int[pinCount];
+        for (int i = 0; i < pinCount; i++) {
+            cols[i] = pinCount > 1 ? Math.round((float) i * span / (pinCount - 1)) : 0;
+        }
+        return new Footprint(cols, rows);
+    }
+
+    /**
+     * Two parallel columns of pins, numbered down the first and up the second
+     * as on a DIP package.
+     */
+    public static Footprint dual(int pinsPerSide, int columnSpacing) {
+        int[] cols = new int[pinsPerSide * 2];
+        int[] rows = new int[pinsPerSide * 2];
+        for (int i = 0; i < pinsPerSide; i++) {
+            rows[i] = i;
+            cols[pinsPerSide + i] = columnSpacing;
+            rows[pinsPerSide + i] = pinsPerSide - 1 - i;
+        }
+        return new Footprint(cols, rows);
+    }
+
+    /**
+     * This footprint turned clockwise on screen by the given angle, with pins
+     * rounded to the nearest hole.
+     */
+    public Footprint rotated(double degrees) {
+        double normalized = ((degrees % 360) + 360) % 360;
+        if (normalized == 0) {
+            return this;
+        }
+        double radians = Math.toRadians(normalized);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        int[] cols = new int[pinCols.length];
+        int[] rows = new int[pinRows.length];
+        for (int i = 0; i < pinCols.length; i++) {
+            cols[i] = (int) Math.round(pinCols[i] * cos - pinRows[i] * sin);
+            rows[i] = (int) Math.round(pinCols[i] * sin + pinRows[i] * cos);
+        }
+        return new Footprint(cols, rows);
+    }
+
+    public int getPinCount() { return pinCols.length; }
+    public int getPinCol(int pin) { return pinCols[pin]; }
+    public int getPinRow(int pin) { return pinRows[pin]; }
+    public int getMinCol() { return minCol; }
+    public int getMinRow() { return minRow; }
+    public int getMaxCol() { return maxCol; }
+    public int getMaxRow() { return maxRow; }
+}
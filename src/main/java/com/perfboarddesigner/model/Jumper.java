@@ -0,0 +1,41 @@
+package com.perfboarddesigner.model;
+
+import javafx.scene.shape.Line;
+
+/**
+ * A jumper wire between two holes. The endpoints are kept as grid positions
+ * so the wire can be laid out again when the board geometry changes.
+ */
+public class Jumper {
+    private final int startCol;
+    private final int startRow;
+    private final int endCol;
+    private final int endRow;
+    private final Line line;
+
+    public Jumper(int startCol, int startRow, int endCol, int endRow, Line line) {
+        this.startCol = startCol;
+        this.startRow = startRow;
+        this.endCol = endCol;
+        this.endRow = endRow;
+        this.line = line;
+    }
+
+    /**
+     * Distance from a hole to the wire, in hole pitches.
+     */
+    public double distanceTo(int col, int row) {
+        double dx = endCol - startCol;
+        double dy = endRow - startRow;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq == 0 ? 0 : ((col - startCol) * dx + (row - startRow) * dy) / lengthSq;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(col - (startCol + t * dx), row - (startRow + t * dy));
+    }
+
+    public int getStartCol() { return startCol; }
+    public int getStartRow() { return startRow; }
+    public int getEndCol() { return endCol; }
+    public int getEndRow() { return endRow; }
+    public Line getLine() { return line; }
+}
@@ -6,10 +6,8 @@ import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Polygon;
 import javafx.scene.shape.Rectangle;
-import javafx.scene.control.ComboBox;
-import javafx.scene.control.Label;
-import javafx.scene.layout.VBox;
-import javafx.collections.FXCollections;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
 
 public class LED extends Component {
     private String ledColor; // "Red", "Green", "Blue", "Yellow", "White", "RGB"
@@ -47,38 +45,14 @@ public class LED extends Component {
                 render5mmLED(ledPane);
         }
 
-        // Control panel
-        VBox controlBox = new VBox(5);
-        controlBox.setLayoutY(getBodyHeight() + 10);
-        
-        Label typeLabel = new Label(ledColor + " LED (" + packageType + ")");
-        
-        ComboBox<String> colorCombo = new ComboBox<>(FXCollections.observableArrayList(
-            "Red", "Green", "Blue", "Yellow", "White", "RGB"));
-        colorCombo.setValue(ledColor);
-        colorCombo.setOnAction(e -> {
-            this.ledColor = colorCombo.getValue();
-            refreshLED(ledPane, controlBox);
-        });
-        
-        ComboBox<String> packageCombo = new ComboBox<>(FXCollections.observableArrayList(
-            "5mm", "3mm", "SMD", "High-Power"));
-        packageCombo.setValue(packageType);
-        packageCombo.setOnAction(e -> {
-            this.packageType = packageCombo.getValue();
-            refreshLED(ledPane, controlBox);
-        });
-        
-        Label voltageLabel = new Label("Vf: " + forwardVoltage + "V");
-        Label brightnessLabel = new Label("Brightness: " + brightness + "%");
-        
-        controlBox.getChildren().addAll(typeLabel, new Label("Color:"), colorCombo, 
-                                      new Label("Package:"), packageCombo, voltageLabel, brightnessLabel);
-        ledPane.getChildren().add(controlBox);
-
-        ledPane.setPrefSize(Math.max(getBodyWidth(), 120), getBodyHeight() + 120);
+        ledPane.setPrefSize(getBodyWidth(), getBodyHeight());
         return ledPane;
     }
+
+    @Override
+    public String getVisualKey() {
+        return "led:" + ledColor + "|" + packageType + "|" + (brightness > 0) + "|" + pins;
+    }
     
     private void render5mmLED(Pane pane) {
         double diameter = 4 * MM_TO_PIXEL; // Slightly smaller for better fit
@@ -117,15 +91,13 @@ public class LED extends Component {
             pane.getChildren().addAll(anodePin, cathodePin);
             
             // Pin labels
-            Label anodeLabel = new Label("+");
-            anodeLabel.setLayoutX(centerX - 10);
-            anodeLabel.setLayoutY(diameter + 14);
-            anodeLabel.setStyle("-fx-font-size: 8px; -fx-text-fill: red;");
+            Text anodeLabel = new Text(centerX - 10, diameter + 22, "+");
+            anodeLabel.setFont(Font.font(8));
+            anodeLabel.setFill(Color.RED);
             
-            Label cathodeLabel = new Label("-");
-            cathodeLabel.setLayoutX(centerX + 6);
-            cathodeLabel.setLayoutY(diameter + 14);
-            cathodeLabel.setStyle("-fx-font-size: 8px; -fx-text-fill: black;");
+            Text cathodeLabel = new Text(centerX + 6, diameter + 22, "-");
+            cathodeLabel.setFont(Font.font(8));
+            cathodeLabel.setFill(Color.BLACK);
             
             pane.getChildren().addAll(anodeLabel, cathodeLabel);
         }
@@ -254,17 +226,6 @@ public class LED extends Component {
         }
     }
     
-    private void refreshLED(Pane ledPane, VBox controlBox) {
-        ledPane.getChildren().clear();
-        switch (packageType) {
-            case "5mm": render5mmLED(ledPane); break;
-            case "3mm": render3mmLED(ledPane); break;
-            case "SMD": renderSMDLED(ledPane); break;
-            case "High-Power": renderHighPowerLED(ledPane); break;
-        }
-        ledPane.getChildren().add(controlBox);
-    }
-
     // Getters and setters
     public String getLedColor() { return ledColor; }
     public void setLedColor(String ledColor) { this.ledColor = ledColor; }
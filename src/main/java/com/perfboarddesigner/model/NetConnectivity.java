@@ -0,0 +1,154 @@
+package com.perfboarddesigner.model;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Which holes are electrically connected, kept as a union-find forest over
+ * hole indices ({@code row * cols + col}). Copper strips are merged when the
+ * forest is built; jumpers are merged incrementally as they are added.
+ *
+ * Every net also forms a circular linked list through {@code next}, so its
+ * holes can be listed without scanning the board.
+ */
+public class NetConnectivity {
+    private int cols;
+    private int rows;
+    private int[] parent;
+    private int[] size;
+    private int[] next;
+
+    public NetConnectivity(int cols, int rows) {
+        reset(cols, rows);
+    }
+
+    /**
+     * Start over with every hole in a net of its own.
+     */
+    public void reset(int cols, int rows) {
+        this.cols = Math.max(cols, 0);
+        this.rows = Math.max(rows, 0);
+        int holes = this.cols * this.rows;
+        if (parent == null || parent.length != holes) {
+            parent = new int[holes];
+            size = new int[holes];
+            next = new int[holes];
+        }
+        for (int i = 0; i < holes; i++) {
+            parent[i] = i;
+            size[i] = 1;
+            next[i] = i;
+        }
+    }
+
+    /**
+     * Merge the copper strips of the given board type, matching what the
+     * board draws on its copper layer.
+     */
+    public void addStrips(BoardType type) {
+        if (type == BoardType.STRIPBOARD) {
+            for (int row = 0; row < rows; row++) {
+                connectRow(row);
+            }
+        } else if (type == BoardType.MIXED) {
+            // Every other row is a strip; every third column is a strip on the lower half
+            for (int row = 0; row < rows; row += 2) {
+                connectRow(row);
+            }
+            for (int col = 0; col < cols; col += 3) {
+                for (int row = rows / 2 + 1; row < rows; row++) {
+                    union(index(col, row - 1), index(col, row));
+                }
+            }
+        }
+    }
+
+    private void connectRow(int row) {
+        for (int col = 1; col < cols; col++) {
+            union(index(col - 1, row), index(col, row));
+        }
+    }
+
+    /**
+     * Join the nets of two holes, e.g. the ends of a new jumper.
+     * Holes off the board are ignored.
+     */
+    public void connect(int col1, int row1, int col2, int row2) {
+        if (inBounds(col1, row1) && inBounds(col2, row2)) {
+            union(index(col1, row1), index(col2, row2));
+        }
+    }
+
+    /**
+     * Identifier of the net the hole belongs to, or -1 for holes off the
+     * board. Only valid until the next change.
+     */
+    public int getNet(int col, int row) {
+        return inBounds(col, row) ? find(index(col, row)) : -1;
+    }
+
+    public boolean isConnected(int col1, int row1, int col2, int row2) {
+        int net = getNet(col1, row1);
+        return net >= 0 && net == getNet(col2, row2);
+    }
+
+    /**
+     * Number of holes in the net of the given hole.
+     */
+    public int getNetSize(int col, int row) {
+        return inBounds(col, row) ? size[find(index(col, row))] : 0;
+    }
+
+    /**
+     * Visit the index of every hole connected to the given one, itself included.
+     */
+    public void forEachHole(int col, int row, IntConsumer action) {
+        if (!inBounds(col, row)) {
+            return;
+        }
+        int start = index(col, row);
+        int hole = start;
+        do {
+            action.accept(hole);
+            hole = next[hole];
+        } while (hole != start);
+    }
+
+    private int find(int hole) {
+        // Path halving keeps the trees flat without recursion
+        while (parent[hole] != hole) {
+            parent[hole] = parent[parent[hole]];
+            hole = parent[hole];
+        }
+        return hole;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (size[rootA] < size[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+        // Splice the two member rings into one
+        int swap = next[rootA];
+        next[rootA] = next[rootB];
+        next[rootB] = swap;
+    }
+
+    private boolean inBounds(int col, int row) {
+        return col >= 0 && row >= 0 && col < cols && row < rows;
+    }
+
+    private int index(int col, int row) {
+        return row * cols + col;
+    }
+
+    public int getCols() { return cols; }
+    public int getRows() { return rows; }
+}
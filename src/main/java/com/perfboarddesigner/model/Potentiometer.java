@@ -5,10 +5,8 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Rectangle;
-import javafx.scene.control.TextField;
-import javafx.scene.control.Slider;
-import javafx.scene.control.Label;
-import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
 
 public class Potentiometer extends Component {
     private String value; // e.g., "10k", "100k"
@@ -75,84 +73,28 @@ public class Potentiometer extends Component {
         potPane.getChildren().addAll(pin1, pin2, pin3);
         
         // Pin labels
-        Label pin1Label = new Label("1");
-        pin1Label.setLayoutX(pin1X - 3);
-        pin1Label.setLayoutY(pin1Y + 10);
-        pin1Label.setStyle("-fx-font-size: 8px;");
+        Text pin1Label = new Text(pin1X - 3, pin1Y + 18, "1");
+        pin1Label.setFont(Font.font(8));
         
-        Label pin2Label = new Label("2");
-        pin2Label.setLayoutX(pin2X - 3);
-        pin2Label.setLayoutY(pin2Y + 10);
-        pin2Label.setStyle("-fx-font-size: 8px;");
+        Text pin2Label = new Text(pin2X - 3, pin2Y + 18, "2");
+        pin2Label.setFont(Font.font(8));
         
-        Label pin3Label = new Label("3");
-        pin3Label.setLayoutX(pin3X - 3);
-        pin3Label.setLayoutY(pin3Y + 10);
-        pin3Label.setStyle("-fx-font-size: 8px;");
+        Text pin3Label = new Text(pin3X - 3, pin3Y + 18, "3");
+        pin3Label.setFont(Font.font(8));
         
         potPane.getChildren().addAll(pin1Label, pin2Label, pin3Label);
 
-        // Control panel
-        VBox controlBox = new VBox(5);
-        controlBox.setLayoutY(diameter + 25);
-        
-        Label typeLabel = new Label(potType + " Potentiometer");
-        
-        TextField valueField = new TextField(value);
-        valueField.setPrefWidth(80);
-        valueField.textProperty().addListener((obs, oldVal, newVal) -> {
-            this.value = newVal;
-            this.resistanceOhms = parseResistance(newVal);
-        });
-        
-        Label positionLabel = new Label("Wiper Position: " + String.format("%.0f%%", wiperPosition * 100));
-        
-        Slider positionSlider = new Slider(0, 1, wiperPosition);
-        positionSlider.setPrefWidth(120);
-        positionSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
-            this.wiperPosition = newVal.doubleValue();
-            positionLabel.setText("Wiper Position: " + String.format("%.0f%%", wiperPosition * 100));
-            
-            // Update the visual indicator
-            updateWiperIndicator(potPane, diameter);
-        });
-        
-        Label resistanceLabel = new Label("Current Resistance: " + getCurrentResistanceString());
-        
-        // Update resistance display when wiper moves
-        positionSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
-            resistanceLabel.setText("Current Resistance: " + getCurrentResistanceString());
-        });
-        
-        controlBox.getChildren().addAll(typeLabel, new Label("Value:"), valueField, 
-                                      positionLabel, positionSlider, resistanceLabel);
-        potPane.getChildren().add(controlBox);
-
-        potPane.setPrefSize(Math.max(diameter + 20, 140), diameter + 150);
+        potPane.setPrefSize(diameter, diameter);
         return potPane;
     }
-    
-    private void updateWiperIndicator(Pane potPane, double diameter) {
-        // Remove old indicator
-        potPane.getChildren().removeIf(node -> node instanceof Line && 
-            ((Line) node).getStroke() == Color.WHITE);
-        
-        // Add new indicator
-        double angle = wiperPosition * 270 - 135;
-        double radians = Math.toRadians(angle);
-        double indicatorLength = diameter * 0.3;
-        double endX = diameter/2 + indicatorLength * Math.cos(radians);
-        double endY = diameter/2 + indicatorLength * Math.sin(radians);
-        
-        Line indicator = new Line(diameter/2, diameter/2, endX, endY);
-        indicator.setStroke(Color.WHITE);
-        indicator.setStrokeWidth(2);
-        
-        // Insert indicator at correct position (after body, before controls)
-        potPane.getChildren().add(3, indicator);
+
+    @Override
+    public String getVisualKey() {
+        // The dial is drawn to the nearest percent
+        return "pot:" + Math.round(wiperPosition * 100) + "|" + pins;
     }
     
-    private String getCurrentResistanceString() {
+    public String getCurrentResistanceString() {
         double currentResistance = resistanceOhms * wiperPosition;
         
         if (currentResistance >= 1000000) {
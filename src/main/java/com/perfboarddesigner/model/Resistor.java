@@ -3,7 +3,6 @@ package com.perfboarddesigner.model;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
-import javafx.scene.control.TextField;
 
 public class Resistor extends Component {
     private String value; // e.g., "1k Ohm", "470 Ohm"
@@ -21,6 +20,7 @@ public class Resistor extends Component {
         this.resistanceOhms = resistanceOhms;
     }
 
+    @Override
     public Pane render() {
         Pane resistorPane = new Pane();
         double pixelLength = lengthMm * MM_TO_PIXEL;
@@ -47,31 +47,15 @@ public class Resistor extends Component {
             resistorPane.getChildren().addAll(pin1, pin2);
         }
 
-        // Add value field below the resistor
-        TextField valueField = new TextField(value.replace(" Ohm", ""));
-        valueField.setPrefWidth(pixelLength);
-        valueField.textProperty().addListener((obs, oldVal, newVal) -> {
-            this.value = newVal + " Ohm";
-            this.resistanceOhms = parseResistance(newVal);
-            resistorPane.getChildren().clear();
-            resistorPane.getChildren().add(body);
-            renderBands(resistorPane, pixelLength, pixelWidth, bandWidth, gapWidth);
-            if ("ThroughHole".equals(this.type) && this.pins >= 2) {
-                double pinLength = pixelLength / 4;
-                Rectangle pin1 = new Rectangle(-pinLength, pixelWidth / 2 - 0.5, pinLength, 1);
-                pin1.setFill(Color.SILVER);
-                Rectangle pin2 = new Rectangle(pixelLength, pixelWidth / 2 - 0.5, pinLength, 1);
-                pin2.setFill(Color.SILVER);
-                resistorPane.getChildren().addAll(pin1, pin2);
-            }
-            resistorPane.getChildren().add(valueField); // Re-add the text field
-        });
-        resistorPane.getChildren().add(valueField);
-
-        resistorPane.setPrefSize(pixelLength + (this.pins >= 2 ? pixelLength / 2 : 0), pixelWidth + 25); // Extra space for text field
+        resistorPane.setPrefSize(pixelLength + (this.pins >= 2 ? pixelLength / 2 : 0), pixelWidth);
         return resistorPane;
     }
 
+    @Override
+    public String getVisualKey() {
+        return "resistor:" + resistanceOhms + "|" + lengthMm + "x" + widthMm + "|" + type + "|" + pins;
+    }
+
     private void renderBands(Pane pane, double pixelLength, double pixelWidth, double bandWidth, double gapWidth) {
         int[] bands = getColorBands(resistanceOhms);
         double currentX = 0;
@@ -127,17 +111,47 @@ public class Resistor extends Component {
         }
     }
 
-    private double parseResistance(String valueStr) {
-        try {
-            double value = Double.parseDouble(valueStr.replace(" Ohm", "").replace(",", ".").replace(" ", ""));
-            if (valueStr.toLowerCase().contains("k")) value *= 1000;
-            else if (valueStr.toLowerCase().contains("m")) value *= 1000000;
-            return value;
-        } catch (NumberFormatException e) {
-            return 1000; // Default to 1k if invalid
+    /**
+     * Read a value such as "470", "4.7k Ohm" or "1M". The unit is stripped
+     * first, so only a single trailing k or M counts as a multiplier.
+     *
+     * @throws NumberFormatException if no positive resistance can be read
+     */
+    private static double parseResistance(String valueStr) {
+        String number = valueStr.trim().replaceFirst("(?i)\\s*(ohm|Ω)$", "").replace(",", ".").replace(" ", "");
+        double multiplier = 1;
+        if (number.endsWith("k") || number.endsWith("K")) {
+            multiplier = 1000;
+        } else if (number.endsWith("M")) {
+            multiplier = 1000000;
+        }
+        if (multiplier != 1) {
+            number = number.substring(0, number.length() - 1);
+        }
+        double value = Double.parseDouble(number) * multiplier;
+        if (!(value > 0) || Double.isInfinite(value)) {
+            throw new NumberFormatException("Not a resistance: " + valueStr);
         }
+        return value;
     }
 
     public String getValue() { return value; }
-    public void setValue(String value) { this.value = value; }
+    public void setValue(String value) {
+        double parsed;
+        try {
+            parsed = parseResistance(value);
+        } catch (NumberFormatException e) {
+            return; // Keep the last value that could be read
+        }
+        this.value = value;
+        this.resistanceOhms = parsed;
+    }
+    public double getResistanceOhms() { return resistanceOhms; }
+    public double getLengthMm() { return lengthMm; }
+    public double getWidthMm() { return widthMm; }
+    // Body size as drawn, i.e. after the constructor's reduction
+    public void setBodySize(double lengthMm, double widthMm) {
+        this.lengthMm = lengthMm;
+        this.widthMm = widthMm;
+    }
 }
\ No newline at end of file
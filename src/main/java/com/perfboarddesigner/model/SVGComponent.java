@@ -1,10 +1,15 @@
 package com.perfboarddesigner.model;
 
 import javafx.scene.layout.Pane;
-import javafx.scene.control.Label;
+import javafx.geometry.VPos;
+import javafx.scene.text.Text;
 import javafx.scene.layout.VBox;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.paint.Color;
+import com.perfboarddesigner.util.SVGDocument;
+import com.perfboarddesigner.util.SVGLoader;
+import java.util.Collections;
+import java.util.Map;
 
 public class SVGComponent extends Component {
     private String svgFileName;
@@ -51,7 +56,43 @@ public class SVGComponent extends Component {
             scaledHeight = temp;
         }
         
-        // Create component-specific visual representation
+        // Parts with a drawing in the component library are drawn from it
+        SVGDocument document = SVGLoader.getDocument(svgFileName);
+        boolean valueDrawn = false;
+        if (document != null) {
+            // Orientation is applied by rotating the pane, so the drawing keeps its own proportions
+            scaledWidth = "resistor.svg".equals(svgFileName)
+                ? gridUnits * 2.54 * 6 * scaleFactor // Leads reach the grid points
+                : widthPx * scaleFactor;
+            scaledHeight = heightPx * scaleFactor;
+            valueDrawn = displayValue != null && document.hasText("value");
+            Map<String, String> texts = valueDrawn ? Map.of("value", displayValue) : Collections.emptyMap();
+            componentPane.getChildren().add(document.createNode(scaledWidth, scaledHeight, texts));
+        } else {
+            renderBuiltIn(componentPane, scaledWidth, scaledHeight);
+        }
+        
+        // Add value label
+        if (!valueDrawn && displayValue != null && !displayValue.isEmpty()) {
+            Text valueLabel = new Text(displayValue);
+            valueLabel.setTextOrigin(VPos.TOP);
+            valueLabel.setLayoutX(2);
+            valueLabel.setLayoutY(scaledHeight + 2);
+            valueLabel.setStyle("-fx-font-size: " + (7 * scaleFactor) + "px; -fx-fill: black; -fx-font-weight: bold;");
+            componentPane.getChildren().add(valueLabel);
+        }
+        
+        // Apply rotation to the entire component
+        if (orientation != ComponentOrientation.HORIZONTAL) {
+            componentPane.setRotate(orientation.getAngleDegrees());
+        }
+        
+        componentPane.setPrefSize(scaledWidth, scaledHeight + 12 * scaleFactor);
+        return componentPane;
+    }
+    
+    // Hand-drawn visuals for parts without a drawing in the library
+    private void renderBuiltIn(Pane componentPane, double scaledWidth, double scaledHeight) {
         switch (svgFileName) {
             case "resistor.svg":
                 renderResistor(componentPane, scaledWidth, scaledHeight);
@@ -80,23 +121,6 @@ public class SVGComponent extends Component {
             default:
                 renderGeneric(componentPane, scaledWidth, scaledHeight);
         }
-        
-        // Add value label
-        if (displayValue != null && !displayValue.isEmpty()) {
-            Label valueLabel = new Label(displayValue);
-            valueLabel.setLayoutX(2);
-            valueLabel.setLayoutY(scaledHeight + 2);
-            valueLabel.setStyle("-fx-font-size: " + (7 * scaleFactor) + "px; -fx-text-fill: black; -fx-font-weight: bold;");
-            componentPane.getChildren().add(valueLabel);
-        }
-        
-        // Apply rotation to the entire component
-        if (orientation != ComponentOrientation.HORIZONTAL) {
-            componentPane.setRotate(orientation.getAngleDegrees());
-        }
-        
-        componentPane.setPrefSize(scaledWidth, scaledHeight + 12 * scaleFactor);
-        return componentPane;
     }
     
     private void renderResistor(Pane pane, double w, double h) {
@@ -315,13 +339,38 @@ public class SVGComponent extends Component {
         body.setStrokeWidth(1 * scaleFactor);
         pane.getChildren().add(body);
         
-        Label typeLabel = new Label(getShortName());
+        Text typeLabel = new Text(getShortName());
+        typeLabel.setTextOrigin(VPos.TOP);
         typeLabel.setLayoutX(2 * scaleFactor);
         typeLabel.setLayoutY(2 * scaleFactor);
-        typeLabel.setStyle("-fx-font-size: " + (8 * scaleFactor) + "px; -fx-text-fill: black;");
+        typeLabel.setStyle("-fx-font-size: " + (8 * scaleFactor) + "px; -fx-fill: black;");
         pane.getChildren().add(typeLabel);
     }
     
+    @Override
+    public Footprint getFootprint() {
+        Footprint footprint;
+        if (pins == 2) {
+            footprint = Footprint.inline(2, gridUnits); // Leads gridUnits holes apart
+        } else if (pins == 4) {
+            footprint = new Footprint(new int[]{0, 2, 0, 2}, new int[]{0, 0, 2, 2}); // Square tactile switch
+        } else {
+            footprint = super.getFootprint();
+        }
+        return footprint.rotated(orientation.getAngleDegrees());
+    }
+
+    @Override
+    public String getVisualKey() {
+        // Drawn with the fallback until the file is parsed, which must not be cached as the drawing
+        if (!SVGLoader.isLoaded(svgFileName)) {
+            return null;
+        }
+        // The drawing's hash keeps renderings cached on disk from outliving an edit of the file
+        return "svg:" + svgFileName + "@" + SVGLoader.getContentHash(svgFileName) + "|" + displayValue + "|" + gridUnits + "|" + orientation
+            + "|" + scaleFactor + "|" + widthPx + "x" + heightPx;
+    }
+
     private Color getComponentColor() {
         switch (svgFileName) {
             case "resistor.svg": return Color.LIGHTYELLOW;
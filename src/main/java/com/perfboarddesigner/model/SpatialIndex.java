@@ -0,0 +1,208 @@
+package com.perfboarddesigner.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Uniform grid over board holes. Each item is stored by its bounding box of
+ * holes in every bucket that box touches, so a query only looks at the items
+ * near it instead of all of them.
+ */
+public class SpatialIndex<T> {
+    private static final int DEFAULT_BUCKET_SIZE = 8; // Holes per bucket side
+
+    private final int bucketSize;
+    private final Map<Long, List<T>> buckets = new HashMap<>();
+    // Bounding box of each item: minCol, minRow, maxCol, maxRow
+    private final Map<T, int[]> bounds = new IdentityHashMap<>();
+
+    public SpatialIndex() {
+        this(DEFAULT_BUCKET_SIZE);
+    }
+
+    public SpatialIndex(int bucketSize) {
+        if (bucketSize < 1) {
+            throw new IllegalArgumentException("Bucket size must be positive: " + bucketSize);
+        }
+        this.bucketSize = bucketSize;
+    }
+
+    /**
+     * Add an item covering the given holes (inclusive). An item already in
+     * the index is moved instead.
+     */
+    public void insert(T item, int minCol, int minRow, int maxCol, int maxRow) {
+        if (bounds.containsKey(item)) {
+            update(item, minCol, minRow, maxCol, maxRow);
+            return;
+        }
+        int[] box = {Math.min(minCol, maxCol), Math.min(minRow, maxRow),
+                     Math.max(minCol, maxCol), Math.max(minRow, maxRow)};
+        bounds.put(item, box);
+        addToBuckets(item, box);
+    }
+
+    /**
+     * Move an item to new bounds. Buckets are only touched when the item
+     * crosses into different ones.
+     */
+    public void update(T item, int minCol, int minRow, int maxCol, int maxRow) {
+        int[] box = bounds.get(item);
+        if (box == null) {
+            insert(item, minCol, minRow, maxCol, maxRow);
+            return;
+        }
+        int[] moved = {Math.min(minCol, maxCol), Math.min(minRow, maxRow),
+                       Math.max(minCol, maxCol), Math.max(minRow, maxRow)};
+        boolean sameBuckets = bucket(box[0]) == bucket(moved[0]) && bucket(box[1]) == bucket(moved[1])
+                && bucket(box[2]) == bucket(moved[2]) && bucket(box[3]) == bucket(moved[3]);
+        if (!sameBuckets) {
+            removeFromBuckets(item, box);
+            addToBuckets(item, moved);
+        }
+        System.arraycopy(moved, 0, box, 0, 4);
+    }
+
+    public boolean remove(T item) {
+        int[] box = bounds.remove(item);
+        if (box == null) {
+            return false;
+        }
+        removeFromBuckets(item, box);
+        return true;
+    }
+
+    public void clear() {
+        buckets.clear();
+        bounds.clear();
+    }
+
+    public int size() {
+        return bounds.size();
+    }
+
+    /**
+     * Visit every item whose bounds contain the hole.
+     */
+    public void forEachAt(int col, int row, Consumer<T> action) {
+        List<T> items = buckets.get(key(bucket(col), bucket(row)));
+        if (items == null) {
+            return;
+        }
+        for (T item : items) {
+            int[] box = bounds.get(item);
+            if (col >= box[0] && col <= box[2] && row >= box[1] && row <= box[3]) {
+                action.accept(item);
+            }
+        }
+    }
+
+    /**
+     * Visit every item whose bounds intersect the rectangle of holes
+     * (inclusive), each exactly once.
+     */
+    public void forEachIn(int minCol, int minRow, int maxCol, int maxRow, Consumer<T> action) {
+        int c0 = Math.min(minCol, maxCol), c1 = Math.max(minCol, maxCol);
+        int r0 = Math.min(minRow, maxRow), r1 = Math.max(minRow, maxRow);
+        for (int by = bucket(r0); by <= bucket(r1); by++) {
+            for (int bx = bucket(c0); bx <= bucket(c1); bx++) {
+                List<T> items = buckets.get(key(bx, by));
+                if (items == null) {
+                    continue;
+                }
+                for (T item : items) {
+                    int[] box = bounds.get(item);
+                    if (box[2] < c0 || box[0] > c1 || box[3] < r0 || box[1] > r1) {
+                        continue;
+                    }
+                    // Report from the first bucket of the overlap only
+                    if (bucket(Math.max(box[0], c0)) == bx && bucket(Math.max(box[1], r0)) == by) {
+                        action.accept(item);
+                    }
+                }
+            }
+        }
+    }
+
+    public List<T> queryRect(int minCol, int minRow, int maxCol, int maxRow) {
+        List<T> result = new ArrayList<>();
+        forEachIn(minCol, minRow, maxCol, maxRow, result::add);
+        return result;
+    }
+
+    /**
+     * The item whose bounds are closest to the hole, no further than the
+     * given distance in holes, or null. Searches outwards bucket ring by ring.
+     */
+    public T nearest(int col, int row, double maxDistance) {
+        int bx = bucket(col);
+        int by = bucket(row);
+        int maxRing = (int) Math.ceil(maxDistance / bucketSize) + 1;
+        T best = null;
+        double bestDistanceSq = maxDistance * maxDistance;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Nothing in this ring can be nearer than its inner edge
+            double ringDistance = Math.max(0, (ring - 1) * bucketSize);
+            if (best != null && ringDistance * ringDistance > bestDistanceSq) {
+                break;
+            }
+            for (int y = by - ring; y <= by + ring; y++) {
+                for (int x = bx - ring; x <= bx + ring; x++) {
+                    if (Math.abs(x - bx) != ring && Math.abs(y - by) != ring) {
+                        continue;
+                    }
+                    List<T> items = buckets.get(key(x, y));
+                    if (items == null) {
+                        continue;
+                    }
+                    for (T item : items) {
+                        int[] box = bounds.get(item);
+                        double dx = Math.max(0, Math.max(box[0] - col, col - box[2]));
+                        double dy = Math.max(0, Math.max(box[1] - row, row - box[3]));
+                        double distanceSq = dx * dx + dy * dy;
+                        if (distanceSq <= bestDistanceSq && (best == null || distanceSq < bestDistanceSq)) {
+                            best = item;
+                            bestDistanceSq = distanceSq;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private void addToBuckets(T item, int[] box) {
+        for (int by = bucket(box[1]); by <= bucket(box[3]); by++) {
+            for (int bx = bucket(box[0]); bx <= bucket(box[2]); bx++) {
+                buckets.computeIfAbsent(key(bx, by), k -> new ArrayList<>()).add(item);
+            }
+        }
+    }
+
+    private void removeFromBuckets(T item, int[] box) {
+        for (int by = bucket(box[1]); by <= bucket(box[3]); by++) {
+            for (int bx = bucket(box[0]); bx <= bucket(box[2]); bx++) {
+                long key = key(bx, by);
+                List<T> items = buckets.get(key);
+                if (items != null) {
+                    items.remove(item);
+                    if (items.isEmpty()) {
+                        buckets.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private int bucket(int hole) {
+        return Math.floorDiv(hole, bucketSize);
+    }
+
+    private static long key(int bx, int by) {
+        return ((long) bx << 32) | (by & 0xFFFFFFFFL);
+    }
+}
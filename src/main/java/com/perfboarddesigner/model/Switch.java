@@ -5,11 +5,6 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Rectangle;
-import javafx.scene.control.CheckBox;
-import javafx.scene.control.ComboBox;
-import javafx.scene.control.Label;
-import javafx.scene.layout.VBox;
-import javafx.collections.FXCollections;
 
 public class Switch extends Component {
     private String switchType; // "PushButton", "Toggle", "Slide", "Rotary"
@@ -45,37 +40,14 @@ public class Switch extends Component {
                 renderPushButton(switchPane);
         }
 
-        // Control panel
-        VBox controlBox = new VBox(5);
-        controlBox.setLayoutY(getBodyHeight() + 10);
-        
-        Label typeLabel = new Label(switchType + " Switch");
-        
-        ComboBox<String> typeCombo = new ComboBox<>(FXCollections.observableArrayList(
-            "PushButton", "Toggle", "Slide", "Rotary"));
-        typeCombo.setValue(switchType);
-        typeCombo.setOnAction(e -> {
-            this.switchType = typeCombo.getValue();
-            refreshSwitch(switchPane, controlBox);
-        });
-        
-        CheckBox momentaryCheck = new CheckBox("Momentary");
-        momentaryCheck.setSelected(momentary);
-        momentaryCheck.setOnAction(e -> this.momentary = momentaryCheck.isSelected());
-        
-        CheckBox stateCheck = new CheckBox("State (On/Pressed)");
-        stateCheck.setSelected(state);
-        stateCheck.setOnAction(e -> {
-            this.state = stateCheck.isSelected();
-            refreshSwitch(switchPane, controlBox);
-        });
-        
-        controlBox.getChildren().addAll(typeLabel, typeCombo, momentaryCheck, stateCheck);
-        switchPane.getChildren().add(controlBox);
-
-        switchPane.setPrefSize(Math.max(getBodyWidth(), 120), getBodyHeight() + 120);
+        switchPane.setPrefSize(getBodyWidth(), getBodyHeight());
         return switchPane;
     }
+
+    @Override
+    public String getVisualKey() {
+        return "switch:" + switchType + "|" + state;
+    }
     
     private void renderPushButton(Pane pane) {
         double diameter = 12 * MM_TO_PIXEL;
@@ -207,12 +179,6 @@ public class Switch extends Component {
         }
     }
     
-    private void refreshSwitch(Pane switchPane, VBox controlBox) {
-        switchPane.getChildren().clear();
-        render();
-        switchPane.getChildren().add(controlBox);
-    }
-    
     private double getBodyWidth() {
         switch (switchType) {
             case "Slide": return 15 * MM_TO_PIXEL;
@@ -5,11 +5,8 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import javafx.scene.shape.Line;
 import javafx.scene.shape.Rectangle;
-import javafx.scene.control.TextField;
-import javafx.scene.control.ComboBox;
-import javafx.scene.control.Label;
-import javafx.scene.layout.VBox;
-import javafx.collections.FXCollections;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
 
 public class Transistor extends Component {
     private String transistorType; // "NPN", "PNP", "NMOS", "PMOS"
@@ -36,26 +33,14 @@ public class Transistor extends Component {
             renderSOT23(transistorPane);
         }
 
-        // Control panel
-        VBox controlBox = new VBox(5);
-        controlBox.setLayoutY(getBodyHeight() + 5);
-        
-        Label typeLabel = new Label(transistorType + " Transistor");
-        
-        ComboBox<String> typeCombo = new ComboBox<>(FXCollections.observableArrayList("NPN", "PNP", "NMOS", "PMOS"));
-        typeCombo.setValue(transistorType);
-        typeCombo.setOnAction(e -> this.transistorType = typeCombo.getValue());
-        
-        TextField modelField = new TextField(model);
-        modelField.setPrefWidth(80);
-        modelField.textProperty().addListener((obs, oldVal, newVal) -> this.model = newVal);
-        
-        controlBox.getChildren().addAll(typeLabel, typeCombo, new Label("Model:"), modelField);
-        transistorPane.getChildren().add(controlBox);
-
-        transistorPane.setPrefSize(getBodyWidth() + 20, getBodyHeight() + 100);
+        transistorPane.setPrefSize(getBodyWidth(), getBodyHeight());
         return transistorPane;
     }
+
+    @Override
+    public String getVisualKey() {
+        return "transistor:" + packageType + "|" + pins;
+    }
     
     private void renderTO92(Pane pane) {
         // Half-circle body (flat side down)
@@ -82,23 +67,17 @@ public class Transistor extends Component {
         }
         
         // Pin labels
-        Label collectorLabel = new Label("C");
-        collectorLabel.setLayoutX(pinSpacing * 0.5 - 3);
-        collectorLabel.setLayoutY(radius * 2 + 12);
-        collectorLabel.setTextFill(Color.BLACK);
-        collectorLabel.setStyle("-fx-font-size: 8px;");
+        Text collectorLabel = new Text(pinSpacing * 0.5 - 3, radius * 2 + 20, "C");
+        collectorLabel.setFont(Font.font(8));
+        collectorLabel.setFill(Color.BLACK);
         
-        Label baseLabel = new Label("B");
-        baseLabel.setLayoutX(pinSpacing * 1.5 - 3);
-        baseLabel.setLayoutY(radius * 2 + 12);
-        baseLabel.setTextFill(Color.BLACK);
-        baseLabel.setStyle("-fx-font-size: 8px;");
+        Text baseLabel = new Text(pinSpacing * 1.5 - 3, radius * 2 + 20, "B");
+        baseLabel.setFont(Font.font(8));
+        baseLabel.setFill(Color.BLACK);
         
-        Label emitterLabel = new Label("E");
-        emitterLabel.setLayoutX(pinSpacing * 2.5 - 3);
-        emitterLabel.setLayoutY(radius * 2 + 12);
-        emitterLabel.setTextFill(Color.BLACK);
-        emitterLabel.setStyle("-fx-font-size: 8px;");
+        Text emitterLabel = new Text(pinSpacing * 2.5 - 3, radius * 2 + 20, "E");
+        emitterLabel.setFont(Font.font(8));
+        emitterLabel.setFill(Color.BLACK);
         
         pane.getChildren().addAll(collectorLabel, baseLabel, emitterLabel);
     }
@@ -0,0 +1,24 @@
+package com.perfboarddesigner.render;
+
+/**
+ * How much detail the board draws, chosen from the on-screen distance
+ * between neighbouring holes.
+ */
+public enum DetailLevel {
+    FULL,        // stroked holes, complete component visuals
+    SIMPLIFIED,  // flat square holes, component symbols blitted from a sprite atlas
+    FOOTPRINT;   // no holes, one filled block per component
+
+    public static final double FULL_MIN_PIXELS_PER_HOLE = 5.0;
+    public static final double SIMPLIFIED_MIN_PIXELS_PER_HOLE = 2.0;
+
+    public static DetailLevel forPixelsPerHole(double pixelsPerHole) {
+        if (pixelsPerHole >= FULL_MIN_PIXELS_PER_HOLE) {
+            return FULL;
+        }
+        if (pixelsPerHole >= SIMPLIFIED_MIN_PIXELS_PER_HOLE) {
+            return SIMPLIFIED;
+        }
+        return FOOTPRINT;
+    }
+}
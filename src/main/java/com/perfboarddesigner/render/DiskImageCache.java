@@ -0,0 +1,327 @@
+package com.perfboarddesigner.render;
+
+import com.perfboarddesigner.util.ContentHash;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Rendered bitmaps kept on disk between runs, so a warm start shows the
+ * palette and the board without drawing anything. Entries are looked up by
+ * a string key that must name everything the pixels depend on, including
+ * the content hash of any drawing they came from; the render version is
+ * part of the directory, so changing the drawing code orphans old entries.
+ *
+ * Files are read through a memory map and written on a background thread.
+ * A missing, stale or damaged file is simply a miss. Once the entries take
+ * more than the byte budget, the writer deletes the least recently used
+ * ones by modification time, which every hit refreshes.
+ */
+public final class DiskImageCache {
+    // Bump whenever a change to the drawing code alters what gets rendered
+    public static final int RENDER_VERSION = 4;
+
+    private static final int MAGIC = 0x4C484943; // "LHIC"
+    private static final int HEADER_INTS = 5;    // magic, version, width, height, metadata count
+    private static final String DIRECTORY_PREFIX = "render-v";
+    private static final long DEFAULT_BYTE_BUDGET = 256L << 20;
+
+    private static DiskImageCache defaultCache;
+
+    /**
+     * A cached bitmap, still backed by the mapped file, and the numbers
+     * stored with it.
+     */
+    public static final class Entry {
+        private final int width, height;
+        private final double[] metadata;
+        private final IntBuffer pixels;
+
+        private Entry(int width, int height, double[] metadata, IntBuffer pixels) {
+            this.width = width;
+            this.height = height;
+            this.metadata = metadata;
+            this.pixels = pixels;
+        }
+
+        /**
+         * Copy the pixels straight from the file into an image, e.g. a page of
+         * the sprite atlas.
+         */
+        public void writeTo(PixelWriter writer, int x, int y) {
+            writer.setPixels(x, y, width, height, PixelFormat.getIntArgbInstance(), pixels.duplicate(), width);
+        }
+
+        public WritableImage toImage() {
+            WritableImage image = new WritableImage(width, height);
+            writeTo(image.getPixelWriter(), 0, 0);
+            return image;
+        }
+
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public double getMetadata(int index) { return metadata[index]; }
+    }
+
+    private final Path directory; // null if the cache could not be created
+    private final ExecutorService writer;
+    private final long byteBudget;
+    private long bytesStored; // Size of the entries on disk, as far as the writer knows; writer thread only
+    private int hits;
+    private int misses;
+
+    public DiskImageCache(Path root) {
+        this(root, DEFAULT_BYTE_BUDGET);
+    }
+
+    /**
+     * @param byteBudget bytes of entries to keep on disk before deleting the least recently used
+     */
+    public DiskImageCache(Path root, long byteBudget) {
+        this.byteBudget = byteBudget;
+        Path versioned = root.resolve(DIRECTORY_PREFIX + RENDER_VERSION);
+        try {
+            Files.createDirectories(versioned);
+        } catch (IOException | SecurityException e) {
+            System.err.println("Render cache disabled: " + e.getMessage());
+            versioned = null;
+        }
+        this.directory = versioned;
+        this.writer = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "render-cache-writer");
+            thread.setDaemon(true); // Never keeps the application alive
+            return thread;
+        });
+        if (directory != null) {
+            writer.execute(() -> {
+                deleteOtherVersions(root);
+                trimToBudget(); // Also learns how much is stored
+            });
+        }
+    }
+
+    /**
+     * The cache in the user's cache directory, shared by the whole application.
+     */
+    public static synchronized DiskImageCache getDefault() {
+        if (defaultCache == null) {
+            defaultCache = new DiskImageCache(defaultRoot());
+        }
+        return defaultCache;
+    }
+
+    private static Path defaultRoot() {
+        String home = System.getProperty("user.home");
+        String os = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        String localAppData = System.getenv("LOCALAPPDATA");
+        String xdgCache = System.getenv("XDG_CACHE_HOME");
+        if (os.contains("win") && localAppData != null) {
+            return Paths.get(localAppData, "LevHaci", "cache");
+        }
+        if (os.contains("mac")) {
+            return Paths.get(home, "Library", "Caches", "LevHaci");
+        }
+        if (xdgCache != null && !xdgCache.isEmpty()) {
+            return Paths.get(xdgCache, "levhaci");
+        }
+        return Paths.get(home, ".cache", "levhaci");
+    }
+
+    /**
+     * The bitmap stored under the key, or null if there is none.
+     */
+    public Entry load(String key) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = fileFor(key);
+        if (!Files.isRegularFile(file)) {
+            misses++;
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Entry entry = readEntry(buffer);
+            if (entry != null) {
+                hits++;
+                writer.execute(() -> touch(file));
+                return entry;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Unreadable entries are treated like damaged ones
+        }
+        misses++;
+        writer.execute(() -> deleteQuietly(file));
+        return null;
+    }
+
+    private static Entry readEntry(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_INTS * Integer.BYTES
+                || buffer.getInt() != MAGIC || buffer.getInt() != RENDER_VERSION) {
+            return null;
+        }
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int count = buffer.getInt();
+        if (width <= 0 || height <= 0 || count < 0
+                || buffer.remaining() != (long) count * Double.BYTES + 4L * width * height) {
+            return null;
+        }
+        double[] metadata = new double[count];
+        buffer.asDoubleBuffer().get(metadata);
+        buffer.position(buffer.position() + count * Double.BYTES);
+        return new Entry(width, height, metadata, buffer.slice().asIntBuffer());
+    }
+
+    /**
+     * Save a bitmap under the key. The pixels are read right away, so the
+     * image may change afterwards; the file is written in the background.
+     */
+    public void store(String key, Image image, double... metadata) {
+        if (directory == null) {
+            return;
+        }
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        int[] pixels = new int[width * height];
+        image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        Path file = fileFor(key);
+        writer.execute(() -> write(file, width, height, metadata.clone(), pixels));
+    }
+
+    private void write(Path file, int width, int height, double[] metadata, int[] pixels) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_INTS * Integer.BYTES
+            + metadata.length * Double.BYTES + pixels.length * Integer.BYTES);
+        buffer.putInt(MAGIC).putInt(RENDER_VERSION).putInt(width).putInt(height).putInt(metadata.length);
+        for (double value : metadata) {
+            buffer.putDouble(value);
+        }
+        buffer.asIntBuffer().put(pixels);
+        buffer.rewind();
+        Path temp = null;
+        try {
+            // Readers only ever see complete files
+            temp = Files.createTempFile(directory, "entry", ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            bytesStored += buffer.capacity();
+            if (bytesStored > byteBudget) {
+                trimToBudget();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write render cache entry: " + e.getMessage());
+            if (temp != null) {
+                deleteQuietly(temp);
+            }
+        }
+    }
+
+    // Runs on the writer: delete the least recently used entries until well under the budget
+    private void trimToBudget() {
+        List<Path> files = new ArrayList<>();
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.img")) {
+            for (Path file : stream) {
+                try {
+                    BasicFileAttributes fileAttributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    files.add(file);
+                    attributes.put(file, fileAttributes);
+                    total += fileAttributes.size();
+                } catch (IOException e) {
+                    // Deleted meanwhile
+                }
+            }
+        } catch (IOException e) {
+            return;
+        }
+        bytesStored = total;
+        if (total <= byteBudget) {
+            return;
+        }
+        // Down to three quarters, so the next few writes do not list the directory again
+        long target = byteBudget / 4 * 3;
+        files.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+        for (Path file : files) {
+            if (bytesStored <= target) {
+                break;
+            }
+            deleteQuietly(file);
+            bytesStored -= attributes.get(file).size();
+        }
+    }
+
+    // A hit marks the entry as recently used
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only makes the entry a little more likely to be evicted
+        }
+    }
+
+    // Keys can be long and contain any character, so files are named by their hash
+    private Path fileFor(String key) {
+        return directory.resolve(ContentHash.of(key.getBytes(StandardCharsets.UTF_8)) + ".img");
+    }
+
+    private void deleteOtherVersions(Path root) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, DIRECTORY_PREFIX + "*")) {
+            for (Path old : stream) {
+                if (!old.equals(directory)) {
+                    deleteTree(old);
+                }
+            }
+        } catch (IOException e) {
+            // Leftovers only cost disk space
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(DiskImageCache::deleteQuietly);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Tried again the next time the entry is found damaged
+        }
+    }
+
+    public boolean isEnabled() { return directory != null; }
+    public int getHits() { return hits; }
+    public int getMisses() { return misses; }
+}
@@ -0,0 +1,161 @@
+package com.perfboarddesigner.render;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.effect.Effect;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Transform;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of rendered component visuals. Each entry is a bitmap of
+ * one visual identity; {@link Prototype#newInstance()} turns it into a
+ * two-node stand-in for the full pane, so identical parts are only built and
+ * rasterized once. With a disk cache, bitmaps of string keys also outlive
+ * the run, and a warm start takes them from there without rendering.
+ */
+public class RenderCache {
+    // Bitmaps are taken at this multiple of model resolution, so they stay sharp up to this zoom
+    public static final double SNAPSHOT_SCALE = 4.0;
+
+    /**
+     * A rasterized visual together with the geometry needed to stand in for it.
+     */
+    public static final class Prototype {
+        private final Image image;
+        private final double offsetX, offsetY; // Top-left of the bitmap in the visual's own coordinates
+        private final double width, height;    // Preferred size of the original pane
+        private final double rotate;
+
+        private Prototype(Image image, double offsetX, double offsetY, double width, double height, double rotate) {
+            this.image = image;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.width = width;
+            this.height = height;
+            this.rotate = rotate;
+        }
+
+        /**
+         * A lightweight pane with the original's size and rotation, showing
+         * the shared bitmap.
+         */
+        public Pane newInstance() {
+            ImageView view = new ImageView(image);
+            view.setX(offsetX);
+            view.setY(offsetY);
+            view.setFitWidth(image.getWidth() / SNAPSHOT_SCALE);
+            view.setFitHeight(image.getHeight() / SNAPSHOT_SCALE);
+            Pane pane = new Pane(view);
+            pane.setPrefSize(width, height);
+            pane.setRotate(rotate);
+            pane.getProperties().put(Prototype.class, this);
+            return pane;
+        }
+
+        public Image getImage() { return image; }
+    }
+
+    /**
+     * Whether the node is a stand-in made by {@link Prototype#newInstance()},
+     * which blurs once zoomed in past {@link #SNAPSHOT_SCALE}.
+     */
+    public static boolean isSnapshot(Node node) {
+        return node != null && node.getProperties().containsKey(Prototype.class);
+    }
+
+    private final Map<Object, Prototype> entries;
+    private final DiskImageCache diskCache;
+    private int hits;
+    private int misses;
+
+    public RenderCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    /**
+     * @param diskCache where bitmaps of string keys are kept between runs, or null
+     */
+    public RenderCache(int maxEntries, DiskImageCache diskCache) {
+        this.diskCache = diskCache;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Prototype> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The prototype for the key, rasterizing the supplied visual on a miss.
+     * The supplier may return a live node; it is left as it was.
+     */
+    public Prototype getOrCreate(Object key, Supplier<? extends Node> renderer) {
+        Prototype prototype = entries.get(key);
+        if (prototype != null) {
+            hits++;
+            return prototype;
+        }
+        misses++;
+        // Only string keys mean the same thing in the next run
+        String diskKey = diskCache != null && key instanceof String ? "render|" + SNAPSHOT_SCALE + "|" + key : null;
+        prototype = diskKey != null ? loadPrototype(diskKey) : null;
+        if (prototype == null) {
+            prototype = rasterize(renderer.get());
+            if (diskKey != null) {
+                diskCache.store(diskKey, prototype.image,
+                    prototype.offsetX, prototype.offsetY, prototype.width, prototype.height, prototype.rotate);
+            }
+        }
+        entries.put(key, prototype);
+        return prototype;
+    }
+
+    private Prototype loadPrototype(String diskKey) {
+        DiskImageCache.Entry entry = diskCache.load(diskKey);
+        if (entry == null) {
+            return null;
+        }
+        return new Prototype(entry.toImage(), entry.getMetadata(0), entry.getMetadata(1),
+            entry.getMetadata(2), entry.getMetadata(3), entry.getMetadata(4));
+    }
+
+    private static Prototype rasterize(Node node) {
+        // Capture the bare visual: no rotation, no selection glow
+        double rotate = node.getRotate();
+        List<Transform> transforms = new ArrayList<>(node.getTransforms());
+        Effect effect = node.getEffect();
+        node.setRotate(0);
+        node.getTransforms().clear();
+        node.setEffect(null);
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        parameters.setTransform(new Scale(SNAPSHOT_SCALE, SNAPSHOT_SCALE));
+        Image image = node.snapshot(parameters, null);
+        Bounds bounds = node.getBoundsInLocal();
+        double width = node.prefWidth(-1);
+        double height = node.prefHeight(-1);
+        node.setRotate(rotate);
+        node.getTransforms().setAll(transforms);
+        node.setEffect(effect);
+        return new Prototype(image, bounds.getMinX(), bounds.getMinY(), width, height, rotate);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() { return entries.size(); }
+    public int getHits() { return hits; }
+    public int getMisses() { return misses; }
+}
@@ -0,0 +1,71 @@
+package com.perfboarddesigner.render;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * Coalesces render requests and runs the render action at most once per
+ * JavaFX pulse. Callers can also hold the render back for a quiet period,
+ * e.g. while the user is still typing.
+ */
+public class RenderScheduler {
+    private final Runnable renderAction;
+    private final AnimationTimer timer;
+    private boolean pending;
+    private boolean running;
+    private long notBeforeNanos;
+
+    public RenderScheduler(Runnable renderAction) {
+        this.renderAction = renderAction;
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                onPulse(now);
+            }
+        };
+    }
+
+    /**
+     * Ask for a render on the next pulse. Repeated requests before that pulse
+     * collapse into a single render.
+     */
+    public void requestRender() {
+        pending = true;
+        if (!running) {
+            running = true;
+            timer.start();
+        }
+    }
+
+    /**
+     * Push any pending render back until no request has arrived for the given
+     * number of milliseconds.
+     */
+    public void deferFor(long quietMillis) {
+        notBeforeNanos = System.nanoTime() + quietMillis * 1_000_000L;
+    }
+
+    /**
+     * Run a pending render right away instead of waiting for the next pulse.
+     */
+    public void flush() {
+        if (pending) {
+            pending = false;
+            renderAction.run();
+        }
+    }
+
+    public boolean isPending() { return pending; }
+
+    private void onPulse(long now) {
+        if (!pending) {
+            running = false;
+            timer.stop();
+            return;
+        }
+        if (now < notBeforeNanos) {
+            return; // Still inside a debounce window
+        }
+        pending = false;
+        renderAction.run();
+    }
+}
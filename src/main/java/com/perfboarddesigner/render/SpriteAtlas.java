@@ -0,0 +1,300 @@
+package com.perfboarddesigner.render;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.effect.Effect;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Rotate;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Transform;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Component visuals rasterized into shared image pages, so a canvas can draw
+ * any number of parts as plain image blits. Sprites are made per visual,
+ * rotation and zoom bucket. Buckets are powers of two at or above the zoom,
+ * so a sprite is only ever shrunk, and by at most half.
+ *
+ * Pages are owned by their bucket. Once the pages of all buckets exceed the
+ * memory budget, the least recently used buckets are dropped whole; their
+ * sprites are rasterized again if that zoom comes back. With a disk cache,
+ * sprites of string keys are also kept between runs and copied straight
+ * into the pages instead of being rasterized.
+ */
+public class SpriteAtlas {
+    private static final int PAGE_SIZE = 512;
+    private static final int PADDING = 1; // Keeps filtering from bleeding in neighbouring sprites
+    private static final int MIN_EXPONENT = -8;
+    private static final int MAX_EXPONENT = 5;
+
+    /**
+     * One rasterized visual: a rectangle of a page and where it goes
+     * relative to the part's origin.
+     */
+    public static final class Sprite {
+        private final Image page;
+        private final int x, y, width, height;
+        private final double offsetX, offsetY; // Model units
+        private final double resolution;       // Page pixels per model unit
+
+        private Sprite(Image page, int x, int y, int width, int height,
+                       double offsetX, double offsetY, double resolution) {
+            this.page = page;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.resolution = resolution;
+        }
+
+        /**
+         * Blit the sprite for a part whose origin is at (originX, originY)
+         * in the canvas, which draws model space at the given scale.
+         */
+        public void draw(GraphicsContext gc, double originX, double originY, double scale) {
+            double factor = scale / resolution;
+            gc.drawImage(page, x, y, width, height,
+                originX + offsetX * scale, originY + offsetY * scale, width * factor, height * factor);
+        }
+
+        public double getMinX(double originX, double scale) { return originX + offsetX * scale; }
+        public double getMinY(double originY, double scale) { return originY + offsetY * scale; }
+        public double getWidth(double scale) { return width * scale / resolution; }
+        public double getHeight(double scale) { return height * scale / resolution; }
+    }
+
+    private static final class SpriteKey {
+        private final Object visual;
+        private final int degrees;
+
+        SpriteKey(Object visual, int degrees) {
+            this.visual = visual;
+            this.degrees = degrees;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SpriteKey)) return false;
+            SpriteKey other = (SpriteKey) o;
+            return degrees == other.degrees && visual.equals(other.visual);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * visual.hashCode() + degrees;
+        }
+    }
+
+    // The sprites of one zoom bucket and the pages they are packed into
+    private static final class Bucket {
+        private final double resolution;
+        private final Map<SpriteKey, Sprite> sprites = new HashMap<>();
+        private final List<WritableImage> pages = new ArrayList<>();
+        private long bytes;
+        // Page being filled shelf by shelf, left to right and top to bottom
+        private WritableImage shelfPage;
+        private int shelfX, shelfY, shelfHeight;
+
+        Bucket(double resolution) {
+            this.resolution = resolution;
+        }
+    }
+
+    // Copies pixels into a page at the given position
+    private interface PixelSource {
+        void writeTo(PixelWriter writer, int x, int y);
+    }
+
+    // Access ordered, so the first bucket is the least recently drawn
+    private final Map<Integer, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+    private final DiskImageCache diskCache;
+    private long memoryBudget;
+    private long memoryUsed;
+    private int rasterized;
+
+    /**
+     * @param memoryBudget bytes of page memory to keep before evicting buckets
+     */
+    public SpriteAtlas(long memoryBudget) {
+        this(memoryBudget, null);
+    }
+
+    /**
+     * @param memoryBudget bytes of page memory to keep before evicting buckets
+     * @param diskCache where sprites of string keys are kept between runs, or null
+     */
+    public SpriteAtlas(long memoryBudget, DiskImageCache diskCache) {
+        this.memoryBudget = memoryBudget;
+        this.diskCache = diskCache;
+    }
+
+    /**
+     * The sprite of a visual at the given rotation and scale, rasterizing the
+     * supplied node on a miss. The node is left as it was.
+     *
+     * @param visual identity of the visual; equal keys must look the same
+     * @param rotate clockwise rotation in degrees, about the node's origin
+     */
+    public Sprite get(Object visual, double rotate, double scale, Supplier<? extends Node> renderer) {
+        int exponent = Math.max(MIN_EXPONENT, Math.min(MAX_EXPONENT, (int) Math.ceil(Math.log(scale) / Math.log(2))));
+        Bucket bucket = buckets.get(exponent);
+        if (bucket == null) {
+            bucket = new Bucket(Math.pow(2, exponent));
+            buckets.put(exponent, bucket);
+        }
+        SpriteKey key = new SpriteKey(visual, Math.floorMod((int) Math.round(rotate), 360));
+        Sprite sprite = bucket.sprites.get(key);
+        if (sprite == null) {
+            // Only string keys mean the same thing in the next run
+            String diskKey = diskCache != null && visual instanceof String
+                ? "sprite|" + exponent + "|" + key.degrees + "|" + visual : null;
+            DiskImageCache.Entry entry = diskKey != null ? diskCache.load(diskKey) : null;
+            if (entry != null) {
+                sprite = pack(bucket, entry.getWidth(), entry.getHeight(), entry::writeTo,
+                    entry.getMetadata(0), entry.getMetadata(1));
+            } else {
+                sprite = rasterize(bucket, renderer.get(), key.degrees, diskKey);
+            }
+            bucket.sprites.put(key, sprite);
+            trimToBudget(bucket);
+        }
+        return sprite;
+    }
+
+    private Sprite rasterize(Bucket bucket, Node node, int degrees, String diskKey) {
+        rasterized++;
+        // Capture the bare visual: no rotation of its own, no selection glow
+        double rotate = node.getRotate();
+        List<Transform> transforms = new ArrayList<>(node.getTransforms());
+        Effect effect = node.getEffect();
+        node.setRotate(0);
+        node.getTransforms().clear();
+        node.setEffect(null);
+        // Rotate about the origin, the part's anchor hole, as the board does
+        Transform transform = new Scale(bucket.resolution, bucket.resolution)
+            .createConcatenation(new Rotate(degrees));
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        parameters.setTransform(transform);
+        WritableImage image = node.snapshot(parameters, null);
+        Bounds bounds = transform.transform(node.getBoundsInLocal());
+        node.setRotate(rotate);
+        node.getTransforms().setAll(transforms);
+        node.setEffect(effect);
+
+        double offsetX = Math.floor(bounds.getMinX()) / bucket.resolution;
+        double offsetY = Math.floor(bounds.getMinY()) / bucket.resolution;
+        if (diskKey != null) {
+            diskCache.store(diskKey, image, offsetX, offsetY);
+        }
+        return pack(bucket, (int) image.getWidth(), (int) image.getHeight(),
+            (writer, x, y) -> writer.setPixels(x, y, (int) image.getWidth(), (int) image.getHeight(),
+                image.getPixelReader(), 0, 0),
+            offsetX, offsetY);
+    }
+
+    // Find room for a sprite of the given size and copy its pixels there
+    private Sprite pack(Bucket bucket, int width, int height, PixelSource source, double offsetX, double offsetY) {
+        WritableImage page;
+        int x = 0, y = 0;
+        if (width > PAGE_SIZE || height > PAGE_SIZE) {
+            // Too big to share a page; the shelf page stays open for the next sprite
+            page = addPage(bucket, width, height);
+        } else {
+            if (bucket.shelfPage != null && bucket.shelfX + width > PAGE_SIZE) {
+                bucket.shelfX = 0;
+                bucket.shelfY += bucket.shelfHeight;
+                bucket.shelfHeight = 0;
+            }
+            if (bucket.shelfPage == null || bucket.shelfY + height > PAGE_SIZE) {
+                bucket.shelfPage = addPage(bucket, PAGE_SIZE, PAGE_SIZE);
+                bucket.shelfX = 0;
+                bucket.shelfY = 0;
+                bucket.shelfHeight = 0;
+            }
+            page = bucket.shelfPage;
+            x = bucket.shelfX;
+            y = bucket.shelfY;
+            bucket.shelfX += width + PADDING;
+            bucket.shelfHeight = Math.max(bucket.shelfHeight, height + PADDING);
+        }
+        source.writeTo(page.getPixelWriter(), x, y);
+        return new Sprite(page, x, y, width, height, offsetX, offsetY, bucket.resolution);
+    }
+
+    private WritableImage addPage(Bucket bucket, int width, int height) {
+        WritableImage page = new WritableImage(width, height);
+        long bytes = 4L * width * height; // 32-bit pixels
+        bucket.pages.add(page);
+        bucket.bytes += bytes;
+        memoryUsed += bytes;
+        return page;
+    }
+
+    // Drop the least recently used buckets until the pages fit the budget again
+    private void trimToBudget(Bucket current) {
+        Iterator<Bucket> it = buckets.values().iterator();
+        while (memoryUsed > memoryBudget && it.hasNext()) {
+            Bucket bucket = it.next();
+            if (bucket != current) {
+                memoryUsed -= bucket.bytes;
+                it.remove();
+            }
+        }
+        if (memoryUsed > memoryBudget && current.pages.size() > 1) {
+            // A single zoom needs more than the budget: start its pages over
+            // rather than grow without bound. Sprites already handed out stay valid.
+            memoryUsed -= current.bytes;
+            current.bytes = 0;
+            current.pages.clear();
+            current.sprites.clear();
+            current.shelfPage = null;
+        }
+    }
+
+    /**
+     * Forget every sprite of the visual, e.g. after its part was edited in a
+     * way its key does not capture. The page space is reclaimed with the bucket.
+     */
+    public void invalidate(Object visual) {
+        for (Bucket bucket : buckets.values()) {
+            bucket.sprites.keySet().removeIf(key -> key.visual.equals(visual));
+        }
+    }
+
+    public void clear() {
+        buckets.clear();
+        memoryUsed = 0;
+    }
+
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        if (!buckets.isEmpty()) {
+            // Keep the most recently used bucket
+            Bucket newest = null;
+            for (Bucket bucket : buckets.values()) {
+                newest = bucket;
+            }
+            trimToBudget(newest);
+        }
+    }
+
+    public long getMemoryBudget() { return memoryBudget; }
+    public long getMemoryUsed() { return memoryUsed; }
+    public int getBucketCount() { return buckets.size(); }
+    public int getRasterizedCount() { return rasterized; }
+}
@@ -0,0 +1,129 @@
+package com.perfboarddesigner.render;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Pane;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A layer painted into fixed-size canvas tiles. Only the tiles that intersect
+ * the viewport (plus a prefetch margin) exist at any time; tiles that scroll
+ * out of view are returned to a pool and reused for the ones scrolling in.
+ */
+public class TiledCanvasLayer extends Pane {
+
+    /**
+     * Paints the part of the layer inside the given rectangle. The graphics
+     * context is already translated so layer coordinates can be used as is.
+     */
+    public interface TilePainter {
+        void paint(GraphicsContext gc, double x, double y, double width, double height);
+    }
+
+    public static final double TILE_SIZE = 256;
+    private static final double PREFETCH_MARGIN = TILE_SIZE / 2;
+
+    private final TilePainter painter;
+    private final Map<Long, Canvas> liveTiles = new HashMap<>();
+    private final ArrayDeque<Canvas> tilePool = new ArrayDeque<>();
+    private double contentWidth;
+    private double contentHeight;
+    // Visible area in layer coordinates; a negative width means "everything"
+    private double viewX, viewY;
+    private double viewWidth = -1, viewHeight = -1;
+
+    public TiledCanvasLayer(TilePainter painter) {
+        this.painter = painter;
+    }
+
+    public void setContentSize(double width, double height) {
+        this.contentWidth = width;
+        this.contentHeight = height;
+        setPrefSize(width, height);
+    }
+
+    public void setViewport(double x, double y, double width, double height) {
+        this.viewX = x;
+        this.viewY = y;
+        this.viewWidth = width;
+        this.viewHeight = height;
+    }
+
+    /**
+     * Repaint every live tile, then bring the tile set in line with the viewport.
+     */
+    public void repaint() {
+        for (Map.Entry<Long, Canvas> entry : liveTiles.entrySet()) {
+            long key = entry.getKey();
+            paintTile(entry.getValue(), (int) (key >> 32), (int) key);
+        }
+        updateTiles();
+    }
+
+    /**
+     * Drop the tiles that left the viewport and paint the ones that entered it.
+     * Tiles that stay visible are not repainted.
+     */
+    public void updateTiles() {
+        double x0 = 0, y0 = 0, x1 = contentWidth, y1 = contentHeight;
+        if (viewWidth >= 0 && viewHeight >= 0) {
+            x0 = Math.max(x0, viewX - PREFETCH_MARGIN);
+            y0 = Math.max(y0, viewY - PREFETCH_MARGIN);
+            x1 = Math.min(x1, viewX + viewWidth + PREFETCH_MARGIN);
+            y1 = Math.min(y1, viewY + viewHeight + PREFETCH_MARGIN);
+        }
+        int firstCol = (int) Math.floor(x0 / TILE_SIZE);
+        int firstRow = (int) Math.floor(y0 / TILE_SIZE);
+        int lastCol = (int) Math.ceil(x1 / TILE_SIZE) - 1;
+        int lastRow = (int) Math.ceil(y1 / TILE_SIZE) - 1;
+
+        Iterator<Map.Entry<Long, Canvas>> it = liveTiles.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Canvas> entry = it.next();
+            long key = entry.getKey();
+            int col = (int) (key >> 32);
+            int row = (int) key;
+            if (col < firstCol || col > lastCol || row < firstRow || row > lastRow) {
+                Canvas tile = entry.getValue();
+                getChildren().remove(tile);
+                tilePool.push(tile);
+                it.remove();
+            }
+        }
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                long key = tileKey(col, row);
+                if (!liveTiles.containsKey(key)) {
+                    Canvas tile = tilePool.isEmpty() ? new Canvas(TILE_SIZE, TILE_SIZE) : tilePool.pop();
+                    tile.setLayoutX(col * TILE_SIZE);
+                    tile.setLayoutY(row * TILE_SIZE);
+                    paintTile(tile, col, row);
+                    liveTiles.put(key, tile);
+                    getChildren().add(tile);
+                }
+            }
+        }
+    }
+
+    public int getLiveTileCount() { return liveTiles.size(); }
+
+    private void paintTile(Canvas tile, int col, int row) {
+        double x = col * TILE_SIZE;
+        double y = row * TILE_SIZE;
+        GraphicsContext gc = tile.getGraphicsContext2D();
+        gc.clearRect(0, 0, TILE_SIZE, TILE_SIZE);
+        gc.save();
+        gc.translate(-x, -y);
+        painter.paint(gc, x, y, TILE_SIZE, TILE_SIZE);
+        gc.restore();
+    }
+
+    private static long tileKey(int col, int row) {
+        return ((long) col << 32) | (row & 0xFFFFFFFFL);
+    }
+}
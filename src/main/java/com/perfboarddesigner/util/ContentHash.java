@@ -0,0 +1,28 @@
+package com.perfboarddesigner.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Names content by its SHA-256, for cache keys and file names.
+ */
+public final class ContentHash {
+    private ContentHash() {
+    }
+
+    /**
+     * Hex SHA-256 of the bytes.
+     */
+    public static String of(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // Required of every JVM
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.perfboarddesigner.util;
+
+import javafx.geometry.VPos;
+import javafx.scene.Group;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.shape.SVGPath;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Translate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsed, immutable contents of an SVG file: its view box and the shapes to
+ * draw, in paint order. One instance can be drawn any number of times, at
+ * any size, as nodes or onto a canvas.
+ */
+public final class SVGDocument {
+    private final double viewX, viewY, viewWidth, viewHeight;
+    private final List<SVGShape> shapes;
+
+    SVGDocument(double viewX, double viewY, double viewWidth, double viewHeight, List<SVGShape> shapes) {
+        this.viewX = viewX;
+        this.viewY = viewY;
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.shapes = Collections.unmodifiableList(shapes);
+    }
+
+    /**
+     * Whether a text element with the given id exists, i.e. whether
+     * {@link #createNode(double, double, Map)} can replace its content.
+     */
+    public boolean hasText(String id) {
+        for (SVGShape shape : shapes) {
+            if (shape.getKind() == SVGShape.Kind.TEXT && id.equals(shape.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build the drawing as nodes, stretched to the given size. Consecutive
+     * paths with the same paint are joined into one SVGPath, so a typical
+     * part is a handful of nodes. Texts whose id is a key of textById show
+     * the mapped value instead of their own content.
+     */
+    public Group createNode(double width, double height, Map<String, String> textById) {
+        Group group = new Group();
+        int i = 0;
+        while (i < shapes.size()) {
+            SVGShape shape = shapes.get(i);
+            if (shape.getKind() == SVGShape.Kind.TEXT) {
+                group.getChildren().add(createText(shape, textById.getOrDefault(shape.getId(), shape.getText())));
+                i++;
+                continue;
+            }
+            StringBuilder content = new StringBuilder(shape.getPathData());
+            int next = i + 1;
+            // Each generated path starts with an absolute move, so joined paths keep their positions
+            while (next < shapes.size() && shape.samePaint(shapes.get(next))
+                    && shapes.get(next).getPathData().startsWith("M")) {
+                content.append(' ').append(shapes.get(next).getPathData());
+                next++;
+            }
+            SVGPath path = new SVGPath();
+            path.setContent(content.toString());
+            path.setFill(shape.getFill());
+            path.setStroke(shape.getStroke());
+            path.setStrokeWidth(shape.getStrokeWidth());
+            group.getChildren().add(path);
+            i = next;
+        }
+        group.getTransforms().addAll(new Scale(width / viewWidth, height / viewHeight), new Translate(-viewX, -viewY));
+        return group;
+    }
+
+    private static Text createText(SVGShape shape, String content) {
+        Text text = new Text(content);
+        text.setFont(Font.font(shape.getFontFamily(), shape.getFontSize()));
+        text.setFill(shape.getFill());
+        // SVG anchors the text at x; a Text node always starts there
+        double width = text.getLayoutBounds().getWidth();
+        double x = shape.getX();
+        if (shape.getAlignment() == TextAlignment.CENTER) {
+            x -= width / 2;
+        } else if (shape.getAlignment() == TextAlignment.RIGHT) {
+            x -= width;
+        }
+        text.setX(x);
+        text.setY(shape.getY());
+        return text;
+    }
+
+    /**
+     * Draw the drawing onto a canvas, stretched into the given rectangle.
+     */
+    public void draw(GraphicsContext gc, double x, double y, double width, double height) {
+        gc.save();
+        gc.translate(x, y);
+        gc.scale(width / viewWidth, height / viewHeight);
+        gc.translate(-viewX, -viewY);
+        for (SVGShape shape : shapes) {
+            if (shape.getKind() == SVGShape.Kind.TEXT) {
+                if (shape.getFill() != null) {
+                    gc.setFont(Font.font(shape.getFontFamily(), shape.getFontSize()));
+                    gc.setTextAlign(shape.getAlignment());
+                    gc.setTextBaseline(VPos.BASELINE);
+                    gc.setFill(shape.getFill());
+                    gc.fillText(shape.getText(), shape.getX(), shape.getY());
+                }
+                continue;
+            }
+            gc.beginPath();
+            gc.appendSVGPath(shape.getPathData());
+            if (shape.getFill() != null) {
+                gc.setFill(shape.getFill());
+                gc.fill();
+            }
+            if (shape.getStroke() != null) {
+                gc.setStroke(shape.getStroke());
+                gc.setLineWidth(shape.getStrokeWidth());
+                gc.stroke();
+            }
+        }
+        gc.restore();
+    }
+
+    public double getViewX() { return viewX; }
+    public double getViewY() { return viewY; }
+    public double getViewWidth() { return viewWidth; }
+    public double getViewHeight() { return viewHeight; }
+    public List<SVGShape> getShapes() { return shapes; }
+}
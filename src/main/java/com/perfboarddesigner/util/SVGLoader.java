@@ -1,143 +1,215 @@
 package com.perfboarddesigner.util;
 
-import javafx.scene.Group;
+import javafx.application.Platform;
 import javafx.scene.layout.Pane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.SVGPath;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.HashMap;
-import java.util.Map;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Utility class for loading and rendering SVG files as JavaFX components
+ * Utility class for loading and rendering SVG files as JavaFX components.
+ * Drawings are parsed off the FX thread by {@link #preloadAll()}; any thread
+ * may ask for them, and none ever waits for a parse: until a drawing is in,
+ * callers get null and draw their fallback, then render again through
+ * {@link #whenLoaded(String, Runnable)}.
  */
 public class SVGLoader {
-    
-    // Cache for loaded SVG content
-    private static final Map<String, String> svgCache = new HashMap<>();
-    
+    private static final String COMPONENT_DIR = "/components/";
+
+    // One future per file, so every caller shares a single parse. Documents are
+    // immutable and published through the future; null marks a missing or invalid file.
+    private static final ConcurrentMap<String, CompletableFuture<SVGDocument>> documents = new ConcurrentHashMap<>();
+    // SHA-256 of each file's bytes, so cached renderings can tell when a drawing changed
+    private static final ConcurrentMap<String, String> contentHashes = new ConcurrentHashMap<>();
+
     /**
      * Load SVG file from resources and return as JavaFX Pane
      * @param svgFileName Name of the SVG file (e.g., "resistor.svg")
      * @param width Desired width of the component
      * @param height Desired height of the component
      * @param scaleFactor Scale factor for resizing
-     * @return Pane containing the SVG graphics
+     * @return Pane containing the SVG graphics, empty if the file could not be loaded
      */
     public static Pane loadSVG(String svgFileName, double width, double height, double scaleFactor) {
-        try {
-            String svgContent = loadSVGContent(svgFileName);
-            if (svgContent != null) {
-                return createSVGPane(svgContent, width, height, scaleFactor);
-            }
-        } catch (Exception e) {
-            System.err.println("Error loading SVG: " + svgFileName + " - " + e.getMessage());
+        Pane pane = new Pane();
+        SVGDocument document = getDocument(svgFileName);
+        if (document != null) {
+            pane.getChildren().add(document.createNode(width * scaleFactor, height * scaleFactor, Collections.emptyMap()));
         }
-        
-        // Fallback to basic shape if SVG loading fails
-        return createFallbackShape(svgFileName, width, height, scaleFactor);
+        pane.setPrefSize(width * scaleFactor, height * scaleFactor);
+        return pane;
     }
-    
+
     /**
-     * Load SVG content from resources
+     * The parsed drawing in /components/, or null if there is none or it is
+     * still being parsed. A file that has not been queued is queued now, on a
+     * background thread.
      */
-    private static String loadSVGContent(String svgFileName) throws IOException {
-        if (svgCache.containsKey(svgFileName)) {
-            return svgCache.get(svgFileName);
-        }
-        
-        InputStream inputStream = SVGLoader.class.getResourceAsStream("/components/" + svgFileName);
-        if (inputStream == null) {
-            System.out.println("SVG file not found: " + svgFileName + ", using fallback rendering");
-            return null;
-        }
-        
-        StringBuilder content = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
-            }
-        }
-        
-        String svgContent = content.toString();
-        svgCache.put(svgFileName, svgContent);
-        return svgContent;
+    public static SVGDocument getDocument(String svgFileName) {
+        CompletableFuture<SVGDocument> future = loading(svgFileName);
+        return future.isDone() ? future.getNow(null) : null;
     }
-    
+
     /**
-     * Create JavaFX Pane from SVG content
+     * Whether the drawing has been parsed or found missing, so that
+     * {@link #getDocument(String)} gives its final answer. Queues the file if
+     * nobody asked for it yet.
      */
-    private static Pane createSVGPane(String svgContent, double width, double height, double scaleFactor) {
-        Pane pane = new Pane();
-        Group svgGroup = new Group();
-        
-        // Simple SVG path extraction (for basic SVG files)
-        // This is a simplified implementation - for complex SVGs, use a proper SVG library
-        String[] paths = extractSVGPaths(svgContent);
-        
-        for (String pathData : paths) {
-            if (!pathData.isEmpty()) {
-                SVGPath svgPath = new SVGPath();
-                svgPath.setContent(pathData);
-                svgPath.setFill(Color.DARKGRAY);
-                svgPath.setStroke(Color.BLACK);
-                svgPath.setStrokeWidth(0.5);
-                
-                // Scale the path
-                svgPath.setScaleX(scaleFactor);
-                svgPath.setScaleY(scaleFactor);
-                
-                svgGroup.getChildren().add(svgPath);
+    public static boolean isLoaded(String svgFileName) {
+        return loading(svgFileName).isDone();
+    }
+
+    /**
+     * Run the action on the FX thread once the drawing is loaded, e.g. to
+     * render again what was drawn with the fallback meanwhile. If it already
+     * is, the action runs on the next pulse.
+     */
+    public static void whenLoaded(String svgFileName, Runnable action) {
+        loading(svgFileName).whenComplete((document, error) -> Platform.runLater(action));
+    }
+
+    private static CompletableFuture<SVGDocument> loading(String svgFileName) {
+        CompletableFuture<SVGDocument> future = documents.get(svgFileName);
+        if (future == null) {
+            CompletableFuture<SVGDocument> created = new CompletableFuture<>();
+            future = documents.putIfAbsent(svgFileName, created);
+            if (future == null) {
+                CompletableFuture.runAsync(() -> load(svgFileName, created));
+                future = created;
             }
         }
-        
-        pane.getChildren().add(svgGroup);
-        pane.setPrefSize(width * scaleFactor, height * scaleFactor);
-        
-        return pane;
+        return future;
     }
-    
+
     /**
-     * Extract path data from SVG content (simplified implementation)
+     * Parse every drawing in /components/ on background threads. Files that
+     * are already loaded or queued are not read again.
+     *
+     * @return completes once every drawing is available
      */
-    private static String[] extractSVGPaths(String svgContent) {
-        // This is a very basic implementation
-        // For production use, consider using a proper SVG parsing library
-        java.util.List<String> paths = new java.util.ArrayList<>();
-        
-        String[] lines = svgContent.split("\n");
-        for (String line : lines) {
-            if (line.contains("<path") && line.contains("d=\"")) {
-                int start = line.indexOf("d=\"") + 3;
-                int end = line.indexOf("\"", start);
-                if (end > start) {
-                    paths.add(line.substring(start, end));
+    public static CompletableFuture<Void> preloadAll() {
+        List<String> files = listComponentFiles();
+        if (files.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "svg-preload");
+            thread.setDaemon(true); // Never keeps the application alive
+            return thread;
+        });
+        List<CompletableFuture<SVGDocument>> loads = new ArrayList<>(files.size());
+        for (String file : files) {
+            CompletableFuture<SVGDocument> created = new CompletableFuture<>();
+            CompletableFuture<SVGDocument> existing = documents.putIfAbsent(file, created);
+            if (existing != null) {
+                loads.add(existing);
+            } else {
+                executor.execute(() -> load(file, created));
+                loads.add(created);
+            }
+        }
+        // Queued parses still run; the threads exit once they are done
+        executor.shutdown();
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]));
+    }
+
+    // Always completes the future, so no caller can wait forever
+    private static void load(String svgFileName, CompletableFuture<SVGDocument> future) {
+        try {
+            future.complete(readDocument(svgFileName));
+        } catch (RuntimeException e) {
+            System.err.println("Error loading SVG: " + svgFileName + " - " + e.getMessage());
+            future.complete(null);
+        }
+    }
+
+    private static SVGDocument readDocument(String svgFileName) {
+        try (InputStream inputStream = SVGLoader.class.getResourceAsStream(COMPONENT_DIR + svgFileName)) {
+            if (inputStream == null) {
+                System.out.println("SVG file not found: " + svgFileName + ", using fallback rendering");
+                return null;
+            }
+            // The bytes are hashed on the way, since they are read anyway
+            byte[] bytes = inputStream.readAllBytes();
+            contentHashes.putIfAbsent(svgFileName, ContentHash.of(bytes));
+            return SVGParser.parse(new ByteArrayInputStream(bytes));
+        } catch (IOException e) {
+            System.err.println("Error loading SVG: " + svgFileName + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Names of the .svg files in /components/, whether the resources are a directory or inside a jar
+    private static List<String> listComponentFiles() {
+        List<String> files = new ArrayList<>();
+        URL url = SVGLoader.class.getResource(COMPONENT_DIR);
+        if (url == null) {
+            return files;
+        }
+        try {
+            URI uri = url.toURI();
+            if ("jar".equals(uri.getScheme())) {
+                try (FileSystem jar = FileSystems.newFileSystem(uri, Collections.emptyMap())) {
+                    collectSVGFiles(jar.getPath(COMPONENT_DIR), files);
                 }
+            } else {
+                collectSVGFiles(Paths.get(uri), files);
             }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            System.err.println("Could not list component drawings: " + e.getMessage());
         }
-        
-        return paths.toArray(new String[0]);
+        return files;
     }
-    
+
+    private static void collectSVGFiles(Path directory, List<String> files) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.svg")) {
+            for (Path file : stream) {
+                files.add(file.getFileName().toString());
+            }
+        }
+    }
+
     /**
-     * Create fallback shape when SVG loading fails
+     * Hex SHA-256 of the file's bytes, or "none" if there is no such file.
+     * Reads the file only if the preload has not already done so; nothing
+     * is parsed.
      */
-    private static Pane createFallbackShape(String svgFileName, double width, double height, double scaleFactor) {
-        // Return current SVGComponent rendering as fallback
-        // This ensures the application continues to work even without SVG files
-        return new Pane(); // Empty pane for now, SVGComponent will handle the rendering
+    public static String getContentHash(String svgFileName) {
+        return contentHashes.computeIfAbsent(svgFileName, SVGLoader::hashFile);
+    }
+
+    private static String hashFile(String svgFileName) {
+        try (InputStream inputStream = SVGLoader.class.getResourceAsStream(COMPONENT_DIR + svgFileName)) {
+            return inputStream != null ? ContentHash.of(inputStream.readAllBytes()) : "none";
+        } catch (IOException e) {
+            return "none";
+        }
     }
-    
+
     /**
      * Check if SVG file exists in resources
      */
     public static boolean svgExists(String svgFileName) {
-        InputStream inputStream = SVGLoader.class.getResourceAsStream("/components/" + svgFileName);
-        return inputStream != null;
+        // Look the resource up without opening it
+        return SVGLoader.class.getResource(COMPONENT_DIR + svgFileName) != null;
     }
 }
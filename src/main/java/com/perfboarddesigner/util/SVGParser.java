@@ -0,0 +1,322 @@
+package com.perfboarddesigner.util;
+
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming SVG reader for the component library. Elements are handled as
+ * they are read, with presentation attributes inherited through groups, and
+ * every shape is turned into path data or text on the spot.
+ *
+ * Covers what the component drawings use: rect, line, circle, ellipse,
+ * polygon, polyline, path and text, with fill, stroke and opacity given as
+ * attributes or inline style. Transforms, gradients and CSS classes are not
+ * supported.
+ */
+public final class SVGParser {
+    // Inherited presentation attributes and their initial values
+    private static final Map<String, String> INITIAL_STYLE = Map.of(
+        "fill", "black",
+        "stroke", "none",
+        "stroke-width", "1",
+        "opacity", "1",
+        "fill-opacity", "1",
+        "stroke-opacity", "1",
+        "font-family", "System",
+        "font-size", "16",
+        "text-anchor", "start");
+    // Subtrees that hold definitions rather than drawing
+    private static final Set<String> SKIPPED = Set.of(
+        "defs", "symbol", "clipPath", "mask", "pattern", "marker", "linearGradient", "radialGradient");
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private SVGParser() {
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Component files are plain drawings; never resolve DTDs or external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    public static SVGDocument parse(InputStream input) throws IOException {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(input);
+            return read(reader);
+        } catch (XMLStreamException e) {
+            throw new IOException("Invalid SVG: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // The caller owns the stream; nothing else to release
+                }
+            }
+        }
+    }
+
+    private static SVGDocument read(XMLStreamReader reader) throws XMLStreamException, IOException {
+        List<SVGShape> shapes = new ArrayList<>();
+        Deque<Map<String, String>> styles = new ArrayDeque<>();
+        styles.push(INITIAL_STYLE);
+        double[] viewBox = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                styles.pop();
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            String name = reader.getLocalName();
+            if (SKIPPED.contains(name)) {
+                skipElement(reader);
+                continue;
+            }
+            Map<String, String> style = inherit(styles.peek(), reader);
+            styles.push(style);
+            if (viewBox == null) {
+                if (!"svg".equals(name)) {
+                    throw new IOException("Not an SVG document: <" + name + ">");
+                }
+                viewBox = readViewBox(reader);
+                continue;
+            }
+            if ("text".equals(name)) {
+                shapes.add(readText(reader, style));
+                styles.pop(); // readText consumed the end tag
+                continue;
+            }
+            String pathData = toPathData(name, reader);
+            if (pathData != null && !pathData.isEmpty()) {
+                shapes.add(SVGShape.path(reader.getAttributeValue(null, "id"), pathData,
+                    paint(style, "fill"), paint(style, "stroke"), number(style.get("stroke-width"), 1)));
+            }
+        }
+        if (viewBox == null) {
+            throw new IOException("Empty SVG document");
+        }
+        return new SVGDocument(viewBox[0], viewBox[1], viewBox[2], viewBox[3], shapes);
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    // The parent's style with this element's attributes and inline style laid over it
+    private static Map<String, String> inherit(Map<String, String> parent, XMLStreamReader reader) {
+        Map<String, String> declared = new HashMap<>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            declared.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i).trim());
+        }
+        String inline = declared.remove("style");
+        if (inline != null) {
+            // Inline style wins over presentation attributes
+            for (String declaration : inline.split(";")) {
+                int colon = declaration.indexOf(':');
+                if (colon > 0) {
+                    declared.put(declaration.substring(0, colon).trim(), declaration.substring(colon + 1).trim());
+                }
+            }
+        }
+        declared.keySet().retainAll(INITIAL_STYLE.keySet());
+        if (declared.isEmpty()) {
+            return parent;
+        }
+        Map<String, String> style = new HashMap<>(parent);
+        style.putAll(declared);
+        // Opacity multiplies down the tree instead of being replaced
+        if (declared.containsKey("opacity")) {
+            style.put("opacity", String.valueOf(number(declared.get("opacity"), 1) * number(parent.get("opacity"), 1)));
+        }
+        return style;
+    }
+
+    // minX, minY, width, height; the width and height attributes stand in for a missing viewBox
+    private static double[] readViewBox(XMLStreamReader reader) {
+        String viewBox = reader.getAttributeValue(null, "viewBox");
+        if (viewBox != null) {
+            double[] values = numbers(viewBox);
+            if (values.length == 4 && values[2] > 0 && values[3] > 0) {
+                return values;
+            }
+        }
+        double width = number(reader.getAttributeValue(null, "width"), 100);
+        double height = number(reader.getAttributeValue(null, "height"), 100);
+        return new double[] {0, 0, width > 0 ? width : 100, height > 0 ? height : 100};
+    }
+
+    private static SVGShape readText(XMLStreamReader reader, Map<String, String> style) throws XMLStreamException {
+        String id = reader.getAttributeValue(null, "id");
+        double x = number(reader.getAttributeValue(null, "x"), 0);
+        double y = number(reader.getAttributeValue(null, "y"), 0);
+        // Collect the text of the element and any tspans inside it
+        StringBuilder content = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                content.append(reader.getText());
+            }
+        }
+        TextAlignment alignment;
+        switch (style.get("text-anchor")) {
+            case "middle": alignment = TextAlignment.CENTER; break;
+            case "end": alignment = TextAlignment.RIGHT; break;
+            default: alignment = TextAlignment.LEFT;
+        }
+        return SVGShape.text(id, content.toString().trim(), x, y, paint(style, "fill"),
+            style.get("font-family"), number(style.get("font-size"), 16), alignment);
+    }
+
+    /**
+     * The element's outline as path data in absolute coordinates, or null
+     * for elements that draw nothing.
+     */
+    private static String toPathData(String name, XMLStreamReader reader) {
+        switch (name) {
+            case "path": {
+                String d = reader.getAttributeValue(null, "d");
+                return d != null ? d.trim() : null;
+            }
+            case "rect": {
+                double x = attribute(reader, "x");
+                double y = attribute(reader, "y");
+                double w = attribute(reader, "width");
+                double h = attribute(reader, "height");
+                if (w <= 0 || h <= 0) {
+                    return null;
+                }
+                double rx = attribute(reader, "rx");
+                double ry = attribute(reader, "ry");
+                rx = Math.min(rx > 0 ? rx : ry, w / 2);
+                ry = Math.min(ry > 0 ? ry : rx, h / 2);
+                if (rx <= 0) {
+                    return "M" + f(x) + " " + f(y) + " H" + f(x + w) + " V" + f(y + h) + " H" + f(x) + " Z";
+                }
+                return "M" + f(x + rx) + " " + f(y) + " H" + f(x + w - rx) + arc(rx, ry, x + w, y + ry)
+                    + " V" + f(y + h - ry) + arc(rx, ry, x + w - rx, y + h)
+                    + " H" + f(x + rx) + arc(rx, ry, x, y + h - ry)
+                    + " V" + f(y + ry) + arc(rx, ry, x + rx, y) + " Z";
+            }
+            case "line":
+                return "M" + f(attribute(reader, "x1")) + " " + f(attribute(reader, "y1"))
+                    + " L" + f(attribute(reader, "x2")) + " " + f(attribute(reader, "y2"));
+            case "circle": {
+                double r = attribute(reader, "r");
+                return r > 0 ? ellipse(attribute(reader, "cx"), attribute(reader, "cy"), r, r) : null;
+            }
+            case "ellipse": {
+                double rx = attribute(reader, "rx");
+                double ry = attribute(reader, "ry");
+                return rx > 0 && ry > 0 ? ellipse(attribute(reader, "cx"), attribute(reader, "cy"), rx, ry) : null;
+            }
+            case "polygon":
+            case "polyline": {
+                double[] points = numbers(reader.getAttributeValue(null, "points"));
+                if (points.length < 4) {
+                    return null;
+                }
+                StringBuilder d = new StringBuilder("M").append(f(points[0])).append(' ').append(f(points[1]));
+                for (int i = 2; i + 1 < points.length; i += 2) {
+                    d.append(" L").append(f(points[i])).append(' ').append(f(points[i + 1]));
+                }
+                return "polygon".equals(name) ? d.append(" Z").toString() : d.toString();
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static String ellipse(double cx, double cy, double rx, double ry) {
+        // Two half arcs, since one arc cannot end where it starts
+        return "M" + f(cx - rx) + " " + f(cy) + arc(rx, ry, cx + rx, cy) + arc(rx, ry, cx - rx, cy) + " Z";
+    }
+
+    private static String arc(double rx, double ry, double x, double y) {
+        return " A" + f(rx) + " " + f(ry) + " 0 0 1 " + f(x) + " " + f(y);
+    }
+
+    private static Color paint(Map<String, String> style, String property) {
+        String value = style.get(property);
+        if (value == null || value.equals("none") || value.startsWith("url(")) {
+            return null;
+        }
+        Color color;
+        try {
+            color = value.equals("currentColor") ? Color.BLACK : Color.web(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        double opacity = number(style.get("opacity"), 1) * number(style.get(property + "-opacity"), 1);
+        return opacity < 1 ? color.deriveColor(0, 1, 1, Math.max(opacity, 0)) : color;
+    }
+
+    private static double attribute(XMLStreamReader reader, String name) {
+        return number(reader.getAttributeValue(null, name), 0);
+    }
+
+    // Lengths are taken as user units; a px suffix is accepted
+    private static double number(String value, double fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        String trimmed = value.trim();
+        if (trimmed.endsWith("px")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 2);
+        }
+        try {
+            return Double.parseDouble(trimmed);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static double[] numbers(String list) {
+        if (list == null || list.isBlank()) {
+            return new double[0];
+        }
+        String[] parts = list.trim().split("[\\s,]+");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = number(parts[i], 0);
+        }
+        return values;
+    }
+
+    private static String f(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,77 @@
+package com.perfboarddesigner.util;
+
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+
+import java.util.Objects;
+
+/**
+ * One drawable element of an {@link SVGDocument}, with inherited styles
+ * already resolved. Every geometric element (rect, line, circle, ellipse,
+ * polygon, polyline, path) is flattened to path data when parsed, so drawing
+ * only ever deals with paths and text.
+ */
+public final class SVGShape {
+    public enum Kind { PATH, TEXT }
+
+    private final Kind kind;
+    private final String id;
+    private final String pathData;
+    private final Color fill;       // null for none
+    private final Color stroke;     // null for none
+    private final double strokeWidth;
+    private final String text;
+    private final double x, y;      // Text anchor point
+    private final String fontFamily;
+    private final double fontSize;
+    private final TextAlignment alignment;
+
+    private SVGShape(Kind kind, String id, String pathData, Color fill, Color stroke, double strokeWidth,
+                     String text, double x, double y, String fontFamily, double fontSize, TextAlignment alignment) {
+        this.kind = kind;
+        this.id = id;
+        this.pathData = pathData;
+        this.fill = fill;
+        this.stroke = stroke;
+        this.strokeWidth = strokeWidth;
+        this.text = text;
+        this.x = x;
+        this.y = y;
+        this.fontFamily = fontFamily;
+        this.fontSize = fontSize;
+        this.alignment = alignment;
+    }
+
+    static SVGShape path(String id, String pathData, Color fill, Color stroke, double strokeWidth) {
+        return new SVGShape(Kind.PATH, id, pathData, fill, stroke, strokeWidth, null, 0, 0, null, 0, null);
+    }
+
+    static SVGShape text(String id, String text, double x, double y, Color fill, String fontFamily,
+                         double fontSize, TextAlignment alignment) {
+        return new SVGShape(Kind.TEXT, id, null, fill, null, 0, text, x, y, fontFamily, fontSize, alignment);
+    }
+
+    /**
+     * Whether the two shapes are painted identically, so their paths can be
+     * drawn as one.
+     */
+    boolean samePaint(SVGShape other) {
+        return kind == Kind.PATH && other.kind == Kind.PATH
+            && Objects.equals(fill, other.fill)
+            && Objects.equals(stroke, other.stroke)
+            && strokeWidth == other.strokeWidth;
+    }
+
+    public Kind getKind() { return kind; }
+    public String getId() { return id; }
+    public String getPathData() { return pathData; }
+    public Color getFill() { return fill; }
+    public Color getStroke() { return stroke; }
+    public double getStrokeWidth() { return strokeWidth; }
+    public String getText() { return text; }
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public String getFontFamily() { return fontFamily; }
+    public double getFontSize() { return fontSize; }
+    public TextAlignment getAlignment() { return alignment; }
+}